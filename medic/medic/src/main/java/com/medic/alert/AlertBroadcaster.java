@@ -0,0 +1,55 @@
+package com.medic.alert;
+
+import java.util.Collections;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.medic.config.SseFanOut;
+
+// Fans alerts out to SSE subscribers, so vitals writers never block on a slow browser; see
+// SseFanOut for the per-client queues.
+@Component
+public class AlertBroadcaster {
+
+    private static final long SUBSCRIPTION_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    @Value("${medic.alerts.stream.client-buffer:256}")
+    private int clientBuffer;
+
+    @Value("${medic.alerts.stream.sender-threads:4}")
+    private int senderThreads;
+
+    private SseFanOut<VitalsAlertDTO> fanOut;
+
+    @PostConstruct
+    public void init() {
+        fanOut = new SseFanOut<>("vitals-alert", senderThreads, clientBuffer,
+                alert -> SseEmitter.event()
+                        .name(alert.getType().name())
+                        .data(alert));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOut.shutdown();
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(SUBSCRIPTION_TIMEOUT_MS);
+        fanOut.subscribe(emitter, alert -> true, Collections.emptyList());
+        return emitter;
+    }
+
+    public void publish(VitalsAlertDTO alert) {
+        fanOut.publish(alert);
+    }
+
+    public int getSubscriberCount() {
+        return fanOut.getSubscriberCount();
+    }
+}
@@ -0,0 +1,34 @@
+package com.medic.alert;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/alerts")
+public class AlertController {
+
+    @Autowired
+    private CriticalVitalsEngine engine;
+
+    @Autowired
+    private AlertBroadcaster broadcaster;
+
+    // Server-Sent Events: CRITICAL / CHANGED / RECOVERED events as vitals arrive
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return broadcaster.subscribe();
+    }
+
+    // Patients currently in a critical state, for a subscriber's initial snapshot
+    @GetMapping("/active")
+    public ResponseEntity<List<VitalsAlertDTO>> getActiveAlerts() {
+        return ResponseEntity.ok(engine.getActiveAlerts());
+    }
+}
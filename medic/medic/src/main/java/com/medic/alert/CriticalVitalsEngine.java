@@ -0,0 +1,112 @@
+package com.medic.alert;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+// Push-based critical-vitals detection. Every reading is checked against the thresholds as it
+// is written; only patients currently in a critical state are kept in memory, so a stable
+// patient costs one threshold check and one map lookup, and the database is never re-queried.
+// Alerts fire on state transitions only, not on every critical reading.
+@Service
+public class CriticalVitalsEngine {
+
+    @Autowired
+    private VitalsThresholds thresholds;
+
+    @Autowired
+    private AlertBroadcaster broadcaster;
+
+    private final ConcurrentHashMap<Integer, CriticalState> criticalPatients = new ConcurrentHashMap<>();
+    private final LongAdder readingsEvaluated = new LongAdder();
+
+    public void onReading(int patientId, double temperature, int heartRate, int systolic, int diastolic,
+                          int respiratoryRate, double oxygenSaturation, Timestamp readingAt) {
+        readingsEvaluated.increment();
+        int breaches = thresholds.evaluate(temperature, heartRate, systolic, diastolic,
+                respiratoryRate, oxygenSaturation);
+        if (breaches == 0 && !criticalPatients.containsKey(patientId)) {
+            return;
+        }
+
+        // compute() serializes concurrent readings for the same patient, so each transition fires once
+        VitalsAlertDTO[] fired = new VitalsAlertDTO[1];
+        criticalPatients.compute(patientId, (id, previous) -> {
+            if (breaches == 0) {
+                if (previous != null) {
+                    fired[0] = previous.toAlert(id, VitalsAlertDTO.Type.RECOVERED, 0, readingAt);
+                }
+                return null;
+            }
+            CriticalState next = new CriticalState(breaches,
+                    previous != null ? previous.since : readingAt,
+                    temperature, heartRate, systolic, diastolic, respiratoryRate, oxygenSaturation);
+            if (previous == null) {
+                fired[0] = next.toAlert(id, VitalsAlertDTO.Type.CRITICAL, breaches, readingAt);
+            } else if (previous.breaches != breaches) {
+                fired[0] = next.toAlert(id, VitalsAlertDTO.Type.CHANGED, breaches, readingAt);
+            }
+            return next;
+        });
+
+        if (fired[0] != null) {
+            broadcaster.publish(fired[0]);
+        }
+    }
+
+    public List<VitalsAlertDTO> getActiveAlerts() {
+        List<VitalsAlertDTO> active = new ArrayList<>();
+        criticalPatients.forEach((patientId, state) ->
+                active.add(state.toAlert(patientId, VitalsAlertDTO.Type.CRITICAL, state.breaches, state.since)));
+        return active;
+    }
+
+    public long getReadingsEvaluated() {
+        return readingsEvaluated.sum();
+    }
+
+    // Immutable snapshot of a critical patient's last reading
+    private static final class CriticalState {
+        private final int breaches;
+        private final Timestamp since;
+        private final double temperature;
+        private final int heartRate;
+        private final int systolic;
+        private final int diastolic;
+        private final int respiratoryRate;
+        private final double oxygenSaturation;
+
+        private CriticalState(int breaches, Timestamp since, double temperature, int heartRate, int systolic,
+                              int diastolic, int respiratoryRate, double oxygenSaturation) {
+            this.breaches = breaches;
+            this.since = since;
+            this.temperature = temperature;
+            this.heartRate = heartRate;
+            this.systolic = systolic;
+            this.diastolic = diastolic;
+            this.respiratoryRate = respiratoryRate;
+            this.oxygenSaturation = oxygenSaturation;
+        }
+
+        private VitalsAlertDTO toAlert(int patientId, VitalsAlertDTO.Type type, int currentBreaches, Timestamp readingAt) {
+            VitalsAlertDTO alert = new VitalsAlertDTO();
+            alert.setPatientId(patientId);
+            alert.setType(type);
+            alert.setBreaches(VitalsThresholds.describe(currentBreaches));
+            alert.setCriticalSince(since);
+            alert.setReadingAt(readingAt);
+            alert.setTemperature(temperature);
+            alert.setHeartRate(heartRate);
+            alert.setBloodPressureSystolic(systolic);
+            alert.setBloodPressureDiastolic(diastolic);
+            alert.setRespiratoryRate(respiratoryRate);
+            alert.setOxygenSaturation(oxygenSaturation);
+            return alert;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.medic.alert;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public class VitalsAlertDTO {
+
+    // CRITICAL: patient became critical, CHANGED: set of breached rules changed, RECOVERED: back to stable
+    public enum Type { CRITICAL, CHANGED, RECOVERED }
+
+    private int patientId;
+    private Type type;
+    private List<String> breaches;
+    private Timestamp criticalSince;
+    private Timestamp readingAt;
+    private double temperature;
+    private int heartRate;
+    private int bloodPressureSystolic;
+    private int bloodPressureDiastolic;
+    private int respiratoryRate;
+    private double oxygenSaturation;
+
+    public int getPatientId() { return patientId; }
+    public void setPatientId(int patientId) { this.patientId = patientId; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public List<String> getBreaches() { return breaches; }
+    public void setBreaches(List<String> breaches) { this.breaches = breaches; }
+
+    public Timestamp getCriticalSince() { return criticalSince; }
+    public void setCriticalSince(Timestamp criticalSince) { this.criticalSince = criticalSince; }
+
+    public Timestamp getReadingAt() { return readingAt; }
+    public void setReadingAt(Timestamp readingAt) { this.readingAt = readingAt; }
+
+    public double getTemperature() { return temperature; }
+    public void setTemperature(double temperature) { this.temperature = temperature; }
+
+    public int getHeartRate() { return heartRate; }
+    public void setHeartRate(int heartRate) { this.heartRate = heartRate; }
+
+    public int getBloodPressureSystolic() { return bloodPressureSystolic; }
+    public void setBloodPressureSystolic(int bloodPressureSystolic) { this.bloodPressureSystolic = bloodPressureSystolic; }
+
+    public int getBloodPressureDiastolic() { return bloodPressureDiastolic; }
+    public void setBloodPressureDiastolic(int bloodPressureDiastolic) { this.bloodPressureDiastolic = bloodPressureDiastolic; }
+
+    public int getRespiratoryRate() { return respiratoryRate; }
+    public void setRespiratoryRate(int respiratoryRate) { this.respiratoryRate = respiratoryRate; }
+
+    public double getOxygenSaturation() { return oxygenSaturation; }
+    public void setOxygenSaturation(double oxygenSaturation) { this.oxygenSaturation = oxygenSaturation; }
+}
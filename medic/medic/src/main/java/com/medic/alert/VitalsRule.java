@@ -0,0 +1,20 @@
+package com.medic.alert;
+
+// One threshold rule per enum constant; a reading's breaches are kept as a bitmask of ordinals
+public enum VitalsRule {
+    HIGH_TEMPERATURE,
+    LOW_TEMPERATURE,
+    TACHYCARDIA,
+    BRADYCARDIA,
+    HYPERTENSIVE_SYSTOLIC,
+    HYPERTENSIVE_DIASTOLIC,
+    HYPOTENSIVE_SYSTOLIC,
+    HYPOTENSIVE_DIASTOLIC,
+    TACHYPNEA,
+    BRADYPNEA,
+    HYPOXIA;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+}
@@ -0,0 +1,74 @@
+package com.medic.alert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Critical-vitals limits. Field initializers are the limits Report.evaluateCriticalVitals
+// always used; each one can be overridden with a medic.alerts.* property.
+@Component
+public class VitalsThresholds {
+
+    @Value("${medic.alerts.temperature-max:39.0}")
+    private double temperatureMax = 39.0;
+    @Value("${medic.alerts.temperature-min:35.0}")
+    private double temperatureMin = 35.0;
+    @Value("${medic.alerts.heart-rate-max:120}")
+    private int heartRateMax = 120;
+    @Value("${medic.alerts.heart-rate-min:50}")
+    private int heartRateMin = 50;
+    @Value("${medic.alerts.systolic-max:180}")
+    private int systolicMax = 180;
+    @Value("${medic.alerts.diastolic-max:120}")
+    private int diastolicMax = 120;
+    @Value("${medic.alerts.systolic-min:90}")
+    private int systolicMin = 90;
+    @Value("${medic.alerts.diastolic-min:60}")
+    private int diastolicMin = 60;
+    @Value("${medic.alerts.respiratory-rate-max:30}")
+    private int respiratoryRateMax = 30;
+    @Value("${medic.alerts.respiratory-rate-min:10}")
+    private int respiratoryRateMin = 10;
+    @Value("${medic.alerts.oxygen-saturation-min:92}")
+    private double oxygenSaturationMin = 92;
+
+    // Thresholds with the built-in defaults, for code that runs outside the Spring context
+    public static VitalsThresholds defaults() {
+        return new VitalsThresholds();
+    }
+
+    // Constant-time check of a single reading; returns a VitalsRule bitmask, 0 when stable
+    public int evaluate(double temperature, int heartRate, int systolic, int diastolic,
+                        int respiratoryRate, double oxygenSaturation) {
+        int breaches = 0;
+        if (temperature > temperatureMax) breaches |= VitalsRule.HIGH_TEMPERATURE.bit();
+        if (temperature < temperatureMin) breaches |= VitalsRule.LOW_TEMPERATURE.bit();
+        if (heartRate > heartRateMax) breaches |= VitalsRule.TACHYCARDIA.bit();
+        if (heartRate < heartRateMin) breaches |= VitalsRule.BRADYCARDIA.bit();
+        if (systolic > systolicMax) breaches |= VitalsRule.HYPERTENSIVE_SYSTOLIC.bit();
+        if (diastolic > diastolicMax) breaches |= VitalsRule.HYPERTENSIVE_DIASTOLIC.bit();
+        if (systolic < systolicMin) breaches |= VitalsRule.HYPOTENSIVE_SYSTOLIC.bit();
+        if (diastolic < diastolicMin) breaches |= VitalsRule.HYPOTENSIVE_DIASTOLIC.bit();
+        if (respiratoryRate > respiratoryRateMax) breaches |= VitalsRule.TACHYPNEA.bit();
+        if (respiratoryRate < respiratoryRateMin) breaches |= VitalsRule.BRADYPNEA.bit();
+        if (oxygenSaturation < oxygenSaturationMin) breaches |= VitalsRule.HYPOXIA.bit();
+        return breaches;
+    }
+
+    public boolean isCritical(double temperature, int heartRate, int systolic, int diastolic,
+                              int respiratoryRate, double oxygenSaturation) {
+        return evaluate(temperature, heartRate, systolic, diastolic, respiratoryRate, oxygenSaturation) != 0;
+    }
+
+    public static List<String> describe(int breaches) {
+        List<String> rules = new ArrayList<>();
+        for (VitalsRule rule : VitalsRule.values()) {
+            if ((breaches & rule.bit()) != 0) {
+                rules.add(rule.name());
+            }
+        }
+        return rules;
+    }
+}
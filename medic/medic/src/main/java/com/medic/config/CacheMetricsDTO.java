@@ -0,0 +1,89 @@
+package com.medic.config;
+
+import java.util.Map;
+
+public class CacheMetricsDTO {
+    private long secondLevelHits;
+    private long secondLevelMisses;
+    private long secondLevelPuts;
+    private long queryCacheHits;
+    private long queryCacheMisses;
+    private long queryCachePuts;
+    private Map<String, RegionStats> regions;
+
+    public long getSecondLevelHits() {
+        return secondLevelHits;
+    }
+
+    public void setSecondLevelHits(long secondLevelHits) {
+        this.secondLevelHits = secondLevelHits;
+    }
+
+    public long getSecondLevelMisses() {
+        return secondLevelMisses;
+    }
+
+    public void setSecondLevelMisses(long secondLevelMisses) {
+        this.secondLevelMisses = secondLevelMisses;
+    }
+
+    public long getSecondLevelPuts() {
+        return secondLevelPuts;
+    }
+
+    public void setSecondLevelPuts(long secondLevelPuts) {
+        this.secondLevelPuts = secondLevelPuts;
+    }
+
+    public long getQueryCacheHits() {
+        return queryCacheHits;
+    }
+
+    public void setQueryCacheHits(long queryCacheHits) {
+        this.queryCacheHits = queryCacheHits;
+    }
+
+    public long getQueryCacheMisses() {
+        return queryCacheMisses;
+    }
+
+    public void setQueryCacheMisses(long queryCacheMisses) {
+        this.queryCacheMisses = queryCacheMisses;
+    }
+
+    public long getQueryCachePuts() {
+        return queryCachePuts;
+    }
+
+    public void setQueryCachePuts(long queryCachePuts) {
+        this.queryCachePuts = queryCachePuts;
+    }
+
+    public Map<String, RegionStats> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(Map<String, RegionStats> regions) {
+        this.regions = regions;
+    }
+
+    // Per-region counters as reported by Hibernate statistics
+    public static class RegionStats {
+        private long hits;
+        private long misses;
+        private long puts;
+        private long elementsInMemory;
+
+        public long getHits() { return hits; }
+        public void setHits(long hits) { this.hits = hits; }
+
+        public long getMisses() { return misses; }
+        public void setMisses(long misses) { this.misses = misses; }
+
+        public long getPuts() { return puts; }
+        public void setPuts(long puts) { this.puts = puts; }
+
+        public long getElementsInMemory() { return elementsInMemory; }
+        public void setElementsInMemory(long elementsInMemory) { this.elementsInMemory = elementsInMemory; }
+    }
+}
@@ -0,0 +1,110 @@
+package com.medic.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.mchange.v2.c3p0.PooledDataSource;
+
+// Wraps the pooled DataSource and records how long each getConnection() waits,
+// so pool starvation shows up as latency before it shows up as timeouts
+public class MeteredDataSource extends DelegatingDataSource {
+
+    // Upper bounds (exclusive) of the acquire-latency buckets, in microseconds
+    private static final long[] BUCKET_BOUNDS_MICROS = {
+        100, 500, 1_000, 5_000, 10_000, 50_000, 100_000, 500_000, 1_000_000
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MICROS.length + 1];
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireFailures = new LongAdder();
+    private final LongAdder totalAcquireMicros = new LongAdder();
+    private final LongAccumulator maxAcquireMicros = new LongAccumulator(Long::max, 0);
+
+    public MeteredDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = super.getConnection();
+            recordAcquire(start);
+            return connection;
+        } catch (SQLException e) {
+            acquireFailures.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = super.getConnection(username, password);
+            recordAcquire(start);
+            return connection;
+        } catch (SQLException e) {
+            acquireFailures.increment();
+            throw e;
+        }
+    }
+
+    private void recordAcquire(long startNanos) {
+        long micros = (System.nanoTime() - startNanos) / 1_000;
+        acquireCount.increment();
+        totalAcquireMicros.add(micros);
+        maxAcquireMicros.accumulate(micros);
+
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MICROS.length && micros >= BUCKET_BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+    }
+
+    public PoolMetricsDTO snapshot() {
+        PoolMetricsDTO metrics = new PoolMetricsDTO();
+
+        DataSource target = getTargetDataSource();
+        if (target instanceof PooledDataSource) {
+            PooledDataSource pool = (PooledDataSource) target;
+            try {
+                metrics.setActive(pool.getNumBusyConnectionsDefaultUser());
+                metrics.setIdle(pool.getNumIdleConnectionsDefaultUser());
+                metrics.setTotal(pool.getNumConnectionsDefaultUser());
+                metrics.setWaiting(pool.getNumThreadsAwaitingCheckoutDefaultUser());
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to read connection pool statistics", e);
+            }
+        }
+
+        long count = acquireCount.sum();
+        metrics.setAcquireCount(count);
+        metrics.setAcquireFailures(acquireFailures.sum());
+        metrics.setAcquireMeanMicros(count == 0 ? 0 : totalAcquireMicros.sum() / count);
+        metrics.setAcquireMaxMicros(maxAcquireMicros.get());
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            String label = i < BUCKET_BOUNDS_MICROS.length
+                    ? "<" + BUCKET_BOUNDS_MICROS[i] + "us"
+                    : ">=" + BUCKET_BOUNDS_MICROS[BUCKET_BOUNDS_MICROS.length - 1] + "us";
+            histogram.put(label, buckets[i].sum());
+        }
+        metrics.setAcquireLatencyHistogram(histogram);
+
+        return metrics;
+    }
+}
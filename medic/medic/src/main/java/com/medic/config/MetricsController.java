@@ -0,0 +1,67 @@
+package com.medic.config;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    @Autowired
+    private MeteredDataSource dataSource;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @GetMapping("/datasource")
+    public ResponseEntity<PoolMetricsDTO> getDataSourceMetrics() {
+        return ResponseEntity.ok(dataSource.snapshot());
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<CacheMetricsDTO> getCacheMetrics() {
+        Statistics statistics = sessionFactory.getStatistics();
+
+        CacheMetricsDTO metrics = new CacheMetricsDTO();
+        metrics.setSecondLevelHits(statistics.getSecondLevelCacheHitCount());
+        metrics.setSecondLevelMisses(statistics.getSecondLevelCacheMissCount());
+        metrics.setSecondLevelPuts(statistics.getSecondLevelCachePutCount());
+        metrics.setQueryCacheHits(statistics.getQueryCacheHitCount());
+        metrics.setQueryCacheMisses(statistics.getQueryCacheMissCount());
+        metrics.setQueryCachePuts(statistics.getQueryCachePutCount());
+
+        Map<String, CacheMetricsDTO.RegionStats> regions = new TreeMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            CacheMetricsDTO.RegionStats stats = new CacheMetricsDTO.RegionStats();
+            stats.setHits(region.getHitCount());
+            stats.setMisses(region.getMissCount());
+            stats.setPuts(region.getPutCount());
+            stats.setElementsInMemory(region.getElementCountInMemory());
+            regions.put(regionName, stats);
+        }
+        metrics.setRegions(regions);
+
+        return ResponseEntity.ok(metrics);
+    }
+
+    // Drops every cached entity, collection and query result (e.g. after a manual DB fix)
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> evictCaches() {
+        sessionFactory.getCache().evictAllRegions();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.medic.config;
+
+import java.util.Map;
+
+public class PoolMetricsDTO {
+    private int active;
+    private int idle;
+    private int total;
+    private int waiting;
+    private long acquireCount;
+    private long acquireFailures;
+    private long acquireMeanMicros;
+    private long acquireMaxMicros;
+    private Map<String, Long> acquireLatencyHistogram;
+
+    public int getActive() {
+        return active;
+    }
+
+    public void setActive(int active) {
+        this.active = active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public void setIdle(int idle) {
+        this.idle = idle;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public void setWaiting(int waiting) {
+        this.waiting = waiting;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+
+    public void setAcquireCount(long acquireCount) {
+        this.acquireCount = acquireCount;
+    }
+
+    public long getAcquireFailures() {
+        return acquireFailures;
+    }
+
+    public void setAcquireFailures(long acquireFailures) {
+        this.acquireFailures = acquireFailures;
+    }
+
+    public long getAcquireMeanMicros() {
+        return acquireMeanMicros;
+    }
+
+    public void setAcquireMeanMicros(long acquireMeanMicros) {
+        this.acquireMeanMicros = acquireMeanMicros;
+    }
+
+    public long getAcquireMaxMicros() {
+        return acquireMaxMicros;
+    }
+
+    public void setAcquireMaxMicros(long acquireMaxMicros) {
+        this.acquireMaxMicros = acquireMaxMicros;
+    }
+
+    public Map<String, Long> getAcquireLatencyHistogram() {
+        return acquireLatencyHistogram;
+    }
+
+    public void setAcquireLatencyHistogram(Map<String, Long> acquireLatencyHistogram) {
+        this.acquireLatencyHistogram = acquireLatencyHistogram;
+    }
+}
@@ -0,0 +1,131 @@
+package com.medic.config;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+// Delivers events to SSE subscribers without the publisher ever waiting on a browser. Each
+// client has its own bounded queue drained by a small sender pool; a client that falls that
+// far behind is disconnected (its EventSource reconnects) instead of delaying the others.
+// Owned by a broadcaster, which decides what an event looks like on the wire and what a
+// subscriber is sent on connect.
+public class SseFanOut<T> {
+
+    private final int clientBuffer;
+    private final Function<T, SseEventBuilder> toEvent;
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ThreadPoolExecutor senders;
+
+    public SseFanOut(String threadName, int senderThreads, int clientBuffer, Function<T, SseEventBuilder> toEvent) {
+        this.clientBuffer = clientBuffer;
+        this.toEvent = toEvent;
+        AtomicInteger threadNumber = new AtomicInteger();
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadName + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // backlog is queued ahead of live events; callers publishing under a lock take the same
+    // lock here so nothing is missed or duplicated in between
+    public void subscribe(SseEmitter emitter, Predicate<? super T> filter, List<T> backlog) {
+        Subscriber subscriber = new Subscriber(emitter, filter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        backlog.forEach(subscriber::offer);
+        subscribers.add(subscriber);
+    }
+
+    public void publish(T event) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Predicate<? super T> filter;
+        private final ArrayBlockingQueue<T> queue = new ArrayBlockingQueue<>(clientBuffer);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, Predicate<? super T> filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+        }
+
+        private void offer(T event) {
+            if (closed || !filter.test(event)) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                // Too far behind: drop the connection rather than hold events for it. Completing
+                // takes the emitter's lock, which a sender stuck on this client may hold, so it
+                // is left to the sender pool rather than the publisher.
+                close();
+                senders.execute(this::complete);
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                T event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(toEvent.apply(event));
+                }
+            } catch (Exception e) {
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            if (!closed && !queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                // Connection already gone
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.medic.medication;
+
+import java.util.Collections;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.medic.config.SseFanOut;
+
+// Pushes administration reminders to ward screens over SSE, so the scheduler's tick never waits
+// on a slow browser; see SseFanOut for the per-client queues. A screen that falls behind is
+// disconnected and reconnects to GET /api/administrations/open for the full picture.
+@Component
+public class AdministrationBroadcaster {
+
+    private static final long SUBSCRIPTION_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    @Value("${medic.administration.stream.client-buffer:256}")
+    private int clientBuffer;
+
+    @Value("${medic.administration.stream.sender-threads:2}")
+    private int senderThreads;
+
+    private SseFanOut<AdministrationReminderDTO> fanOut;
+
+    @PostConstruct
+    public void init() {
+        fanOut = new SseFanOut<>("administration-reminder", senderThreads, clientBuffer,
+                reminder -> SseEmitter.event()
+                        .name(reminder.getType().name())
+                        .data(reminder));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOut.shutdown();
+    }
+
+    // wardIds empty or null means every ward
+    public SseEmitter subscribe(Set<Integer> wardIds) {
+        SseEmitter emitter = new SseEmitter(SUBSCRIPTION_TIMEOUT_MS);
+        if (wardIds == null || wardIds.isEmpty()) {
+            fanOut.subscribe(emitter, reminder -> true, Collections.emptyList());
+        } else {
+            fanOut.subscribe(emitter, reminder -> reminder.getWardId() != null && wardIds.contains(reminder.getWardId()),
+                    Collections.emptyList());
+        }
+        return emitter;
+    }
+
+    public void publish(AdministrationReminderDTO reminder) {
+        fanOut.publish(reminder);
+    }
+
+    public int getSubscriberCount() {
+        return fanOut.getSubscriberCount();
+    }
+}
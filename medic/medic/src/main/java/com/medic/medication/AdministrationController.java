@@ -0,0 +1,48 @@
+package com.medic.medication;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/administrations")
+public class AdministrationController {
+
+    private final AdministrationScheduler scheduler;
+    private final AdministrationBroadcaster broadcaster;
+
+    public AdministrationController(AdministrationScheduler scheduler, AdministrationBroadcaster broadcaster) {
+        this.scheduler = scheduler;
+        this.broadcaster = broadcaster;
+    }
+
+    // Server-Sent Events: DUE / OVERDUE / MISSED / GIVEN / CANCELLED reminders.
+    // ?wardId= (repeatable) narrows the stream to those wards.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) Set<Integer> wardId) {
+        return broadcaster.subscribe(wardId);
+    }
+
+    // Doses waiting to be given, for a ward screen's initial snapshot
+    @GetMapping("/open")
+    public ResponseEntity<List<AdministrationReminderDTO>> getOpen(@RequestParam(required = false) Set<Integer> wardId) {
+        return ResponseEntity.ok(scheduler.getOpenReminders(wardId));
+    }
+
+    @PostMapping("/{dosageId}/given")
+    public ResponseEntity<AdministrationReminderDTO> markGiven(@PathVariable int dosageId,
+            @RequestParam(required = false) String by) {
+        AdministrationReminderDTO given = scheduler.markGiven(dosageId, by);
+        return given != null ? ResponseEntity.ok(given) : ResponseEntity.notFound().build();
+    }
+
+    // How a prescription text will be scheduled: ?prescription=2 tablets every 8 hours
+    @GetMapping("/compile")
+    public ResponseEntity<PrescriptionSchedule> compile(@RequestParam String prescription) {
+        return ResponseEntity.ok(scheduler.compile(prescription));
+    }
+}
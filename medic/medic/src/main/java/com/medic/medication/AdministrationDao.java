@@ -0,0 +1,48 @@
+package com.medic.medication;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.stereotype.Repository;
+
+// Reads for the administration scheduler
+@Repository
+public class AdministrationDao {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // id, patient_id, drug_name, amount, prescription, due_at of patient dosages due since the cutoff
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findScheduled(Timestamp dueSince) {
+        return entityManager.createNativeQuery(
+                        "SELECT id, patient_id, drug_name, amount, prescription, due_at FROM dosage " +
+                        "WHERE due_at >= :dueSince AND patient_id IS NOT NULL")
+                .setParameter("dueSince", dueSince)
+                .getResultList();
+    }
+
+    // patient id -> ward of the patient's current bed, for patients in a bed
+    public Map<Integer, Integer> findWards(Collection<Integer> patientIds) {
+        Map<Integer, Integer> wards = new HashMap<>();
+        if (patientIds.isEmpty()) {
+            return wards;
+        }
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT p.patient_id, b.ward_id FROM patient p JOIN bed b ON b.bed_id = p.bed_id " +
+                        "WHERE p.patient_id IN (:patientIds)")
+                .setParameter("patientIds", patientIds)
+                .getResultList();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            wards.put(((Number) columns[0]).intValue(), ((Number) columns[1]).intValue());
+        }
+        return wards;
+    }
+}
@@ -0,0 +1,58 @@
+package com.medic.medication;
+
+import java.sql.Timestamp;
+
+// A scheduled administration that needs ward staff. dose counts from 0 within the dosage's course.
+public class AdministrationReminderDTO {
+
+    public enum Type {
+        DUE,
+        OVERDUE,
+        // Not given before the next dose came due, or one grace period after going overdue
+        MISSED,
+        GIVEN,
+        // The dosage was edited or deleted while the dose was open
+        CANCELLED
+    }
+
+    private Type type;
+    private int dosageId;
+    private Integer patientId;
+    private Integer wardId;
+    private String drugName;
+    private String amount;
+    private int dose;
+    private Timestamp dueAt;
+    private Timestamp eventAt;
+    private String givenBy;
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public int getDosageId() { return dosageId; }
+    public void setDosageId(int dosageId) { this.dosageId = dosageId; }
+
+    public Integer getPatientId() { return patientId; }
+    public void setPatientId(Integer patientId) { this.patientId = patientId; }
+
+    public Integer getWardId() { return wardId; }
+    public void setWardId(Integer wardId) { this.wardId = wardId; }
+
+    public String getDrugName() { return drugName; }
+    public void setDrugName(String drugName) { this.drugName = drugName; }
+
+    public String getAmount() { return amount; }
+    public void setAmount(String amount) { this.amount = amount; }
+
+    public int getDose() { return dose; }
+    public void setDose(int dose) { this.dose = dose; }
+
+    public Timestamp getDueAt() { return dueAt; }
+    public void setDueAt(Timestamp dueAt) { this.dueAt = dueAt; }
+
+    public Timestamp getEventAt() { return eventAt; }
+    public void setEventAt(Timestamp eventAt) { this.eventAt = eventAt; }
+
+    public String getGivenBy() { return givenBy; }
+    public void setGivenBy(String givenBy) { this.givenBy = givenBy; }
+}
@@ -0,0 +1,396 @@
+package com.medic.medication;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Reminds ward staff of medication administrations. Each patient dosage's prescription is
+// compiled into a PrescriptionSchedule and only its next dose sits in a TimingWheel; when it
+// fires, the dose is announced DUE, an OVERDUE timer is set for it and the following dose is
+// put on the wheel. Edits and deletes replace or cancel a dosage's timers in O(1) after
+// commit. Doses marked given are only kept in memory: after a restart the schedule resumes
+// with the next dose due, and doses that came due while the application was down are not
+// announced.
+@Component
+public class AdministrationScheduler {
+
+    private final AdministrationDao administrationDao;
+    private final PrescriptionCompiler compiler;
+    private final AdministrationBroadcaster broadcaster;
+
+    @Value("${medic.administration.tick-ms:1000}")
+    private long tickMs;
+
+    // A dose not marked given this long after it was due is OVERDUE, and MISSED after twice this
+    @Value("${medic.administration.overdue-minutes:30}")
+    private long overdueMinutes;
+
+    // Courses with no stated length stop being reminded after this many days
+    @Value("${medic.administration.max-course-days:30}")
+    private long maxCourseDays;
+
+    // All guarded by this
+    private TimingWheel<Reminder> wheel;
+    private final Map<Integer, Plan> plans = new HashMap<>();
+
+    private ScheduledExecutorService ticker;
+
+    public AdministrationScheduler(AdministrationDao administrationDao, PrescriptionCompiler compiler,
+                                   AdministrationBroadcaster broadcaster) {
+        this.administrationDao = administrationDao;
+        this.compiler = compiler;
+        this.broadcaster = broadcaster;
+    }
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel<>(tickMs, System.currentTimeMillis());
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "administration-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.execute(this::load);
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    // Dosage created or edited: its timers are replaced once the change has committed, unless
+    // the administration times are unchanged
+    public void onDosageSaved(Dosage dosage) {
+        int dosageId = dosage.getId();
+        Integer patientId = dosage.getPatient() != null ? dosage.getPatient().getId() : null;
+        String drugName = dosage.getDrugName();
+        String amount = dosage.getAmount();
+        String prescription = dosage.getPrescription();
+        long startMillis = dosage.getDueAt() != null ? dosage.getDueAt().getTime() : System.currentTimeMillis();
+        afterCommit(() -> {
+            try {
+                plan(dosageId, patientId, drugName, amount, prescription, startMillis);
+            } catch (RuntimeException e) {
+                // The dosage is saved either way; it is just not reminded
+            }
+        });
+    }
+
+    public void onDosageDeleted(int dosageId) {
+        afterCommit(() -> {
+            List<AdministrationReminderDTO> events = new ArrayList<>();
+            synchronized (this) {
+                Plan plan = plans.remove(dosageId);
+                if (plan != null) {
+                    cancel(plan, events);
+                }
+            }
+            publish(events);
+        });
+    }
+
+    // Marks the dosage's open dose given; null when no dose is waiting
+    public AdministrationReminderDTO markGiven(int dosageId, String givenBy) {
+        AdministrationReminderDTO given;
+        synchronized (this) {
+            Plan plan = plans.get(dosageId);
+            if (plan == null || plan.openDose < 0) {
+                return null;
+            }
+            given = plan.event(AdministrationReminderDTO.Type.GIVEN, plan.openDose, System.currentTimeMillis());
+            given.setGivenBy(givenBy);
+            closeOpenDose(plan);
+            retireIfDone(plan);
+        }
+        List<AdministrationReminderDTO> events = new ArrayList<>();
+        events.add(given);
+        publish(events);
+        return given;
+    }
+
+    // Doses currently DUE or OVERDUE; wardIds empty or null means every ward
+    public List<AdministrationReminderDTO> getOpenReminders(Set<Integer> wardIds) {
+        List<AdministrationReminderDTO> open = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (Plan plan : plans.values()) {
+                if (plan.openDose >= 0) {
+                    open.add(plan.event(plan.openOverdue ? AdministrationReminderDTO.Type.OVERDUE
+                            : AdministrationReminderDTO.Type.DUE, plan.openDose, now));
+                }
+            }
+        }
+        resolveWards(open);
+        if (wardIds != null && !wardIds.isEmpty()) {
+            open.removeIf(reminder -> reminder.getWardId() == null || !wardIds.contains(reminder.getWardId()));
+        }
+        open.sort((a, b) -> a.getDueAt().compareTo(b.getDueAt()));
+        return open;
+    }
+
+    public synchronized int getScheduledCount() {
+        return wheel.size();
+    }
+
+    public PrescriptionSchedule compile(String prescription) {
+        return compiler.compile(prescription);
+    }
+
+    // Called before a dosage is saved, so a prescription the scheduler cannot take is refused
+    // up front instead of failing after commit; unrecognized text is fine, it is just not reminded
+    public void validate(String prescription) {
+        try {
+            compiler.compile(prescription);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Unreadable prescription: " + prescription);
+        }
+    }
+
+    private void plan(int dosageId, Integer patientId, String drugName, String amount, String prescription,
+                      long startMillis) {
+        PrescriptionSchedule schedule = compiler.compile(prescription);
+        List<AdministrationReminderDTO> events = new ArrayList<>();
+        synchronized (this) {
+            Plan existing = plans.get(dosageId);
+            if (existing != null && existing.schedule.equals(schedule) && existing.startMillis == startMillis
+                    && Objects.equals(existing.patientId, patientId)) {
+                existing.drugName = drugName;
+                existing.amount = amount;
+                return;
+            }
+            if (existing != null) {
+                plans.remove(dosageId);
+                cancel(existing, events);
+            }
+            install(dosageId, patientId, drugName, amount, schedule, startMillis, System.currentTimeMillis());
+        }
+        publish(events);
+    }
+
+    // Guarded by this
+    private void install(int dosageId, Integer patientId, String drugName, String amount,
+                         PrescriptionSchedule schedule, long startMillis, long now) {
+        if (patientId == null || !schedule.isTimed()) {
+            return;
+        }
+        Plan plan = new Plan(dosageId, patientId, drugName, amount, schedule, startMillis);
+        if (scheduleDose(plan, schedule.firstDoseFrom(startMillis, now, overdueMinutes * 60_000L))) {
+            plans.put(dosageId, plan);
+        }
+    }
+
+    private void tick() {
+        List<Reminder> fired = new ArrayList<>();
+        List<AdministrationReminderDTO> events = new ArrayList<>();
+        try {
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                wheel.advance(now, fired);
+                for (Reminder reminder : fired) {
+                    fire(reminder, now, events);
+                }
+            }
+            publish(events);
+        } catch (RuntimeException e) {
+            // Keep ticking; a failed ward lookup only loses the ward on this batch of reminders
+        }
+    }
+
+    // Guarded by this
+    private void fire(Reminder reminder, long now, List<AdministrationReminderDTO> events) {
+        Plan plan = reminder.plan;
+        switch (reminder.kind) {
+            case DUE:
+                plan.dueTimer = null;
+                if (plan.openDose >= 0) {
+                    events.add(plan.event(AdministrationReminderDTO.Type.MISSED, plan.openDose, now));
+                    closeOpenDose(plan);
+                }
+                plan.openDose = reminder.dose;
+                plan.openOverdue = false;
+                plan.openTimer = wheel.schedule(plan.doseAt(reminder.dose) + overdueMinutes * 60_000L,
+                        new Reminder(plan, reminder.dose, Reminder.Kind.OVERDUE));
+                events.add(plan.event(AdministrationReminderDTO.Type.DUE, reminder.dose, now));
+                scheduleDose(plan, reminder.dose + 1);
+                break;
+            case OVERDUE:
+                plan.openOverdue = true;
+                plan.openTimer = wheel.schedule(plan.doseAt(reminder.dose) + 2 * overdueMinutes * 60_000L,
+                        new Reminder(plan, reminder.dose, Reminder.Kind.MISSED));
+                events.add(plan.event(AdministrationReminderDTO.Type.OVERDUE, reminder.dose, now));
+                break;
+            default:
+                events.add(plan.event(AdministrationReminderDTO.Type.MISSED, reminder.dose, now));
+                plan.openTimer = null;
+                closeOpenDose(plan);
+                retireIfDone(plan);
+                break;
+        }
+    }
+
+    // Guarded by this; false when the course has no such dose
+    private boolean scheduleDose(Plan plan, int dose) {
+        boolean openEnded = plan.schedule.getDoseCount() == 0 && plan.schedule.getCourseMinutes() == 0;
+        if (!plan.schedule.hasDose(dose)
+                || (openEnded && plan.doseAt(dose) >= plan.startMillis + maxCourseDays * 24 * 60 * 60_000L)) {
+            return false;
+        }
+        plan.dueTimer = wheel.schedule(plan.doseAt(dose), new Reminder(plan, dose, Reminder.Kind.DUE));
+        return true;
+    }
+
+    // Guarded by this
+    private void closeOpenDose(Plan plan) {
+        wheel.cancel(plan.openTimer);
+        plan.openTimer = null;
+        plan.openDose = -1;
+        plan.openOverdue = false;
+    }
+
+    // Guarded by this; a plan with no dose open and none to come is finished
+    private void retireIfDone(Plan plan) {
+        if (plan.openDose < 0 && plan.dueTimer == null) {
+            plans.remove(plan.dosageId, plan);
+        }
+    }
+
+    // Guarded by this; the plan is already out of the map
+    private void cancel(Plan plan, List<AdministrationReminderDTO> events) {
+        wheel.cancel(plan.dueTimer);
+        wheel.cancel(plan.openTimer);
+        if (plan.openDose >= 0) {
+            events.add(plan.event(AdministrationReminderDTO.Type.CANCELLED, plan.openDose, System.currentTimeMillis()));
+        }
+    }
+
+    // Runs on the ticker thread before the first tick; holding the lock across the read means a
+    // dosage change committing meanwhile is applied after the load, never overwritten by it
+    private synchronized void load() {
+        long now = System.currentTimeMillis();
+        Timestamp dueSince = new Timestamp(now - maxCourseDays * 24 * 60 * 60_000L);
+        List<Object[]> rows;
+        try {
+            rows = administrationDao.findScheduled(dueSince);
+        } catch (RuntimeException e) {
+            // Database unavailable at startup: only dosages saved from now on are reminded
+            return;
+        }
+        for (Object[] row : rows) {
+            int dosageId = ((Number) row[0]).intValue();
+            if (plans.containsKey(dosageId)) {
+                continue;
+            }
+            try {
+                install(dosageId, ((Number) row[1]).intValue(), (String) row[2], (String) row[3],
+                        compiler.compile((String) row[4]), DispenseQueueDao.toTimestamp(row[5]).getTime(), now);
+            } catch (RuntimeException e) {
+                // One unreadable dosage is not reminded; the rest still are
+            }
+        }
+    }
+
+    private void publish(List<AdministrationReminderDTO> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            resolveWards(events);
+        } catch (RuntimeException e) {
+            // Sent without a ward; screens watching every ward still get them
+        }
+        events.forEach(broadcaster::publish);
+    }
+
+    private void resolveWards(List<AdministrationReminderDTO> reminders) {
+        Set<Integer> patientIds = new HashSet<>();
+        reminders.forEach(reminder -> patientIds.add(reminder.getPatientId()));
+        Map<Integer, Integer> wards = administrationDao.findWards(patientIds);
+        reminders.forEach(reminder -> reminder.setWardId(wards.get(reminder.getPatientId())));
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private static final class Plan {
+        private final int dosageId;
+        private final Integer patientId;
+        private final PrescriptionSchedule schedule;
+        private final long startMillis;
+        private String drugName;
+        private String amount;
+        // Next dose's DUE timer; null once the course has no more doses
+        private TimingWheel.Timer<Reminder> dueTimer;
+        // Dose announced but not yet given, -1 for none, and its OVERDUE or MISSED timer
+        private int openDose = -1;
+        private boolean openOverdue;
+        private TimingWheel.Timer<Reminder> openTimer;
+
+        private Plan(int dosageId, Integer patientId, String drugName, String amount,
+                     PrescriptionSchedule schedule, long startMillis) {
+            this.dosageId = dosageId;
+            this.patientId = patientId;
+            this.drugName = drugName;
+            this.amount = amount;
+            this.schedule = schedule;
+            this.startMillis = startMillis;
+        }
+
+        private long doseAt(int dose) {
+            return schedule.doseAt(startMillis, dose);
+        }
+
+        private AdministrationReminderDTO event(AdministrationReminderDTO.Type type, int dose, long now) {
+            AdministrationReminderDTO event = new AdministrationReminderDTO();
+            event.setType(type);
+            event.setDosageId(dosageId);
+            event.setPatientId(patientId);
+            event.setDrugName(drugName);
+            event.setAmount(amount);
+            event.setDose(dose);
+            event.setDueAt(new Timestamp(doseAt(dose)));
+            event.setEventAt(new Timestamp(now));
+            return event;
+        }
+    }
+
+    private static final class Reminder {
+        private enum Kind { DUE, OVERDUE, MISSED }
+
+        private final Plan plan;
+        private final int dose;
+        private final Kind kind;
+
+        private Reminder(Plan plan, int dose, Kind kind) {
+            this.plan = plan;
+            this.dose = dose;
+            this.kind = kind;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.medic.medication;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Medication billing. Every endpoint takes an optional ?from=&to= window (ISO date-time,
+// to exclusive) over the time each dosage was dispensed, or due if not dispensed yet.
+@RestController
+@RequestMapping("/api/billing/medication")
+public class BillingController {
+
+    private final MedicationBillingService billingService;
+
+    public BillingController(MedicationBillingService billingService) {
+        this.billingService = billingService;
+    }
+
+    @GetMapping("/patients/{id}")
+    public ResponseEntity<MedicationTotalDTO> getPatientTotal(@PathVariable int id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!validWindow(from, to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(billingService.getPatientTotal(id, toTimestamp(from), toTimestamp(to)));
+    }
+
+    @GetMapping("/wards")
+    public ResponseEntity<List<MedicationTotalDTO>> getWardTotals(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!validWindow(from, to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(billingService.getTotals(BillingGroup.WARD, toTimestamp(from), toTimestamp(to)));
+    }
+
+    // ?granularity=DAY|MONTH
+    @GetMapping("/periods")
+    public ResponseEntity<List<MedicationTotalDTO>> getPeriodTotals(
+            @RequestParam(defaultValue = "DAY") BillingGroup granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if ((granularity != BillingGroup.DAY && granularity != BillingGroup.MONTH) || !validWindow(from, to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(billingService.getTotals(granularity, toTimestamp(from), toTimestamp(to)));
+    }
+
+    // Batch run over every patient, for the finance export
+    @PostMapping("/runs")
+    public ResponseEntity<BillingRunDTO> run(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!validWindow(from, to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(billingService.run(toTimestamp(from), toTimestamp(to)));
+    }
+
+    private static boolean validWindow(LocalDateTime from, LocalDateTime to) {
+        return from == null || to == null || from.isBefore(to);
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+}
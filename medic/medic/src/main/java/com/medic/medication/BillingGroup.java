@@ -0,0 +1,10 @@
+package com.medic.medication;
+
+// How medication totals are broken down. WARD is the ward the patient was in when the dosage
+// was dispensed (or due), from the bed occupancy log; DAY and MONTH bucket by that same time.
+public enum BillingGroup {
+    PATIENT,
+    WARD,
+    DAY,
+    MONTH
+}
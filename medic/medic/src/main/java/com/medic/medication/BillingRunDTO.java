@@ -0,0 +1,45 @@
+package com.medic.medication;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+
+// Result of a hospital-wide medication billing run: per-patient totals plus the grand total
+public class BillingRunDTO {
+    private Timestamp from;
+    private Timestamp to;
+    private int patients;
+    private long lines;
+    private long unpricedLines;
+    private BigDecimal total = BigDecimal.ZERO;
+    private int partitions;
+    private long elapsedMillis;
+    private List<MedicationTotalDTO> totals;
+
+    public Timestamp getFrom() { return from; }
+    public void setFrom(Timestamp from) { this.from = from; }
+
+    public Timestamp getTo() { return to; }
+    public void setTo(Timestamp to) { this.to = to; }
+
+    public int getPatients() { return patients; }
+    public void setPatients(int patients) { this.patients = patients; }
+
+    public long getLines() { return lines; }
+    public void setLines(long lines) { this.lines = lines; }
+
+    public long getUnpricedLines() { return unpricedLines; }
+    public void setUnpricedLines(long unpricedLines) { this.unpricedLines = unpricedLines; }
+
+    public BigDecimal getTotal() { return total; }
+    public void setTotal(BigDecimal total) { this.total = total; }
+
+    public int getPartitions() { return partitions; }
+    public void setPartitions(int partitions) { this.partitions = partitions; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+
+    public List<MedicationTotalDTO> getTotals() { return totals; }
+    public void setTotals(List<MedicationTotalDTO> totals) { this.totals = totals; }
+}
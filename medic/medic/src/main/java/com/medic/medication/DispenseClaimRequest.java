@@ -0,0 +1,14 @@
+package com.medic.medication;
+
+// Body of the work queue endpoints: the pharmacy worker and, on completion, the units dispensed
+// (taken from the dispenser's stock when given)
+public class DispenseClaimRequest {
+    private String worker;
+    private Integer quantity;
+
+    public String getWorker() { return worker; }
+    public void setWorker(String worker) { this.worker = worker; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
@@ -0,0 +1,8 @@
+package com.medic.medication;
+
+// Order in which pending dosages are handed to pharmacy workers; earlier constants go first
+public enum DispensePriority {
+    STAT,
+    URGENT,
+    ROUTINE
+}
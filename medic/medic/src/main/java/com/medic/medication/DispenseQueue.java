@@ -0,0 +1,290 @@
+package com.medic.medication;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Pending dosages per dispenser, ordered STAT before URGENT before ROUTINE, then by due time.
+// Each dispenser's queue is a ConcurrentSkipListSet: pollFirst() hands the head to exactly one
+// caller in O(log n) without a lock, and the claim is then made durable with a conditional
+// update, which also settles races with other application nodes. A dispenser's queue is
+// loaded from the database on first use and kept current by DosageService after each commit;
+// dosages saved or claimed through other nodes only show up on the periodic refresh from the
+// database. Claims not completed within the claim timeout go back to the queue.
+@Component
+public class DispenseQueue {
+
+    private static final Comparator<Item> ORDER = Comparator
+            .comparingInt((Item item) -> item.priority.ordinal())
+            .thenComparingLong(item -> item.dueMillis)
+            .thenComparingInt(item -> item.dosageId);
+
+    private final DispenseQueueDao queueDao;
+    private final DispenserStockService stockService;
+
+    @Value("${medic.pharmacy.queue.claim-timeout-seconds:600}")
+    private long claimTimeoutSeconds;
+
+    @Value("${medic.pharmacy.queue.refresh-seconds:30}")
+    private long refreshSeconds;
+
+    private final ConcurrentHashMap<Integer, ConcurrentSkipListSet<Item>> queues = new ConcurrentHashMap<>();
+    // Queued item per dosage id, so an edited or deleted dosage can be taken out of its queue
+    private final ConcurrentHashMap<Integer, Item> itemsByDosage = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    public DispenseQueue(DispenseQueueDao queueDao, DispenserStockService stockService) {
+        this.queueDao = queueDao;
+        this.stockService = stockService;
+    }
+
+    @PostConstruct
+    public void init() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dispense-claim-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::releaseStaleClaims, 60, 60, TimeUnit.SECONDS);
+        sweeper.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    // Next dosage for the worker, or null when the dispenser has nothing pending
+    public DispenseWorkItemDTO claim(int dispenserId, String worker) {
+        ConcurrentSkipListSet<Item> queue = queue(dispenserId);
+        Item item;
+        while ((item = queue.pollFirst()) != null) {
+            itemsByDosage.remove(item.dosageId, item);
+            boolean claimed;
+            try {
+                claimed = queueDao.claim(item.dosageId, worker);
+            } catch (RuntimeException e) {
+                // Nothing was claimed: the dosage keeps its place for the next worker
+                requeue(item);
+                throw e;
+            }
+            if (claimed) {
+                return queueDao.findItem(item.dosageId);
+            }
+            // Claimed on another node, edited or dispensed meanwhile: the database says no, try the next
+        }
+        return null;
+    }
+
+    // Marks the worker's claimed dosage dispensed; quantity, when given, is taken from stock first
+    public void complete(int dispenserId, int dosageId, String worker, Integer quantity) {
+        DispenseWorkItemDTO item = queueDao.findItem(dosageId);
+        if (item == null || item.getDispenserId() != dispenserId) {
+            throw new RuntimeException("Dosage not found with id: " + dosageId);
+        }
+        if (item.getStatus() != DosageStatus.CLAIMED || !worker.equals(item.getClaimedBy())) {
+            throw new RuntimeException("Dosage " + dosageId + " is not claimed by " + worker);
+        }
+        if (quantity != null) {
+            stockService.dispense(dispenserId, item.getDrugName(), quantity);
+        }
+        if (!queueDao.complete(dosageId, worker)) {
+            if (quantity != null) {
+                stockService.adjust(dispenserId, item.getDrugName(), quantity);
+            }
+            throw new RuntimeException("Dosage " + dosageId + " is not claimed by " + worker);
+        }
+    }
+
+    // The worker hands a claimed dosage back, e.g. out of stock at this terminal
+    public void release(int dispenserId, int dosageId, String worker) {
+        DispenseWorkItemDTO item = queueDao.findItem(dosageId);
+        if (item == null || item.getDispenserId() != dispenserId || !queueDao.release(dosageId, worker, null)) {
+            throw new RuntimeException("Dosage " + dosageId + " is not claimed by " + worker);
+        }
+        enqueue(new Item(dosageId, dispenserId, item.getPriority(), item.getDueAt()));
+    }
+
+    // Head of the queue without claiming, for the pharmacy overview
+    public List<DispenseWorkItemDTO> peek(int dispenserId, int limit) {
+        List<Integer> dosageIds = new ArrayList<>();
+        Iterator<Item> iterator = queue(dispenserId).iterator();
+        while (iterator.hasNext() && dosageIds.size() < limit) {
+            dosageIds.add(iterator.next().dosageId);
+        }
+        List<DispenseWorkItemDTO> items = queueDao.findItems(dosageIds);
+        items.sort(Comparator.comparingInt(item -> dosageIds.indexOf(item.getDosageId())));
+        return items;
+    }
+
+    public int size(int dispenserId) {
+        return queue(dispenserId).size();
+    }
+
+    // Dosage created or edited: (re)queued if still pending, in case priority, due time or dispenser changed
+    public void onDosageSaved(Dosage dosage) {
+        int dosageId = dosage.getId();
+        Integer dispenserId = dosage.getDispenser() != null ? dosage.getDispenser().getId() : null;
+        boolean pending = dosage.getStatus() == DosageStatus.PENDING;
+        afterCommit(() -> {
+            remove(dosageId);
+            if (pending && dispenserId != null) {
+                enqueue(new Item(dosageId, dispenserId, dosage.getPriority(), dosage.getDueAt()));
+            }
+        });
+    }
+
+    public void onDosageDeleted(int dosageId) {
+        afterCommit(() -> remove(dosageId));
+    }
+
+    private void releaseStaleClaims() {
+        try {
+            Timestamp cutoff = new Timestamp(System.currentTimeMillis() - claimTimeoutSeconds * 1000);
+            for (Object[] row : queueDao.findStaleClaims(cutoff)) {
+                int dosageId = ((Number) row[0]).intValue();
+                if (queueDao.release(dosageId, null, cutoff)) {
+                    enqueue(new Item(dosageId, ((Number) row[1]).intValue(),
+                            DispensePriority.valueOf((String) row[2]), DispenseQueueDao.toTimestamp(row[3])));
+                }
+            }
+        } catch (RuntimeException e) {
+            // Database unavailable; the next sweep picks the claims up
+        }
+    }
+
+    // Brings every loaded queue in line with the database: adds or re-sorts pending dosages
+    // saved through other nodes and drops queued ones that are no longer pending there
+    private void refresh() {
+        for (Integer dispenserId : queues.keySet()) {
+            try {
+                refresh(dispenserId);
+            } catch (RuntimeException e) {
+                // Database unavailable; the next refresh catches up
+            }
+        }
+    }
+
+    private void refresh(int dispenserId) {
+        ConcurrentSkipListSet<Item> queue = queues.get(dispenserId);
+        // Queued before the read, so the read decides whether they are still pending
+        List<Item> queuedBefore = new ArrayList<>(queue);
+        Set<Integer> pending = new HashSet<>();
+        for (Object[] row : queueDao.findPending(dispenserId)) {
+            int dosageId = ((Number) row[0]).intValue();
+            pending.add(dosageId);
+            sync(new Item(dosageId, dispenserId,
+                    DispensePriority.valueOf((String) row[1]), DispenseQueueDao.toTimestamp(row[2])));
+        }
+        for (Item item : queuedBefore) {
+            if (!pending.contains(item.dosageId)) {
+                discard(item);
+            }
+        }
+    }
+
+    // Puts an item back unless its dosage was queued again, edited or deleted in the meantime
+    private synchronized void requeue(Item item) {
+        ConcurrentSkipListSet<Item> queue = queues.get(item.dispenserId);
+        if (queue != null && itemsByDosage.putIfAbsent(item.dosageId, item) == null) {
+            queue.add(item);
+        }
+    }
+
+    private synchronized void sync(Item item) {
+        Item queued = itemsByDosage.get(item.dosageId);
+        if (queued == null || queued.dispenserId != item.dispenserId || ORDER.compare(queued, item) != 0) {
+            remove(item.dosageId);
+            enqueue(item);
+        }
+    }
+
+    // Takes out this very item, not a newer one for the same dosage
+    private synchronized void discard(Item item) {
+        if (itemsByDosage.remove(item.dosageId, item)) {
+            queues.get(item.dispenserId).remove(item);
+        }
+    }
+
+    // Changes to a dispenser whose queue is not loaded yet are left to the load; the lock keeps
+    // a change from slipping in between the load's read and the queue being installed
+    private synchronized void enqueue(Item item) {
+        ConcurrentSkipListSet<Item> queue = queues.get(item.dispenserId);
+        if (queue != null) {
+            itemsByDosage.put(item.dosageId, item);
+            queue.add(item);
+        }
+    }
+
+    private synchronized void remove(int dosageId) {
+        Item item = itemsByDosage.remove(dosageId);
+        if (item != null) {
+            queues.get(item.dispenserId).remove(item);
+        }
+    }
+
+    private ConcurrentSkipListSet<Item> queue(int dispenserId) {
+        ConcurrentSkipListSet<Item> queue = queues.get(dispenserId);
+        return queue != null ? queue : load(dispenserId);
+    }
+
+    private synchronized ConcurrentSkipListSet<Item> load(int dispenserId) {
+        ConcurrentSkipListSet<Item> queue = queues.get(dispenserId);
+        if (queue != null) {
+            return queue;
+        }
+        queue = new ConcurrentSkipListSet<>(ORDER);
+        for (Object[] row : queueDao.findPending(dispenserId)) {
+            Item item = new Item(((Number) row[0]).intValue(), dispenserId,
+                    DispensePriority.valueOf((String) row[1]), DispenseQueueDao.toTimestamp(row[2]));
+            itemsByDosage.put(item.dosageId, item);
+            queue.add(item);
+        }
+        queues.put(dispenserId, queue);
+        return queue;
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private static final class Item {
+        private final int dosageId;
+        private final int dispenserId;
+        private final DispensePriority priority;
+        private final long dueMillis;
+
+        private Item(int dosageId, int dispenserId, DispensePriority priority, Timestamp dueAt) {
+            this.dosageId = dosageId;
+            this.dispenserId = dispenserId;
+            this.priority = priority != null ? priority : DispensePriority.ROUTINE;
+            this.dueMillis = dueAt != null ? dueAt.getTime() : 0;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.medic.medication;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+// Status changes of queued dosages. Each is a conditional update on the dosage row, so whatever
+// the in-memory queue does, a dosage moves PENDING -> CLAIMED -> DISPENSED for one worker only.
+@Repository
+public class DispenseQueueDao {
+
+    private static final String ITEM_SQL =
+            "SELECT id, dispenser_id, patient_id, drug_name, amount, priority, due_at, status, claimed_by, claimed_at " +
+            "FROM dosage ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // dosage id, priority, due_at of every pending dosage of the dispenser
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findPending(int dispenserId) {
+        return entityManager.createNativeQuery(
+                        "SELECT id, priority, due_at FROM dosage WHERE dispenser_id = :dispenserId AND status = 'PENDING'")
+                .setParameter("dispenserId", dispenserId)
+                .getResultList();
+    }
+
+    // dosage id, dispenser id, priority, due_at of claims taken before the cutoff
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findStaleClaims(Timestamp claimedBefore) {
+        return entityManager.createNativeQuery(
+                        "SELECT id, dispenser_id, priority, due_at FROM dosage " +
+                        "WHERE status = 'CLAIMED' AND claimed_at < :claimedBefore")
+                .setParameter("claimedBefore", claimedBefore)
+                .getResultList();
+    }
+
+    @Transactional
+    public boolean claim(int dosageId, String worker) {
+        return update("UPDATE dosage SET status = 'CLAIMED', claimed_by = :worker, claimed_at = :now " +
+                      "WHERE id = :dosageId AND status = 'PENDING'")
+                .setParameter("worker", worker)
+                .setParameter("now", new Timestamp(System.currentTimeMillis()))
+                .setParameter("dosageId", dosageId)
+                .executeUpdate() > 0;
+    }
+
+    @Transactional
+    public boolean complete(int dosageId, String worker) {
+        return update("UPDATE dosage SET status = 'DISPENSED', dispensed_at = :now " +
+                      "WHERE id = :dosageId AND status = 'CLAIMED' AND claimed_by = :worker")
+                .setParameter("now", new Timestamp(System.currentTimeMillis()))
+                .setParameter("dosageId", dosageId)
+                .setParameter("worker", worker)
+                .executeUpdate() > 0;
+    }
+
+    // Back to PENDING: by the worker holding the claim, or (worker null) when the claim went stale
+    @Transactional
+    public boolean release(int dosageId, String worker, Timestamp claimedBefore) {
+        String sql = "UPDATE dosage SET status = 'PENDING', claimed_by = NULL, claimed_at = NULL " +
+                     "WHERE id = :dosageId AND status = 'CLAIMED' " +
+                     (worker != null ? "AND claimed_by = :worker" : "AND claimed_at < :claimedBefore");
+        NativeQuery<?> query = update(sql).setParameter("dosageId", dosageId);
+        if (worker != null) {
+            query.setParameter("worker", worker);
+        } else {
+            query.setParameter("claimedBefore", claimedBefore);
+        }
+        return query.executeUpdate() > 0;
+    }
+
+    public DispenseWorkItemDTO findItem(int dosageId) {
+        List<DispenseWorkItemDTO> items = findItems(List.of(dosageId));
+        return items.isEmpty() ? null : items.get(0);
+    }
+
+    public List<DispenseWorkItemDTO> findItems(Collection<Integer> dosageIds) {
+        List<DispenseWorkItemDTO> items = new ArrayList<>();
+        if (dosageIds.isEmpty()) {
+            return items;
+        }
+        List<?> rows = entityManager.createNativeQuery(ITEM_SQL + "WHERE id IN (:ids)")
+                .setParameter("ids", dosageIds)
+                .getResultList();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            DispenseWorkItemDTO item = new DispenseWorkItemDTO();
+            item.setDosageId(((Number) columns[0]).intValue());
+            item.setDispenserId(((Number) columns[1]).intValue());
+            item.setPatientId(columns[2] != null ? ((Number) columns[2]).intValue() : null);
+            item.setDrugName((String) columns[3]);
+            item.setAmount((String) columns[4]);
+            item.setPriority(DispensePriority.valueOf((String) columns[5]));
+            item.setDueAt(toTimestamp(columns[6]));
+            item.setStatus(DosageStatus.valueOf((String) columns[7]));
+            item.setClaimedBy((String) columns[8]);
+            item.setClaimedAt(toTimestamp(columns[9]));
+            items.add(item);
+        }
+        return items;
+    }
+
+    static Timestamp toTimestamp(Object value) {
+        if (value == null || value instanceof Timestamp) {
+            return (Timestamp) value;
+        }
+        return Timestamp.valueOf((LocalDateTime) value);
+    }
+
+    // Only the dosage query space is invalidated, not the whole second-level cache
+    private NativeQuery<?> update(String sql) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Dosage.class);
+    }
+}
@@ -0,0 +1,47 @@
+package com.medic.medication;
+
+import java.sql.Timestamp;
+
+// A dosage as seen in a dispenser's work queue
+public class DispenseWorkItemDTO {
+    private int dosageId;
+    private int dispenserId;
+    private Integer patientId;
+    private String drugName;
+    private String amount;
+    private DispensePriority priority;
+    private Timestamp dueAt;
+    private DosageStatus status;
+    private String claimedBy;
+    private Timestamp claimedAt;
+
+    public int getDosageId() { return dosageId; }
+    public void setDosageId(int dosageId) { this.dosageId = dosageId; }
+
+    public int getDispenserId() { return dispenserId; }
+    public void setDispenserId(int dispenserId) { this.dispenserId = dispenserId; }
+
+    public Integer getPatientId() { return patientId; }
+    public void setPatientId(Integer patientId) { this.patientId = patientId; }
+
+    public String getDrugName() { return drugName; }
+    public void setDrugName(String drugName) { this.drugName = drugName; }
+
+    public String getAmount() { return amount; }
+    public void setAmount(String amount) { this.amount = amount; }
+
+    public DispensePriority getPriority() { return priority; }
+    public void setPriority(DispensePriority priority) { this.priority = priority; }
+
+    public Timestamp getDueAt() { return dueAt; }
+    public void setDueAt(Timestamp dueAt) { this.dueAt = dueAt; }
+
+    public DosageStatus getStatus() { return status; }
+    public void setStatus(DosageStatus status) { this.status = status; }
+
+    public String getClaimedBy() { return claimedBy; }
+    public void setClaimedBy(String claimedBy) { this.claimedBy = claimedBy; }
+
+    public Timestamp getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(Timestamp claimedAt) { this.claimedAt = claimedAt; }
+}
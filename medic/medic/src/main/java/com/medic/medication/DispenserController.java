@@ -1,18 +1,26 @@
 package com.medic.medication;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/dispensers")
 public class DispenserController {
 
     private final DispenserService service;
+    private final DispenserStockService stockService;
+    private final DispenseQueue dispenseQueue;
 
-    public DispenserController(DispenserService service) {
+    public DispenserController(DispenserService service, DispenserStockService stockService,
+                               DispenseQueue dispenseQueue) {
         this.service = service;
+        this.stockService = stockService;
+        this.dispenseQueue = dispenseQueue;
     }
 
     @PostMapping
@@ -34,6 +42,21 @@ public class DispenserController {
         return ResponseEntity.ok("Dispenser deleted successfully");
     }
 
+    // Pharmacy overview: dosage counts and values per dispenser from one grouped query
+    @GetMapping("/workload")
+    public ResponseEntity<List<DispenserWorkloadDTO>> getWorkload() {
+        return ResponseEntity.ok(service.getWorkload());
+    }
+
+    // Paginated drill-down into one dispenser's dosages: ?after=<last dosage id>&limit=&status=
+    @GetMapping("/{id}/dosages")
+    public ResponseEntity<DosagePageDTO> getDosages(@PathVariable int id,
+            @RequestParam(defaultValue = "0") int after,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) DosageStatus status) {
+        return ResponseEntity.ok(service.getDosages(id, after, limit, status));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<DispenserDTO> getById(@PathVariable int id) {
         DispenserDTO dispenser = service.getById(id);
@@ -45,4 +68,158 @@ public class DispenserController {
         List<DispenserDTO > dispensers = service.getAll();
         return ResponseEntity.ok(dispensers);
     }
+
+    // Health of the in-memory stock counters, the journal folds and the refreshes from the database
+    @GetMapping("/stock/metrics")
+    public ResponseEntity<Map<String, Long>> getStockMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("flushes", stockService.getFlushes());
+        metrics.put("failedFlushes", stockService.getFailedFlushes());
+        metrics.put("openReservations", (long) stockService.getOpenReservations());
+        metrics.put("failedMovements", stockService.getFailedMovements());
+        metrics.put("refreshes", stockService.getRefreshes());
+        return ResponseEntity.ok(metrics);
+    }
+
+    // Live stock per drug, from the in-memory counters
+    @GetMapping("/{id}/stock")
+    public ResponseEntity<List<StockLevelDTO>> getStock(@PathVariable int id) {
+        return ResponseEntity.ok(stockService.getStock(id));
+    }
+
+    @PostMapping("/{id}/stock/dispense")
+    public ResponseEntity<?> dispense(@PathVariable int id, @RequestBody StockRequest request) {
+        if (request.getQuantity() == null || request.getQuantity() <= 0) {
+            return ResponseEntity.badRequest().body("quantity must be positive");
+        }
+        ResponseEntity<?> invalid = checkStockRequest(id, request);
+        if (invalid != null) {
+            return invalid;
+        }
+        try {
+            stockService.dispense(id, request.getDrugName(), request.getQuantity());
+            return ResponseEntity.ok(stockService.getStock(id, request.getDrugName()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // Deliveries (positive quantity) and write-offs (negative)
+    @PostMapping("/{id}/stock/adjustments")
+    public ResponseEntity<?> adjustStock(@PathVariable int id, @RequestBody StockRequest request) {
+        if (request.getQuantity() == null || request.getQuantity() == 0) {
+            return ResponseEntity.badRequest().body("quantity must not be zero");
+        }
+        ResponseEntity<?> invalid = checkStockRequest(id, request);
+        if (invalid != null) {
+            return invalid;
+        }
+        try {
+            stockService.adjust(id, request.getDrugName(), request.getQuantity());
+            return ResponseEntity.ok(stockService.getStock(id, request.getDrugName()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/stock/reservations")
+    public ResponseEntity<?> reserve(@PathVariable int id, @RequestBody StockRequest request) {
+        if (request.getQuantity() == null || request.getQuantity() <= 0) {
+            return ResponseEntity.badRequest().body("quantity must be positive");
+        }
+        ResponseEntity<?> invalid = checkStockRequest(id, request);
+        if (invalid != null) {
+            return invalid;
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(stockService.reserve(id, request.getDrugName(), request.getQuantity()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/stock/reservations/{reservationId}/dispense")
+    public ResponseEntity<Void> dispenseReservation(@PathVariable int id, @PathVariable long reservationId) {
+        try {
+            stockService.completeReservation(id, reservationId, true);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @DeleteMapping("/{id}/stock/reservations/{reservationId}")
+    public ResponseEntity<Void> cancelReservation(@PathVariable int id, @PathVariable long reservationId) {
+        try {
+            stockService.completeReservation(id, reservationId, false);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Null when the request names a drug that can be stocked at an existing dispenser
+    private ResponseEntity<?> checkStockRequest(int dispenserId, StockRequest request) {
+        String drug = DrugNames.normalize(request.getDrugName());
+        if (drug == null) {
+            return ResponseEntity.badRequest().body("drugName is required");
+        }
+        if (drug.length() > DispenserStockService.MAX_DRUG_NAME_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body("drugName must be at most " + DispenserStockService.MAX_DRUG_NAME_LENGTH + " characters");
+        }
+        if (!service.exists(dispenserId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return null;
+    }
+
+    // Pending dosages in the order they will be handed out (STAT first, then by due time)
+    @GetMapping("/{id}/queue")
+    public ResponseEntity<List<DispenseWorkItemDTO>> getQueue(@PathVariable int id,
+                                                              @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(dispenseQueue.peek(id, Math.max(1, Math.min(limit, 500))));
+    }
+
+    // Hands the next pending dosage to the worker; 204 when there is nothing to do
+    @PostMapping("/{id}/queue/claim")
+    public ResponseEntity<?> claimNext(@PathVariable int id, @RequestBody DispenseClaimRequest request) {
+        if (request.getWorker() == null || request.getWorker().isBlank()) {
+            return ResponseEntity.badRequest().body("worker is required");
+        }
+        DispenseWorkItemDTO item = dispenseQueue.claim(id, request.getWorker());
+        if (item != null) {
+            return ResponseEntity.ok(item);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/{id}/queue/{dosageId}/complete")
+    public ResponseEntity<?> completeDispense(@PathVariable int id, @PathVariable int dosageId,
+                                              @RequestBody DispenseClaimRequest request) {
+        if (request.getWorker() == null || (request.getQuantity() != null && request.getQuantity() <= 0)) {
+            return ResponseEntity.badRequest().body("worker is required and quantity must be positive");
+        }
+        try {
+            dispenseQueue.complete(id, dosageId, request.getWorker(), request.getQuantity());
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/queue/{dosageId}/release")
+    public ResponseEntity<?> releaseDispense(@PathVariable int id, @PathVariable int dosageId,
+                                             @RequestBody DispenseClaimRequest request) {
+        if (request.getWorker() == null) {
+            return ResponseEntity.badRequest().body("worker is required");
+        }
+        try {
+            dispenseQueue.release(id, dosageId, request.getWorker());
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
 }
@@ -3,6 +3,7 @@ package com.medic.medication;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.NoResultException;
+import javax.persistence.Query;
 import javax.transaction.Transactional;
 import org.springframework.stereotype.Repository;
 
@@ -32,6 +33,11 @@ public class DispenserDao {
         }
     }
 
+    // Served from the second-level cache; no dosages are loaded
+    public boolean exists(int id) {
+        return em.find(Dispenser.class, id) != null;
+    }
+
     public Dispenser getById(int id) {
         try {
             return em.createQuery(
@@ -55,4 +61,36 @@ public class DispenserDao {
                 Dispenser.class)
                 .getResultList();
     }
-}
\ No newline at end of file
+
+    // dispenser id, work_name, location, dosage status, medicine_price_id, dosage count; one row
+    // with a null status and a zero count for a dispenser without dosages. Covered by the
+    // (dispenser_id, status, medicine_price_id) index, so no dosage row is read.
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getWorkloadCounts() {
+        return em.createNativeQuery(
+                "SELECT s.id, s.work_name, s.location, d.status, d.medicine_price_id, COUNT(d.id) " +
+                "FROM dispenser s LEFT JOIN dosage d ON d.dispenser_id = s.id " +
+                "GROUP BY s.id, s.work_name, s.location, d.status, d.medicine_price_id " +
+                "ORDER BY s.id")
+                .getResultList();
+    }
+
+    // Keyset page of a dispenser's dosages as flat columns: id, drug_name, amount, prescription,
+    // caution, note, medicine_price_id, priority, due_at, status. Seeks on the dispenser
+    // (and status) index, so a page costs the same however many dosages came before it.
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getDosagePage(int dispenserId, int afterId, int limit, DosageStatus status) {
+        Query query = em.createNativeQuery(
+                "SELECT id, drug_name, amount, prescription, caution, note, medicine_price_id, priority, due_at, status " +
+                "FROM dosage WHERE dispenser_id = :dispenserId AND id > :afterId " +
+                (status != null ? "AND status = :status " : "") +
+                "ORDER BY id LIMIT :limit")
+                .setParameter("dispenserId", dispenserId)
+                .setParameter("afterId", afterId)
+                .setParameter("limit", limit);
+        if (status != null) {
+            query.setParameter("status", status.name());
+        }
+        return query.getResultList();
+    }
+}
@@ -3,17 +3,25 @@ package com.medic.medication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class DispenserService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final DispenserDao dao;
+    private final MedicinePriceCatalog priceCatalog;
 
-    public DispenserService(DispenserDao dao) {
+    public DispenserService(DispenserDao dao, MedicinePriceCatalog priceCatalog) {
         this.dao = dao;
+        this.priceCatalog = priceCatalog;
     }
 
     @Transactional
@@ -36,6 +44,10 @@ public class DispenserService {
         return convertToDTO(dispenser);
     }
 
+    public boolean exists(int id) {
+        return dao.exists(id);
+    }
+
     public List<DispenserDTO> getAll() {
         List<Dispenser> dispensers = dao.getAll();
         return dispensers.stream()
@@ -43,6 +55,71 @@ public class DispenserService {
                 .collect(Collectors.toList());
     }
 
+    // Counts and values for every dispenser from one grouped query, priced against the catalog
+    public List<DispenserWorkloadDTO> getWorkload() {
+        MedicinePriceCatalog.Snapshot prices = priceCatalog.snapshot();
+        Map<Integer, DispenserWorkloadDTO> workloads = new LinkedHashMap<>();
+        for (Object[] row : dao.getWorkloadCounts()) {
+            int dispenserId = ((Number) row[0]).intValue();
+            DispenserWorkloadDTO workload = workloads.computeIfAbsent(dispenserId,
+                    id -> new DispenserWorkloadDTO(id, (String) row[1], (String) row[2]));
+            long count = ((Number) row[5]).longValue();
+            if (count == 0) {
+                continue;
+            }
+            DosageStatus status = DosageStatus.valueOf((String) row[3]);
+            BigDecimal price = row[4] != null ? prices.price(((Number) row[4]).intValue()) : null;
+            BigDecimal value = price != null ? price.multiply(BigDecimal.valueOf(count)) : BigDecimal.ZERO;
+
+            workload.setDosages(workload.getDosages() + count);
+            if (price == null) {
+                workload.setUnpriced(workload.getUnpriced() + count);
+            }
+            switch (status) {
+                case PENDING:
+                    workload.setPending(workload.getPending() + count);
+                    workload.setOpenValue(workload.getOpenValue().add(value));
+                    break;
+                case CLAIMED:
+                    workload.setClaimed(workload.getClaimed() + count);
+                    workload.setOpenValue(workload.getOpenValue().add(value));
+                    break;
+                default:
+                    workload.setDispensed(workload.getDispensed() + count);
+                    workload.setDispensedValue(workload.getDispensedValue().add(value));
+                    break;
+            }
+            workload.setTotalValue(workload.getTotalValue().add(value));
+        }
+        return new ArrayList<>(workloads.values());
+    }
+
+    // Keyset page of a dispenser's dosages in id order, optionally of one status
+    public DosagePageDTO getDosages(int dispenserId, int afterId, int limit, DosageStatus status) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        MedicinePriceCatalog.Snapshot prices = priceCatalog.snapshot();
+        List<DosageDTO> dosages = new ArrayList<>();
+        for (Object[] row : dao.getDosagePage(dispenserId, afterId, pageSize, status)) {
+            DosageDTO dosage = new DosageDTO();
+            dosage.setId(((Number) row[0]).intValue());
+            dosage.setDrugName((String) row[1]);
+            dosage.setAmount((String) row[2]);
+            dosage.setPrescription((String) row[3]);
+            dosage.setCaution((String) row[4]);
+            dosage.setNote((String) row[5]);
+            if (row[6] != null) {
+                MedicinePriceCatalog.Price price = prices.find(((Number) row[6]).intValue());
+                dosage.setMedicinePrice(price != null ? convertMedicinePriceToDTO(price.toEntity()) : null);
+            }
+            dosage.setPriority(DispensePriority.valueOf((String) row[7]));
+            dosage.setDueAt(DispenseQueueDao.toTimestamp(row[8]));
+            dosage.setStatus(DosageStatus.valueOf((String) row[9]));
+            dosages.add(dosage);
+        }
+        Integer nextAfter = dosages.size() < pageSize ? null : dosages.get(dosages.size() - 1).getId();
+        return new DosagePageDTO(dosages, nextAfter);
+    }
+
     private DispenserDTO convertToDTO(Dispenser dispenser) {
         if (dispenser == null) {
             return null;
@@ -78,6 +155,9 @@ public class DispenserService {
         dosageDTO.setPrescription(dosage.getPrescription());
         dosageDTO.setCaution(dosage.getCaution());
         dosageDTO.setNote(dosage.getNote());
+        dosageDTO.setPriority(dosage.getPriority());
+        dosageDTO.setDueAt(dosage.getDueAt());
+        dosageDTO.setStatus(dosage.getStatus());
 
         // Convert medicine price to DTO
         if (dosage.getMedicinePrice() != null) {
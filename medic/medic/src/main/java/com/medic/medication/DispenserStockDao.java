@@ -0,0 +1,103 @@
+package com.medic.medication;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class DispenserStockDao {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO dispenser_stock (dispenser_id, drug_name, on_hand, updated_at) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE on_hand = on_hand + VALUES(on_hand), updated_at = VALUES(updated_at)";
+
+    // One statement, so one consistent snapshot: a fold commits its upserts and deletes together
+    // and is seen either entirely or not at all, which leaves the sum unchanged
+    private static final String ON_HAND_SQL =
+            "SELECT dispenser_id, drug_name, SUM(quantity) FROM (" +
+            "SELECT dispenser_id, drug_name, on_hand AS quantity FROM dispenser_stock " +
+            "UNION ALL " +
+            "SELECT dispenser_id, drug_name, delta FROM stock_movement) stock " +
+            "GROUP BY dispenser_id, drug_name";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // dispenser_id, drug_name, on_hand for every stocked drug, movements not yet folded included
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findOnHand() {
+        return em.createNativeQuery(ON_HAND_SQL).getResultList();
+    }
+
+    // Journals one stock change; it counts as on hand from the moment this commits
+    @Transactional
+    public void recordMovement(String movementId, int dispenserId, String drugName, long delta) {
+        em.createNativeQuery("INSERT INTO stock_movement (movement_id, dispenser_id, drug_name, delta, created_at) " +
+                             "VALUES (:movementId, :dispenserId, :drugName, :delta, :createdAt)")
+                .setParameter("movementId", movementId)
+                .setParameter("dispenserId", dispenserId)
+                .setParameter("drugName", drugName)
+                .setParameter("delta", delta)
+                .setParameter("createdAt", new Timestamp(System.currentTimeMillis()))
+                .executeUpdate();
+    }
+
+    // Whether a movement committed, for when recordMovement failed without saying so
+    public boolean isMovementRecorded(String movementId) {
+        return !em.createNativeQuery("SELECT 1 FROM stock_movement WHERE movement_id = :movementId")
+                .setParameter("movementId", movementId)
+                .getResultList()
+                .isEmpty();
+    }
+
+    // Adds up to limit journaled movements into dispenser_stock and deletes them, in one
+    // transaction. Rows another node is folding, or still being inserted, are skipped rather
+    // than waited for. Returns the number of movements folded.
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public int foldMovements(int limit) {
+        List<Object[]> movements = em.createNativeQuery(
+                        "SELECT movement_id, dispenser_id, drug_name, delta FROM stock_movement " +
+                        "LIMIT :limit FOR UPDATE SKIP LOCKED")
+                .setParameter("limit", limit)
+                .getResultList();
+        if (movements.isEmpty()) {
+            return 0;
+        }
+        List<String> movementIds = new ArrayList<>();
+        Map<List<Object>, Long> deltas = new LinkedHashMap<>();
+        for (Object[] movement : movements) {
+            movementIds.add((String) movement[0]);
+            deltas.merge(List.of(((Number) movement[1]).intValue(), movement[2]),
+                    ((Number) movement[3]).longValue(), Long::sum);
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+                for (Map.Entry<List<Object>, Long> delta : deltas.entrySet()) {
+                    statement.setInt(1, (Integer) delta.getKey().get(0));
+                    statement.setString(2, (String) delta.getKey().get(1));
+                    statement.setLong(3, delta.getValue());
+                    statement.setTimestamp(4, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+        em.createNativeQuery("DELETE FROM stock_movement WHERE movement_id IN (:movementIds)")
+                .setParameter("movementIds", movementIds)
+                .executeUpdate();
+        return movements.size();
+    }
+}
@@ -0,0 +1,373 @@
+package com.medic.medication;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// Per-dispenser drug stock. Availability is checked against in-memory counters (see
+// StockCounter), so an empty shelf is refused without a database round trip. Every change to
+// on hand is journaled as a stock_movement row before it is acknowledged: an insert, never an
+// update of the contended dispenser_stock row, and durable, so a hard kill loses nothing. A
+// single thread folds the journal into dispenser_stock every flush interval, and every refresh
+// interval resets the counters to dispenser_stock plus the unfolded journal, which is how
+// changes made on other nodes arrive here. Reservations are in memory only; on restart they are
+// simply gone, which releases them.
+@Service
+public class DispenserStockService {
+
+    // dispenser_stock.drug_name is VARCHAR(255)
+    public static final int MAX_DRUG_NAME_LENGTH = 255;
+    private static final int FOLD_BATCH_SIZE = 1000;
+    // A refresh that cannot get in this quickly waits for the next interval; stock operations
+    // queue behind a waiting refresh, so this is also the longest they are held up
+    private static final long REFRESH_LOCK_TIMEOUT_MS = 100;
+
+    private final DispenserStockDao stockDao;
+
+    @Value("${medic.pharmacy.stock.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${medic.pharmacy.stock.refresh-seconds:30}")
+    private long refreshSeconds;
+
+    @Value("${medic.pharmacy.stock.reservation-ttl-seconds:900}")
+    private long reservationTtlSeconds;
+
+    private final ConcurrentHashMap<Integer, ConcurrentHashMap<String, StockCounter>> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Reservation> reservations = new ConcurrentHashMap<>();
+    private final AtomicLong reservationIds = new AtomicLong();
+    private volatile boolean loaded;
+
+    // Stock operations share the read lock, from their counter change until their movement has
+    // committed; a refresh takes the write lock, so the on hand it reads never misses a change
+    // the counters already show
+    private final ReentrantReadWriteLock refreshLock = new ReentrantReadWriteLock();
+
+    private ScheduledExecutorService flusher;
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong failedMovements = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    public DispenserStockService(DispenserStockDao stockDao) {
+        this.stockDao = stockDao;
+    }
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::refreshQuietly, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    // Nothing is lost if this does not run: unfolded movements still count as on hand
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    public void dispense(int dispenserId, String drugName, int quantity) {
+        StockCounter counter = counter(dispenserId, drugName);
+        String drug = DrugNames.normalize(drugName);
+        refreshLock.readLock().lock();
+        try {
+            if (!counter.take(quantity)) {
+                throw new RuntimeException("Insufficient stock of " + drugName + " at dispenser " + dispenserId);
+            }
+            record(dispenserId, drug, -quantity, () -> counter.giveBack(quantity));
+        } finally {
+            refreshLock.readLock().unlock();
+        }
+    }
+
+    // Signed correction: positive for a delivery, negative for a write-off
+    public void adjust(int dispenserId, String drugName, int quantity) {
+        StockCounter counter = counter(dispenserId, drugName);
+        String drug = DrugNames.normalize(drugName);
+        refreshLock.readLock().lock();
+        try {
+            if (quantity >= 0) {
+                // Recorded first, so a delivery is never offered before it is durable
+                record(dispenserId, drug, quantity, () -> { });
+                counter.giveBack(quantity);
+            } else if (counter.take(-quantity)) {
+                record(dispenserId, drug, quantity, () -> counter.giveBack(-quantity));
+            } else {
+                throw new RuntimeException("Insufficient stock of " + drugName + " at dispenser " + dispenserId);
+            }
+        } finally {
+            refreshLock.readLock().unlock();
+        }
+    }
+
+    public StockReservationDTO reserve(int dispenserId, String drugName, int quantity) {
+        String drug = DrugNames.normalize(drugName);
+        StockCounter counter = counter(dispenserId, drug);
+        refreshLock.readLock().lock();
+        try {
+            if (!counter.take(quantity)) {
+                throw new RuntimeException("Insufficient stock of " + drugName + " at dispenser " + dispenserId);
+            }
+            counter.reserve(quantity);
+        } finally {
+            refreshLock.readLock().unlock();
+        }
+
+        long expiresAt = System.currentTimeMillis() + reservationTtlSeconds * 1000;
+        Reservation reservation = new Reservation(reservationIds.incrementAndGet(), dispenserId, drug, quantity,
+                expiresAt, counter);
+        reservations.put(reservation.id, reservation);
+        return reservation.toDTO();
+    }
+
+    // Removing the reservation from the map is the claim: of a dispense, a cancel and the expiry
+    // sweep racing for it, exactly one gets it. A dispense that cannot be recorded puts it back.
+    public void completeReservation(int dispenserId, long reservationId, boolean dispensed) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null || reservation.dispenserId != dispenserId
+                || !reservations.remove(reservationId, reservation)) {
+            throw new RuntimeException("Reservation not found with id: " + reservationId);
+        }
+        refreshLock.readLock().lock();
+        try {
+            if (dispensed) {
+                record(dispenserId, reservation.drugName, -reservation.quantity,
+                        () -> reservations.put(reservation.id, reservation));
+            }
+            reservation.counter.endReservation(reservation.quantity, dispensed);
+        } finally {
+            refreshLock.readLock().unlock();
+        }
+    }
+
+    public List<StockLevelDTO> getStock(int dispenserId) {
+        ensureLoaded();
+        List<StockLevelDTO> levels = new ArrayList<>();
+        Map<String, StockCounter> drugs = counters.get(dispenserId);
+        if (drugs != null) {
+            drugs.forEach((drug, counter) -> levels.add(toLevel(dispenserId, drug, counter)));
+        }
+        levels.sort((a, b) -> a.getDrugName().compareTo(b.getDrugName()));
+        return levels;
+    }
+
+    // A drug never stocked at the dispenser reads as zero; nothing is created for it
+    public StockLevelDTO getStock(int dispenserId, String drugName) {
+        String drug = DrugNames.normalize(drugName);
+        ensureLoaded();
+        Map<String, StockCounter> drugs = counters.get(dispenserId);
+        StockCounter counter = drugs != null && drug != null ? drugs.get(drug) : null;
+        return toLevel(dispenserId, drug, counter != null ? counter : new StockCounter(0));
+    }
+
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    public long getFailedFlushes() {
+        return failedFlushes.get();
+    }
+
+    public int getOpenReservations() {
+        return reservations.size();
+    }
+
+    // Dispenses and adjustments refused because their movement could not be recorded
+    public long getFailedMovements() {
+        return failedMovements.get();
+    }
+
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    // Folds the journal into dispenser_stock; only keeps the journal short, on hand is the same
+    // before and after
+    public void flush() {
+        int folded;
+        do {
+            folded = stockDao.foldMovements(FOLD_BATCH_SIZE);
+            if (folded > 0) {
+                flushes.incrementAndGet();
+            }
+        } while (folded == FOLD_BATCH_SIZE);
+    }
+
+    // Resets every counter to what the database has on hand, changes from other nodes included
+    public void refresh() throws InterruptedException {
+        if (!refreshLock.writeLock().tryLock(REFRESH_LOCK_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            return;
+        }
+        try {
+            load();
+            refreshes.incrementAndGet();
+        } finally {
+            refreshLock.writeLock().unlock();
+        }
+    }
+
+    // Journals a change before it is acknowledged. When the insert fails the movement is looked
+    // up, as the commit may have gone through; if it surely did not, or the database cannot say,
+    // undo restores the counters and the caller gets the error. Should it have committed after
+    // all, the next refresh brings the counters in line.
+    private void record(int dispenserId, String drug, long delta, Runnable undo) {
+        String movementId = UUID.randomUUID().toString();
+        try {
+            stockDao.recordMovement(movementId, dispenserId, drug, delta);
+            return;
+        } catch (RuntimeException e) {
+            if (isRecorded(movementId)) {
+                return;
+            }
+            failedMovements.incrementAndGet();
+            undo.run();
+            throw new RuntimeException("Stock change for " + drug + " at dispenser " + dispenserId
+                    + " could not be recorded", e);
+        }
+    }
+
+    private boolean isRecorded(String movementId) {
+        try {
+            return stockDao.isMovementRecorded(movementId);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            releaseExpiredReservations();
+            flush();
+        } catch (RuntimeException e) {
+            failedFlushes.incrementAndGet();
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // Counters keep their values; the next interval tries again
+        }
+    }
+
+    private void releaseExpiredReservations() {
+        long now = System.currentTimeMillis();
+        Iterator<Reservation> iterator = reservations.values().iterator();
+        while (iterator.hasNext()) {
+            Reservation reservation = iterator.next();
+            if (reservation.expiresAt <= now && reservations.remove(reservation.id, reservation)) {
+                refreshLock.readLock().lock();
+                try {
+                    reservation.counter.endReservation(reservation.quantity, false);
+                } finally {
+                    refreshLock.readLock().unlock();
+                }
+            }
+        }
+    }
+
+    private StockCounter counter(int dispenserId, String drugName) {
+        String drug = DrugNames.normalize(drugName);
+        if (drug == null) {
+            throw new RuntimeException("drugName is required");
+        }
+        if (drug.length() > MAX_DRUG_NAME_LENGTH) {
+            throw new RuntimeException("drugName is longer than " + MAX_DRUG_NAME_LENGTH + " characters");
+        }
+        ensureLoaded();
+        return counters.computeIfAbsent(dispenserId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(drug, name -> new StockCounter(0));
+    }
+
+    private StockLevelDTO toLevel(int dispenserId, String drug, StockCounter counter) {
+        StockLevelDTO level = new StockLevelDTO();
+        level.setDispenserId(dispenserId);
+        level.setDrugName(drug);
+        level.setAvailable(counter.getAvailable());
+        level.setReserved(counter.getReserved());
+        level.setOnHand(counter.getAvailable() + counter.getReserved());
+        return level;
+    }
+
+    // First use loads from the database, waiting for the lock rather than starting from empty
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            refreshLock.writeLock().lock();
+            try {
+                load();
+            } finally {
+                refreshLock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Under the write lock
+    private void load() {
+        Map<Integer, Map<String, Long>> onHand = new HashMap<>();
+        for (Object[] row : stockDao.findOnHand()) {
+            onHand.computeIfAbsent(((Number) row[0]).intValue(), id -> new HashMap<>())
+                    .put((String) row[1], ((Number) row[2]).longValue());
+        }
+        // A counter the database has no rows for was never stocked anywhere: zero
+        counters.forEach((dispenserId, drugs) -> drugs.forEach((drug, counter) ->
+                counter.reset(onHand.getOrDefault(dispenserId, Map.of()).getOrDefault(drug, 0L))));
+        onHand.forEach((dispenserId, drugs) -> drugs.forEach((drug, quantity) ->
+                counters.computeIfAbsent(dispenserId, id -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(drug, name -> new StockCounter(quantity))));
+        loaded = true;
+    }
+
+    private static final class Reservation {
+        private final long id;
+        private final int dispenserId;
+        private final String drugName;
+        private final int quantity;
+        private final long expiresAt;
+        private final StockCounter counter;
+
+        private Reservation(long id, int dispenserId, String drugName, int quantity, long expiresAt,
+                            StockCounter counter) {
+            this.id = id;
+            this.dispenserId = dispenserId;
+            this.drugName = drugName;
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+            this.counter = counter;
+        }
+
+        private StockReservationDTO toDTO() {
+            return new StockReservationDTO(id, dispenserId, drugName, quantity, new Timestamp(expiresAt));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.medic.medication;
+
+import java.math.BigDecimal;
+
+// Per-dispenser dosage counts by status and their value at current medicine prices.
+// Dosages without a medicine price are counted in unpriced and add nothing to the values.
+public class DispenserWorkloadDTO {
+    private int dispenserId;
+    private String workName;
+    private String location;
+    private long dosages;
+    private long pending;
+    private long claimed;
+    private long dispensed;
+    private long unpriced;
+    private BigDecimal openValue = BigDecimal.ZERO;
+    private BigDecimal dispensedValue = BigDecimal.ZERO;
+    private BigDecimal totalValue = BigDecimal.ZERO;
+
+    public DispenserWorkloadDTO() {}
+
+    public DispenserWorkloadDTO(int dispenserId, String workName, String location) {
+        this.dispenserId = dispenserId;
+        this.workName = workName;
+        this.location = location;
+    }
+
+    public int getDispenserId() { return dispenserId; }
+    public void setDispenserId(int dispenserId) { this.dispenserId = dispenserId; }
+
+    public String getWorkName() { return workName; }
+    public void setWorkName(String workName) { this.workName = workName; }
+
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+
+    public long getDosages() { return dosages; }
+    public void setDosages(long dosages) { this.dosages = dosages; }
+
+    public long getPending() { return pending; }
+    public void setPending(long pending) { this.pending = pending; }
+
+    public long getClaimed() { return claimed; }
+    public void setClaimed(long claimed) { this.claimed = claimed; }
+
+    public long getDispensed() { return dispensed; }
+    public void setDispensed(long dispensed) { this.dispensed = dispensed; }
+
+    public long getUnpriced() { return unpriced; }
+    public void setUnpriced(long unpriced) { this.unpriced = unpriced; }
+
+    // Pending and claimed dosages
+    public BigDecimal getOpenValue() { return openValue; }
+    public void setOpenValue(BigDecimal openValue) { this.openValue = openValue; }
+
+    public BigDecimal getDispensedValue() { return dispensedValue; }
+    public void setDispensedValue(BigDecimal dispensedValue) { this.dispensedValue = dispensedValue; }
+
+    public BigDecimal getTotalValue() { return totalValue; }
+    public void setTotalValue(BigDecimal totalValue) { this.totalValue = totalValue; }
+}
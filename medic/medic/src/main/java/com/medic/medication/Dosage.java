@@ -1,18 +1,30 @@
 package com.medic.medication;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
 import com.medic.patient.Patient;
 @Entity
-@Table(name = "dosage")
+@Table(name = "dosage", indexes = {
+    @Index(name = "idx_dosage_dispenser_status", columnList = "dispenser_id, status"),
+    @Index(name = "idx_dosage_status_claimed", columnList = "status, claimed_at"),
+    @Index(name = "idx_dosage_dispenser_workload", columnList = "dispenser_id, status, medicine_price_id")
+})
 public class Dosage {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -38,6 +50,28 @@ public class Dosage {
     @JoinColumn(name = "medicine_price_id", nullable = true)
     private MedicinePrice medicinePrice;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priority", nullable = false)
+    private DispensePriority priority = DispensePriority.ROUTINE;
+
+    @Column(name = "due_at")
+    private Timestamp dueAt;
+
+    // Written by the dispense queue with conditional updates, never by a merge
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, updatable = false)
+    private DosageStatus status = DosageStatus.PENDING;
+
+    // Claim bookkeeping, written only by DispenseQueueDao; mapped so Hibernate knows the schema
+    @Column(name = "claimed_by", length = 100, insertable = false, updatable = false)
+    private String claimedBy;
+
+    @Column(name = "claimed_at", insertable = false, updatable = false, columnDefinition = "DATETIME(3)")
+    private Timestamp claimedAt;
+
+    @Column(name = "dispensed_at", insertable = false, updatable = false, columnDefinition = "DATETIME(3)")
+    private Timestamp dispensedAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "dispenser_id", nullable = false)
     private Dispenser dispenser;
@@ -45,6 +79,10 @@ public class Dosage {
     @JoinColumn(name = "patient_id", nullable = true)
     private Patient patient;
 
+    // Interaction check result of the last create/update, returned with the saved dosage
+    @Transient
+    private List<InteractionWarningDTO> interactionWarnings = new ArrayList<>();
+
     public Dosage(){}
 
     public int getId() { return id; }
@@ -65,6 +103,15 @@ public class Dosage {
     public String getNote() { return note; }
     public void setNote(String note) { this.note = note; }
 
+    public DispensePriority getPriority() { return priority; }
+    public void setPriority(DispensePriority priority) { this.priority = priority; }
+
+    public Timestamp getDueAt() { return dueAt; }
+    public void setDueAt(Timestamp dueAt) { this.dueAt = dueAt; }
+
+    public DosageStatus getStatus() { return status; }
+    public void setStatus(DosageStatus status) { this.status = status; }
+
     public MedicinePrice getMedicinePrice() { return medicinePrice; }
     public void setMedicinePrice(MedicinePrice medicinePrice) { this.medicinePrice = medicinePrice; }
 
@@ -72,4 +119,7 @@ public class Dosage {
     public void setDispenser(Dispenser dispenser) { this.dispenser = dispenser; }
     public Patient getPatient() { return patient; }
     public void setPatient(Patient patient) { this.patient = patient; }
+
+    public List<InteractionWarningDTO> getInteractionWarnings() { return interactionWarnings; }
+    public void setInteractionWarnings(List<InteractionWarningDTO> interactionWarnings) { this.interactionWarnings = interactionWarnings; }
 }
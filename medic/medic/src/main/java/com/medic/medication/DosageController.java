@@ -1,6 +1,8 @@
 package com.medic.medication;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -9,20 +11,50 @@ import org.springframework.web.bind.annotation.*;
 public class DosageController {
 
     private final DosageService service;
+    private final DrugInteractionService interactionService;
 
-    public DosageController(DosageService service) {
+    public DosageController(DosageService service, DrugInteractionService interactionService) {
         this.service = service;
+        this.interactionService = interactionService;
     }
 
     @PostMapping
-    public ResponseEntity<Dosage> create(@RequestBody Dosage dosage) {
-        return ResponseEntity.ok(service.create(dosage));
+    public ResponseEntity<?> create(@RequestBody Dosage dosage) {
+        try {
+            return ResponseEntity.ok(service.create(dosage));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Dosage> update(@PathVariable int id, @RequestBody Dosage dosage) {
+    public ResponseEntity<?> update(@PathVariable int id, @RequestBody Dosage dosage) {
         dosage.setId(id);
-        return ResponseEntity.ok(service.update(dosage));
+        try {
+            return ResponseEntity.ok(service.update(dosage));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Pre-check before prescribing; create and update return the same warnings on the dosage
+    @PostMapping("/interaction-check")
+    public ResponseEntity<List<InteractionWarningDTO>> checkInteractions(@RequestBody InteractionCheckRequest request) {
+        if (request.getPatientId() == null || request.getDrugName() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(service.checkInteractions(request.getPatientId(), request.getDrugName()));
+    }
+
+    // Re-reads the interaction knowledge base now instead of at the next poll
+    @PostMapping("/interactions/reload")
+    public ResponseEntity<Map<String, Object>> reloadInteractions() {
+        interactionService.reload();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("interactions", interactionService.getInteractionCount());
+        status.put("drugs", interactionService.getDrugCount());
+        status.put("lastError", interactionService.getLastError());
+        return ResponseEntity.ok(status);
     }
 
     @GetMapping("/{id}")
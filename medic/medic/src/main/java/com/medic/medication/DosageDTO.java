@@ -1,5 +1,7 @@
 package com.medic.medication;
 
+import java.sql.Timestamp;
+
 public class DosageDTO {
         private int id;
 
@@ -13,6 +15,9 @@ public class DosageDTO {
     private String note;
 
     private MedicinePriceDTO medicinePrice;
+    private DispensePriority priority;
+    private Timestamp dueAt;
+    private DosageStatus status;
 
     public int getId() {
         return id;
@@ -71,4 +76,28 @@ public class DosageDTO {
     }
 
      
+
+    public DispensePriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(DispensePriority priority) {
+        this.priority = priority;
+    }
+
+    public Timestamp getDueAt() {
+        return dueAt;
+    }
+
+    public void setDueAt(Timestamp dueAt) {
+        this.dueAt = dueAt;
+    }
+
+    public DosageStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(DosageStatus status) {
+        this.status = status;
+    }
 }
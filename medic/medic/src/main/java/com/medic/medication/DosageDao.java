@@ -1,5 +1,6 @@
 package com.medic.medication;
 
+import java.sql.Timestamp;
 import java.util.List;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -30,6 +31,19 @@ public class DosageDao {
         return entityManager.createQuery("from Dosage", Dosage.class).getResultList();
     }
 
+    // id, drug_name of the patient's dosages still pending or dispensed since the cutoff
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findActiveDrugs(int patientId, int excludeDosageId, Timestamp dispensedSince) {
+        return entityManager.createNativeQuery(
+                        "SELECT id, drug_name FROM dosage " +
+                        "WHERE patient_id = :patientId AND id <> :excludeId " +
+                        "AND (status <> 'DISPENSED' OR dispensed_at >= :since)")
+                .setParameter("patientId", patientId)
+                .setParameter("excludeId", excludeDosageId)
+                .setParameter("since", dispensedSince)
+                .getResultList();
+    }
+
     @Transactional
     public void delete(int id) {
         Dosage dosage = entityManager.find(Dosage.class, id);
@@ -0,0 +1,32 @@
+package com.medic.medication;
+
+import java.util.List;
+
+// One keyset page of a dispenser's dosages; nextAfter is null once the last page is reached
+public class DosagePageDTO {
+    private List<DosageDTO> dosages;
+    private Integer nextAfter;
+
+    public DosagePageDTO() {}
+
+    public DosagePageDTO(List<DosageDTO> dosages, Integer nextAfter) {
+        this.dosages = dosages;
+        this.nextAfter = nextAfter;
+    }
+
+    public List<DosageDTO> getDosages() {
+        return dosages;
+    }
+
+    public void setDosages(List<DosageDTO> dosages) {
+        this.dosages = dosages;
+    }
+
+    public Integer getNextAfter() {
+        return nextAfter;
+    }
+
+    public void setNextAfter(Integer nextAfter) {
+        this.nextAfter = nextAfter;
+    }
+}
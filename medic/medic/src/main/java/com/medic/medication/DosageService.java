@@ -1,27 +1,69 @@
 package com.medic.medication;
 
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.medic.report.PdfReportService;
+
 @Service
 @Transactional
 public class DosageService {
 
     private final DosageDao dosageDao;
+    private final PdfReportService pdfReportService;
+    private final DispenseQueue dispenseQueue;
+    private final DrugInteractionService interactionService;
+    private final AdministrationScheduler administrationScheduler;
 
-    public DosageService(DosageDao dosageDao) {
+    public DosageService(DosageDao dosageDao, PdfReportService pdfReportService, DispenseQueue dispenseQueue,
+                         DrugInteractionService interactionService, AdministrationScheduler administrationScheduler) {
         this.dosageDao = dosageDao;
+        this.pdfReportService = pdfReportService;
+        this.dispenseQueue = dispenseQueue;
+        this.interactionService = interactionService;
+        this.administrationScheduler = administrationScheduler;
     }
 
+    // New dosages enter their dispenser's work queue; without a due time they are due now
     public Dosage create(Dosage dosage) {
+        dosage.setStatus(DosageStatus.PENDING);
+        if (dosage.getPriority() == null) {
+            dosage.setPriority(DispensePriority.ROUTINE);
+        }
+        if (dosage.getDueAt() == null) {
+            dosage.setDueAt(new Timestamp(System.currentTimeMillis()));
+        }
+        administrationScheduler.validate(dosage.getPrescription());
         dosageDao.save(dosage);
+        pdfReportService.invalidatePatient(patientIdOf(dosage));
+        dispenseQueue.onDosageSaved(dosage);
+        administrationScheduler.onDosageSaved(dosage);
+        dosage.setInteractionWarnings(interactionService.checkPatient(patientIdOf(dosage), dosage.getId(), dosage.getDrugName()));
         return dosage;
     }
 
+    // Status belongs to the dispense queue, so an edit keeps the stored one
     public Dosage update(Dosage dosage) {
-        return dosageDao.update(dosage);
+        administrationScheduler.validate(dosage.getPrescription());
+        Dosage existing = dosageDao.findById(dosage.getId());
+        if (existing != null) {
+            dosage.setStatus(existing.getStatus());
+            if (dosage.getPriority() == null) {
+                dosage.setPriority(existing.getPriority());
+            }
+            if (dosage.getDueAt() == null) {
+                dosage.setDueAt(existing.getDueAt());
+            }
+        }
+        Dosage updated = dosageDao.update(dosage);
+        pdfReportService.invalidatePatient(patientIdOf(updated));
+        dispenseQueue.onDosageSaved(updated);
+        administrationScheduler.onDosageSaved(updated);
+        updated.setInteractionWarnings(interactionService.checkPatient(patientIdOf(updated), updated.getId(), updated.getDrugName()));
+        return updated;
     }
 
     // ✅ Return DTO instead of entity
@@ -38,8 +80,24 @@ public class DosageService {
                 .collect(Collectors.toList());
     }
 
+    // Would prescribing drugName to the patient clash with their active dosages?
+    public List<InteractionWarningDTO> checkInteractions(int patientId, String drugName) {
+        return interactionService.checkPatient(patientId, 0, drugName);
+    }
+
     public void delete(int id) {
+        Dosage dosage = dosageDao.findById(id);
+        Integer patientId = dosage != null ? patientIdOf(dosage) : null;
         dosageDao.delete(id);
+        if (dosage != null) {
+            pdfReportService.invalidatePatient(patientId);
+            dispenseQueue.onDosageDeleted(id);
+            administrationScheduler.onDosageDeleted(id);
+        }
+    }
+
+    private Integer patientIdOf(Dosage dosage) {
+        return dosage.getPatient() != null ? dosage.getPatient().getId() : null;
     }
 
     // ✅ Mapping helpers
@@ -54,6 +112,9 @@ public class DosageService {
         dto.setCaution(dosage.getCaution());
         dto.setNote(dosage.getNote());
         dto.setMedicinePrice(mapToMedicinePriceDTO(dosage.getMedicinePrice()));
+        dto.setPriority(dosage.getPriority());
+        dto.setDueAt(dosage.getDueAt());
+        dto.setStatus(dosage.getStatus());
         return dto;
     }
 
@@ -0,0 +1,8 @@
+package com.medic.medication;
+
+// Dispense progress of a dosage; moved only by DispenseQueue
+public enum DosageStatus {
+    PENDING,
+    CLAIMED,
+    DISPENSED
+}
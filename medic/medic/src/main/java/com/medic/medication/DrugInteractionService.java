@@ -0,0 +1,192 @@
+package com.medic.medication;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// Drug interaction checks against a knowledge base file of "drug_a,drug_b,severity,description"
+// lines (# starts a comment). The file is parsed into an InteractionIndex off to the side and
+// published with a single volatile write, so a reload never pauses a check in progress; a file
+// that fails to parse leaves the previous index in place. The file is polled for changes;
+// without medic.pharmacy.interactions.file the bundled classpath list is used.
+@Service
+public class DrugInteractionService {
+
+    private static final String BUNDLED_FILE = "interactions.csv";
+
+    private final DosageDao dosageDao;
+
+    @Value("${medic.pharmacy.interactions.file:}")
+    private String file;
+
+    @Value("${medic.pharmacy.interactions.reload-seconds:30}")
+    private long reloadSeconds;
+
+    // Dispensed dosages count as active for this long
+    @Value("${medic.pharmacy.interactions.active-days:30}")
+    private long activeDays;
+
+    private volatile InteractionIndex index = InteractionIndex.empty();
+    private volatile long loadedModified;
+    private volatile String lastError;
+    private ScheduledExecutorService watcher;
+
+    public DrugInteractionService(DosageDao dosageDao) {
+        this.dosageDao = dosageDao;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+        if (!file.isEmpty()) {
+            watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "interaction-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            watcher.scheduleWithFixedDelay(this::reloadIfModified, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+
+    // Interactions between drugName and the patient's other active dosages
+    public List<InteractionWarningDTO> checkPatient(Integer patientId, int dosageId, String drugName) {
+        if (patientId == null) {
+            return new ArrayList<>();
+        }
+        Timestamp since = new Timestamp(System.currentTimeMillis() - activeDays * 24 * 60 * 60 * 1000);
+        Map<Integer, String> others = new LinkedHashMap<>();
+        for (Object[] row : dosageDao.findActiveDrugs(patientId, dosageId, since)) {
+            others.put(((Number) row[0]).intValue(), (String) row[1]);
+        }
+        return check(drugName, others);
+    }
+
+    // Pure in-memory part: drugName against other dosages (dosage id -> drug name)
+    public List<InteractionWarningDTO> check(String drugName, Map<Integer, String> otherDrugs) {
+        InteractionIndex current = index;
+        List<InteractionWarningDTO> warnings = new ArrayList<>();
+        int[] drugIds = current.resolve(DrugNames.normalize(drugName));
+        if (drugIds.length == 0) {
+            return warnings;
+        }
+        otherDrugs.forEach((otherDosageId, otherName) -> {
+            for (int otherId : current.resolve(DrugNames.normalize(otherName))) {
+                for (int drugId : drugIds) {
+                    int entry = current.find(drugId, otherId);
+                    if (entry >= 0) {
+                        warnings.add(new InteractionWarningDTO(drugName, otherName, otherDosageId,
+                                current.severity(entry), current.description(entry)));
+                    }
+                }
+            }
+        });
+        warnings.sort((a, b) -> b.getSeverity().compareTo(a.getSeverity()));
+        return warnings;
+    }
+
+    // Re-reads the knowledge base; returns the number of interaction pairs now loaded
+    public synchronized int reload() {
+        try {
+            long modified = file.isEmpty() ? 0 : Files.getLastModifiedTime(Paths.get(file)).toMillis();
+            try (InputStream in = open()) {
+                index = parse(in);
+            }
+            loadedModified = modified;
+            lastError = null;
+        } catch (IOException | RuntimeException e) {
+            lastError = e.getMessage();
+        }
+        return index.size();
+    }
+
+    public int getInteractionCount() {
+        return index.size();
+    }
+
+    public int getDrugCount() {
+        return index.drugCount();
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    private void reloadIfModified() {
+        try {
+            if (Files.getLastModifiedTime(Paths.get(file)).toMillis() != loadedModified) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            lastError = e.getMessage();
+        }
+    }
+
+    private InputStream open() throws IOException {
+        if (!file.isEmpty()) {
+            return Files.newInputStream(Paths.get(file));
+        }
+        InputStream bundled = getClass().getClassLoader().getResourceAsStream(BUNDLED_FILE);
+        if (bundled == null) {
+            throw new IOException("No interaction file configured and " + BUNDLED_FILE + " is not on the classpath");
+        }
+        return bundled;
+    }
+
+    private InteractionIndex parse(InputStream in) throws IOException {
+        InteractionIndex.Builder builder = new InteractionIndex.Builder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", 4);
+                if (fields.length < 3) {
+                    throw new IOException("Line " + lineNumber + ": expected drug_a,drug_b,severity[,description]");
+                }
+                String drugA = DrugNames.normalize(fields[0]);
+                String drugB = DrugNames.normalize(fields[1]);
+                if (drugA == null || drugB == null || drugA.equals(drugB)) {
+                    throw new IOException("Line " + lineNumber + ": two different drug names are required");
+                }
+                InteractionSeverity severity;
+                try {
+                    severity = InteractionSeverity.valueOf(fields[2].trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Line " + lineNumber + ": unknown severity " + fields[2].trim());
+                }
+                builder.add(drugA, drugB, severity, fields.length > 3 ? fields[3].trim() : null);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.medic.medication;
+
+import java.util.Locale;
+
+// Drug names are free text on Dosage; stock and lookups key them by this normalized form
+public final class DrugNames {
+
+    private DrugNames() {}
+
+    // Trimmed, lower case, inner whitespace collapsed: " Amoxicillin  500mg" -> "amoxicillin 500mg"
+    public static String normalize(String drugName) {
+        if (drugName == null) {
+            return null;
+        }
+        String normalized = drugName.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+}
@@ -0,0 +1,13 @@
+package com.medic.medication;
+
+// Body of POST /api/dosages/interaction-check: would prescribing drugName to the patient clash?
+public class InteractionCheckRequest {
+    private Integer patientId;
+    private String drugName;
+
+    public Integer getPatientId() { return patientId; }
+    public void setPatientId(Integer patientId) { this.patientId = patientId; }
+
+    public String getDrugName() { return drugName; }
+    public void setDrugName(String drugName) { this.drugName = drugName; }
+}
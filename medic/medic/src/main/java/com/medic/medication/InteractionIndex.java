@@ -0,0 +1,149 @@
+package com.medic.medication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Immutable drug-pair lookup built from the interaction file. Every known drug name gets a
+// small int id; a pair is the long (lowId << 32 | highId) in an open-addressing table of
+// primitive longs, so a check is a couple of string hash lookups and one probe sequence,
+// with no boxing. Reloads build a new index and swap the reference; readers never wait.
+final class InteractionIndex {
+
+    private static final long EMPTY = -1L;
+    private static final int MAX_NAME_WORDS = 3;
+
+    private final Map<String, Integer> drugIds;
+    private final long[] keys;
+    private final int[] entries;
+    private final int mask;
+    private final InteractionSeverity[] severities;
+    private final String[] descriptions;
+
+    private InteractionIndex(Map<String, Integer> drugIds, List<Long> pairs,
+                             List<InteractionSeverity> severities, List<String> descriptions) {
+        this.drugIds = drugIds;
+        this.severities = severities.toArray(new InteractionSeverity[0]);
+        this.descriptions = descriptions.toArray(new String[0]);
+
+        int capacity = Integer.highestOneBit(Math.max(4, pairs.size() * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.entries = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+        for (int entry = 0; entry < pairs.size(); entry++) {
+            long key = pairs.get(entry);
+            int slot = slot(key);
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            entries[slot] = entry;
+        }
+    }
+
+    static InteractionIndex empty() {
+        return new Builder().build();
+    }
+
+    int size() {
+        return severities.length;
+    }
+
+    int drugCount() {
+        return drugIds.size();
+    }
+
+    // Ids the (normalized) drug name is known under: the whole name ("warfarin") or, for names
+    // with strength or form ("isosorbide mononitrate 20mg"), every run of up to three words
+    // that is a known drug
+    int[] resolve(String normalizedName) {
+        if (normalizedName == null) {
+            return new int[0];
+        }
+        Integer id = drugIds.get(normalizedName);
+        if (id != null) {
+            return new int[] {id};
+        }
+        String[] words = normalizedName.split(" ");
+        int[] ids = new int[0];
+        for (int first = 0; first < words.length; first++) {
+            StringBuilder phrase = new StringBuilder();
+            for (int last = first; last < Math.min(words.length, first + MAX_NAME_WORDS); last++) {
+                if (last > first) {
+                    phrase.append(' ');
+                }
+                Integer phraseId = drugIds.get(phrase.append(words[last]).toString());
+                if (phraseId != null) {
+                    ids = Arrays.copyOf(ids, ids.length + 1);
+                    ids[ids.length - 1] = phraseId;
+                }
+            }
+        }
+        return ids;
+    }
+
+    // Entry number of the interaction between two drug ids, or -1
+    int find(int a, int b) {
+        if (a == b) {
+            return -1;
+        }
+        long key = pairKey(a, b);
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return entries[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    InteractionSeverity severity(int entry) {
+        return severities[entry];
+    }
+
+    String description(int entry) {
+        return descriptions[entry];
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private static long pairKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    // Collects pairs while the file is parsed; a repeated pair keeps its last line
+    static final class Builder {
+        private final Map<String, Integer> drugIds = new HashMap<>();
+        private final Map<Long, Integer> entryByPair = new HashMap<>();
+        private final List<Long> pairs = new ArrayList<>();
+        private final List<InteractionSeverity> severities = new ArrayList<>();
+        private final List<String> descriptions = new ArrayList<>();
+
+        Builder add(String drugA, String drugB, InteractionSeverity severity, String description) {
+            int a = drugIds.computeIfAbsent(drugA, name -> drugIds.size());
+            int b = drugIds.computeIfAbsent(drugB, name -> drugIds.size());
+            long key = pairKey(a, b);
+            Integer entry = entryByPair.get(key);
+            if (entry != null) {
+                severities.set(entry, severity);
+                descriptions.set(entry, description);
+            } else {
+                entryByPair.put(key, pairs.size());
+                pairs.add(key);
+                severities.add(severity);
+                descriptions.add(description);
+            }
+            return this;
+        }
+
+        InteractionIndex build() {
+            return new InteractionIndex(new HashMap<>(drugIds), pairs, severities, descriptions);
+        }
+    }
+}
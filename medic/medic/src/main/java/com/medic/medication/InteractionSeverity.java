@@ -0,0 +1,9 @@
+package com.medic.medication;
+
+// Severity of a drug interaction, least to most severe
+public enum InteractionSeverity {
+    MINOR,
+    MODERATE,
+    MAJOR,
+    CONTRAINDICATED
+}
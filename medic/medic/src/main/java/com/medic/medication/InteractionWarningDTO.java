@@ -0,0 +1,36 @@
+package com.medic.medication;
+
+// A known interaction between a prescribed drug and another active dosage of the same patient
+public class InteractionWarningDTO {
+    private String drugName;
+    private String otherDrugName;
+    private Integer otherDosageId;
+    private InteractionSeverity severity;
+    private String description;
+
+    public InteractionWarningDTO() {}
+
+    public InteractionWarningDTO(String drugName, String otherDrugName, Integer otherDosageId,
+                                 InteractionSeverity severity, String description) {
+        this.drugName = drugName;
+        this.otherDrugName = otherDrugName;
+        this.otherDosageId = otherDosageId;
+        this.severity = severity;
+        this.description = description;
+    }
+
+    public String getDrugName() { return drugName; }
+    public void setDrugName(String drugName) { this.drugName = drugName; }
+
+    public String getOtherDrugName() { return otherDrugName; }
+    public void setOtherDrugName(String otherDrugName) { this.otherDrugName = otherDrugName; }
+
+    public Integer getOtherDosageId() { return otherDosageId; }
+    public void setOtherDosageId(Integer otherDosageId) { this.otherDosageId = otherDosageId; }
+
+    public InteractionSeverity getSeverity() { return severity; }
+    public void setSeverity(InteractionSeverity severity) { this.severity = severity; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+}
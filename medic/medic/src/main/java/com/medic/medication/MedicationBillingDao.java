@@ -0,0 +1,104 @@
+package com.medic.medication;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+import org.springframework.stereotype.Repository;
+
+// Dosage line counts for billing. The database only counts lines per (group, medicine price);
+// the money is done in Java with BigDecimal against the price catalog, so no floating-point
+// SUM over the price column is ever involved. A dosage is billed at the time it was
+// dispensed, or its due time while it has not been.
+@Repository
+public class MedicationBillingDao {
+
+    private static final String DOSAGE_TIME = "COALESCE(d.dispensed_at, d.due_at)";
+
+    // Ward of the stay the dosage falls in; dosages from before the occupancy log started go
+    // to the patient's current ward
+    private static final String WARD_JOIN =
+            "LEFT JOIN bed_occupancy o ON o.patient_id = d.patient_id AND o.start_at <= " + DOSAGE_TIME +
+            " AND (o.end_at IS NULL OR o.end_at > " + DOSAGE_TIME + ") " +
+            "LEFT JOIN patient p ON p.patient_id = d.patient_id " +
+            "LEFT JOIN bed b ON b.bed_id = p.bed_id ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // group key, medicine_price_id (null when unpriced), line count, ordered by group key.
+    // from/to and the patient id range are optional.
+    @SuppressWarnings("unchecked")
+    public List<Object[]> countLines(BillingGroup group, Timestamp from, Timestamp to,
+                                     Integer minPatientId, Integer maxPatientId) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(groupKey(group))
+                .append(" AS group_key, d.medicine_price_id, COUNT(*) FROM dosage d ");
+        if (group == BillingGroup.WARD) {
+            sql.append(WARD_JOIN);
+        }
+        sql.append("WHERE 1 = 1 ");
+        if (from != null) {
+            sql.append("AND ").append(DOSAGE_TIME).append(" >= :from ");
+        }
+        if (to != null) {
+            sql.append("AND ").append(DOSAGE_TIME).append(" < :to ");
+        }
+        if (minPatientId != null) {
+            sql.append("AND d.patient_id >= :minPatientId ");
+        }
+        if (maxPatientId != null) {
+            sql.append("AND d.patient_id <= :maxPatientId ");
+        }
+        sql.append("GROUP BY group_key, d.medicine_price_id ORDER BY group_key");
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (minPatientId != null) {
+            query.setParameter("minPatientId", minPatientId);
+        }
+        if (maxPatientId != null) {
+            query.setParameter("maxPatientId", maxPatientId);
+        }
+        return query.getResultList();
+    }
+
+    // Lowest and highest patient id with dosages in the window, or nulls when there are none
+    public Object[] findPatientIdRange(Timestamp from, Timestamp to) {
+        StringBuilder sql = new StringBuilder("SELECT MIN(d.patient_id), MAX(d.patient_id) FROM dosage d WHERE 1 = 1 ");
+        if (from != null) {
+            sql.append("AND ").append(DOSAGE_TIME).append(" >= :from ");
+        }
+        if (to != null) {
+            sql.append("AND ").append(DOSAGE_TIME).append(" < :to ");
+        }
+        Query query = entityManager.createNativeQuery(sql.toString());
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        return (Object[]) query.getSingleResult();
+    }
+
+    private static String groupKey(BillingGroup group) {
+        switch (group) {
+            case WARD:
+                return "COALESCE(o.ward_id, b.ward_id)";
+            case DAY:
+                return "DATE(" + DOSAGE_TIME + ")";
+            case MONTH:
+                return "DATE_FORMAT(" + DOSAGE_TIME + ", '%Y-%m')";
+            default:
+                return "d.patient_id";
+        }
+    }
+}
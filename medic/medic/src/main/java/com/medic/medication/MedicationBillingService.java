@@ -0,0 +1,145 @@
+package com.medic.medication;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// Medication cost per patient, ward or period. Each dosage line is billed at the price of its
+// medicine price entry; lines without one are counted separately as unpriced. The batch run
+// splits the patient id range into slices that are counted and priced in parallel, each slice
+// being one grouped query, and merges the per-patient totals.
+@Service
+public class MedicationBillingService {
+
+    // Slices per thread, so one slice with many patients does not leave the other threads idle
+    private static final int SLICES_PER_THREAD = 4;
+
+    private final MedicationBillingDao billingDao;
+    private final MedicinePriceCatalog priceCatalog;
+
+    // 0 = one per available processor
+    @Value("${medic.billing.threads:0}")
+    private int threads;
+
+    private ExecutorService pool;
+
+    public MedicationBillingService(MedicationBillingDao billingDao, MedicinePriceCatalog priceCatalog) {
+        this.billingDao = billingDao;
+        this.priceCatalog = priceCatalog;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "medication-billing");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public MedicationTotalDTO getPatientTotal(int patientId, Timestamp from, Timestamp to) {
+        List<MedicationTotalDTO> totals = price(BillingGroup.PATIENT,
+                billingDao.countLines(BillingGroup.PATIENT, from, to, patientId, patientId), priceCatalog.snapshot());
+        return totals.isEmpty() ? new MedicationTotalDTO(BillingGroup.PATIENT, String.valueOf(patientId)) : totals.get(0);
+    }
+
+    public List<MedicationTotalDTO> getTotals(BillingGroup group, Timestamp from, Timestamp to) {
+        return price(group, billingDao.countLines(group, from, to, null, null), priceCatalog.snapshot());
+    }
+
+    // Per-patient totals for the whole hospital
+    public BillingRunDTO run(Timestamp from, Timestamp to) {
+        long started = System.currentTimeMillis();
+        BillingRunDTO run = new BillingRunDTO();
+        run.setFrom(from);
+        run.setTo(to);
+
+        List<MedicationTotalDTO> totals = new ArrayList<>();
+        Object[] range = billingDao.findPatientIdRange(from, to);
+        if (range[0] != null) {
+            // One price list for the whole run, even if prices change while it is going
+            MedicinePriceCatalog.Snapshot prices = priceCatalog.snapshot();
+            int min = ((Number) range[0]).intValue();
+            int max = ((Number) range[1]).intValue();
+            long span = (long) max - min + 1;
+            int slices = (int) Math.min(span, (long) threads * SLICES_PER_THREAD);
+
+            List<Future<List<MedicationTotalDTO>>> futures = new ArrayList<>();
+            for (int slice = 0; slice < slices; slice++) {
+                int first = (int) (min + span * slice / slices);
+                int last = (int) (min + span * (slice + 1) / slices - 1);
+                futures.add(pool.submit(() -> price(BillingGroup.PATIENT,
+                        billingDao.countLines(BillingGroup.PATIENT, from, to, first, last), prices)));
+            }
+            try {
+                // Slices are in patient id order and disjoint, so appending keeps the result sorted
+                for (Future<List<MedicationTotalDTO>> future : futures) {
+                    totals.addAll(future.get());
+                }
+            } catch (InterruptedException e) {
+                futures.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Billing run interrupted");
+            } catch (ExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw new RuntimeException("Billing run failed: " + e.getCause().getMessage(), e.getCause());
+            }
+            run.setPartitions(slices);
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        long lines = 0;
+        long unpricedLines = 0;
+        for (MedicationTotalDTO patientTotal : totals) {
+            total = total.add(patientTotal.getTotal());
+            lines += patientTotal.getLines();
+            unpricedLines += patientTotal.getUnpricedLines();
+        }
+        run.setTotals(totals);
+        run.setPatients(totals.size());
+        run.setLines(lines);
+        run.setUnpricedLines(unpricedLines);
+        run.setTotal(total);
+        run.setElapsedMillis(System.currentTimeMillis() - started);
+        return run;
+    }
+
+    // Folds (group key, price id, count) rows, already ordered by group key, into totals
+    private List<MedicationTotalDTO> price(BillingGroup group, List<Object[]> rows, MedicinePriceCatalog.Snapshot prices) {
+        Map<String, MedicationTotalDTO> totals = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            String key = row[0] != null ? row[0].toString() : null;
+            MedicationTotalDTO total = totals.computeIfAbsent(key, k -> new MedicationTotalDTO(group, k));
+            long count = ((Number) row[2]).longValue();
+            BigDecimal price = row[1] != null ? prices.price(((Number) row[1]).intValue()) : null;
+            total.setLines(total.getLines() + count);
+            if (price == null) {
+                total.setUnpricedLines(total.getUnpricedLines() + count);
+            } else {
+                total.setTotal(total.getTotal().add(price.multiply(BigDecimal.valueOf(count))));
+            }
+        }
+        return new ArrayList<>(totals.values());
+    }
+}
@@ -0,0 +1,36 @@
+package com.medic.medication;
+
+import java.math.BigDecimal;
+
+// Medication cost of one patient, ward or period. key is the patient or ward id, or the day
+// (yyyy-MM-dd) or month (yyyy-MM); null for dosages that fall outside any ward stay.
+// unpricedLines counts dosages without a medicine price, which add nothing to total.
+public class MedicationTotalDTO {
+    private BillingGroup group;
+    private String key;
+    private long lines;
+    private long unpricedLines;
+    private BigDecimal total = BigDecimal.ZERO;
+
+    public MedicationTotalDTO() {}
+
+    public MedicationTotalDTO(BillingGroup group, String key) {
+        this.group = group;
+        this.key = key;
+    }
+
+    public BillingGroup getGroup() { return group; }
+    public void setGroup(BillingGroup group) { this.group = group; }
+
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+
+    public long getLines() { return lines; }
+    public void setLines(long lines) { this.lines = lines; }
+
+    public long getUnpricedLines() { return unpricedLines; }
+    public void setUnpricedLines(long unpricedLines) { this.unpricedLines = unpricedLines; }
+
+    public BigDecimal getTotal() { return total; }
+    public void setTotal(BigDecimal total) { this.total = total; }
+}
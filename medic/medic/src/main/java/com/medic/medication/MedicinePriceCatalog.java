@@ -0,0 +1,212 @@
+package com.medic.medication;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// In-memory copy of medicine_price. Readers take the current Snapshot through one volatile
+// read and look prices up in its HashMap, without locks or database round trips. Writers
+// never touch a published snapshot: after a price change commits, only the changed rows are
+// read back by id and applied to a copy of the current map, which is swapped in, so a reader
+// sees either all of a bulk update or none of it. Updates run one at a time and always read
+// committed state, so whichever runs last leaves the latest prices in place. The whole table
+// is read only on the first load and by the periodic refresh, which picks up changes made on
+// other nodes or directly in the database.
+@Component
+public class MedicinePriceCatalog {
+
+    private final MedicinePriceDao medicinePriceDao;
+
+    @Value("${medic.pharmacy.prices.refresh-seconds:300}")
+    private long refreshSeconds;
+
+    private volatile Snapshot snapshot = new Snapshot(new HashMap<>(), 0);
+    private ScheduledExecutorService refresher;
+
+    public MedicinePriceCatalog(MedicinePriceDao medicinePriceDao) {
+        this.medicinePriceDao = medicinePriceDao;
+    }
+
+    @PostConstruct
+    public void init() {
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "medicine-price-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // First load in the background too, so startup does not wait on the database
+        refresher.scheduleWithFixedDelay(this::reloadQuietly, 0, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    // Current prices; hold on to the snapshot to price several lines against the same list
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        return current.version > 0 ? current : reload();
+    }
+
+    public Price find(int id) {
+        return snapshot().find(id);
+    }
+
+    // Reads the whole table
+    public synchronized Snapshot reload() {
+        Map<Integer, Price> prices = new HashMap<>();
+        for (Object[] row : medicinePriceDao.findAllRows()) {
+            Price price = toPrice(row);
+            prices.put(price.id, price);
+        }
+        Snapshot loaded = new Snapshot(prices, snapshot.version + 1);
+        snapshot = loaded;
+        return loaded;
+    }
+
+    // Re-reads the given prices only; an id no longer in the table is dropped
+    public synchronized Snapshot update(Collection<Integer> ids) {
+        Snapshot current = snapshot;
+        if (current.version == 0) {
+            return reload();
+        }
+        if (ids.isEmpty()) {
+            return current;
+        }
+        Map<Integer, Price> prices = new HashMap<>(current.prices);
+        ids.forEach(prices::remove);
+        for (Object[] row : medicinePriceDao.findRows(ids)) {
+            Price price = toPrice(row);
+            prices.put(price.id, price);
+        }
+        Snapshot updated = new Snapshot(prices, current.version + 1);
+        snapshot = updated;
+        return updated;
+    }
+
+    // Called inside the writing transaction with the ids it changed; they are read once it has
+    // committed
+    public void updateAfterCommit(Collection<Integer> ids) {
+        Set<Integer> changed = new HashSet<>(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    updateQuietly(changed);
+                }
+            });
+        } else {
+            updateQuietly(changed);
+        }
+    }
+
+    private void updateQuietly(Collection<Integer> ids) {
+        try {
+            update(ids);
+        } catch (RuntimeException e) {
+            // Database unavailable: readers keep the previous prices until the next refresh
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // Database unavailable: readers keep the previous snapshot until the next refresh
+        }
+    }
+
+    // price_id, quantity, unit_measure, price
+    private static Price toPrice(Object[] row) {
+        return new Price(((Number) row[0]).intValue(), ((Number) row[1]).intValue(), (String) row[2],
+                ((Number) row[3]).doubleValue());
+    }
+
+    // Immutable view of the whole price list
+    public static final class Snapshot {
+        private final Map<Integer, Price> prices;
+        private final List<Price> ordered;
+        private final long version;
+
+        private Snapshot(Map<Integer, Price> prices, long version) {
+            this.prices = prices;
+            List<Price> ordered = new ArrayList<>(prices.values());
+            ordered.sort((a, b) -> Integer.compare(a.id, b.id));
+            this.ordered = Collections.unmodifiableList(ordered);
+            this.version = version;
+        }
+
+        public Price find(int id) {
+            return prices.get(id);
+        }
+
+        // Price as an exact decimal, or null for an unknown id
+        public BigDecimal price(int id) {
+            Price price = prices.get(id);
+            return price != null ? price.decimalPrice : null;
+        }
+
+        public List<Price> all() {
+            return ordered;
+        }
+
+        public int size() {
+            return ordered.size();
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    public static final class Price {
+        private final int id;
+        private final int quantity;
+        private final String unitMeasure;
+        private final double price;
+        // The shortest decimal that reads back as the stored double, for billing
+        private final BigDecimal decimalPrice;
+
+        private Price(int id, int quantity, String unitMeasure, double price) {
+            this.id = id;
+            this.quantity = quantity;
+            this.unitMeasure = unitMeasure;
+            this.price = price;
+            this.decimalPrice = BigDecimal.valueOf(price);
+        }
+
+        public int getId() { return id; }
+        public int getQuantity() { return quantity; }
+        public String getUnitMeasure() { return unitMeasure; }
+        public double getPrice() { return price; }
+        public BigDecimal getDecimalPrice() { return decimalPrice; }
+
+        // Detached copy for API responses, so callers cannot change the shared snapshot
+        public MedicinePrice toEntity() {
+            MedicinePrice entity = new MedicinePrice();
+            entity.setId(id);
+            entity.setQuantity(quantity);
+            entity.setUnitMeasure(unitMeasure);
+            entity.setPrice(price);
+            return entity;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.medic.medication;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,6 +29,32 @@ public class MedicinePriceController {
         return ResponseEntity.ok(service.update(price));
     }
 
+    // Supplier price list: every line is applied in one transaction or none is.
+    // Returns the updated prices as now served.
+    @PutMapping("/bulk")
+    public ResponseEntity<?> bulkUpdate(@RequestBody List<MedicinePriceUpdate> updates) {
+        Set<Integer> ids = new HashSet<>();
+        for (MedicinePriceUpdate update : updates) {
+            if (!ids.add(update.getId())) {
+                return ResponseEntity.badRequest().body("Medicine price " + update.getId() + " appears more than once");
+            }
+            if (update.getPrice() == null || !(update.getPrice() >= 0) || update.getPrice().isInfinite()) {
+                return ResponseEntity.badRequest().body("Medicine price " + update.getId() + " needs a price of zero or more");
+            }
+            if (update.getQuantity() != null && update.getQuantity() <= 0) {
+                return ResponseEntity.badRequest().body("Medicine price " + update.getId() + " needs a positive quantity");
+            }
+        }
+        try {
+            service.bulkUpdate(updates);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        return ResponseEntity.ok(updates.stream()
+                .map(update -> service.getById(update.getId()))
+                .collect(Collectors.toList()));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<MedicinePrice> getById(@PathVariable int id) {
         return ResponseEntity.ok(service.getById(id));
@@ -1,10 +1,21 @@
 package com.medic.medication;
 
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Repository
 public class MedicinePriceDao {
@@ -27,7 +38,65 @@ public class MedicinePriceDao {
     }
 
     public List<MedicinePrice> findAll() {
-        return entityManager.createQuery("from MedicinePrice", MedicinePrice.class).getResultList();
+        return entityManager.createQuery("from MedicinePrice", MedicinePrice.class)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .getResultList();
+    }
+
+    // price_id, quantity, unit_measure, price straight from the table, past the query cache,
+    // for building the price catalog
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findAllRows() {
+        return entityManager.createNativeQuery("SELECT price_id, quantity, unit_measure, price FROM medicine_price")
+                .getResultList();
+    }
+
+    // The same columns for the given ids only, for updating the catalog after a write
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findRows(Collection<Integer> ids) {
+        return entityManager.createNativeQuery(
+                        "SELECT price_id, quantity, unit_measure, price FROM medicine_price WHERE price_id IN (:ids)")
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    // Applies a whole price list as one JDBC batch in one transaction. The rows are locked and
+    // checked first, so an unknown id fails the update before anything is written.
+    @Transactional
+    public void bulkUpdate(List<MedicinePriceUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        Set<Integer> ids = updates.stream().map(MedicinePriceUpdate::getId).collect(Collectors.toSet());
+        List<?> found = entityManager.createNativeQuery(
+                        "SELECT price_id FROM medicine_price WHERE price_id IN (:ids) FOR UPDATE")
+                .setParameter("ids", ids)
+                .getResultList();
+        Set<Integer> missing = new HashSet<>(ids);
+        found.forEach(id -> missing.remove(((Number) id).intValue()));
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Medicine price not found with id: " + missing.iterator().next());
+        }
+
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE medicine_price SET price = ?, quantity = COALESCE(?, quantity), " +
+                    "unit_measure = COALESCE(?, unit_measure) WHERE price_id = ?")) {
+                for (MedicinePriceUpdate update : updates) {
+                    statement.setDouble(1, update.getPrice());
+                    if (update.getQuantity() != null) {
+                        statement.setInt(2, update.getQuantity());
+                    } else {
+                        statement.setNull(2, Types.INTEGER);
+                    }
+                    statement.setString(3, update.getUnitMeasure());
+                    statement.setInt(4, update.getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+        evictPrices();
     }
 
     @Transactional
@@ -37,4 +106,21 @@ public class MedicinePriceDao {
             entityManager.remove(price);
         }
     }
+
+    // The batch bypasses Hibernate, so cached prices and the cached findAll result are dropped
+    // now and again after commit, in case a concurrent reader re-cached the old rows meanwhile
+    private void evictPrices() {
+        Cache cache = entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        cache.evict(MedicinePrice.class);
+        cache.evictDefaultQueryRegion();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(MedicinePrice.class);
+                    cache.evictDefaultQueryRegion();
+                }
+            });
+        }
+    }
 }
@@ -1,37 +1,69 @@
 package com.medic.medication;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.medic.report.PdfReportService;
+
+// Reads are served from the in-memory MedicinePriceCatalog; every write updates the prices it
+// changed there on commit
+// and, since dosages in patient reports carry their price, invalidates the cached reports
 @Service
-@Transactional
 public class MedicinePriceService {
 
     private final MedicinePriceDao medicinePriceDao;
+    private final MedicinePriceCatalog catalog;
+    private final PdfReportService pdfReportService;
 
-    public MedicinePriceService(MedicinePriceDao medicinePriceDao) {
+    public MedicinePriceService(MedicinePriceDao medicinePriceDao, MedicinePriceCatalog catalog,
+                                PdfReportService pdfReportService) {
         this.medicinePriceDao = medicinePriceDao;
+        this.catalog = catalog;
+        this.pdfReportService = pdfReportService;
     }
 
+    @Transactional
     public MedicinePrice create(MedicinePrice price) {
         medicinePriceDao.save(price);
+        catalog.updateAfterCommit(Collections.singleton(price.getId()));
+        pdfReportService.invalidateAll();
         return price;
     }
 
+    @Transactional
     public MedicinePrice update(MedicinePrice price) {
-        return medicinePriceDao.update(price);
+        MedicinePrice updated = medicinePriceDao.update(price);
+        catalog.updateAfterCommit(Collections.singleton(updated.getId()));
+        pdfReportService.invalidateAll();
+        return updated;
+    }
+
+    // A supplier price list, all or nothing; the catalog takes the new prices once it has committed
+    @Transactional
+    public void bulkUpdate(List<MedicinePriceUpdate> updates) {
+        medicinePriceDao.bulkUpdate(updates);
+        catalog.updateAfterCommit(updates.stream().map(MedicinePriceUpdate::getId).collect(Collectors.toList()));
+        pdfReportService.invalidateAll();
     }
 
     public MedicinePrice getById(int id) {
-        return medicinePriceDao.findById(id);
+        MedicinePriceCatalog.Price price = catalog.find(id);
+        return price != null ? price.toEntity() : null;
     }
 
     public List<MedicinePrice> getAll() {
-        return medicinePriceDao.findAll();
+        return catalog.snapshot().all().stream()
+                .map(MedicinePriceCatalog.Price::toEntity)
+                .collect(Collectors.toList());
     }
 
+    @Transactional
     public void delete(int id) {
         medicinePriceDao.delete(id);
+        catalog.updateAfterCommit(Collections.singleton(id));
+        pdfReportService.invalidateAll();
     }
 }
@@ -0,0 +1,21 @@
+package com.medic.medication;
+
+// One line of a supplier price list; quantity and unitMeasure are kept when left out
+public class MedicinePriceUpdate {
+    private int id;
+    private Double price;
+    private Integer quantity;
+    private String unitMeasure;
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public Double getPrice() { return price; }
+    public void setPrice(Double price) { this.price = price; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public String getUnitMeasure() { return unitMeasure; }
+    public void setUnitMeasure(String unitMeasure) { this.unitMeasure = unitMeasure; }
+}
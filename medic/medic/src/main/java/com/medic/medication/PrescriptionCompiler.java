@@ -0,0 +1,186 @@
+package com.medic.medication;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Turns free-text prescriptions into PrescriptionSchedules. Understands intervals ("every 8
+// hours", "q6h", "4 hourly"), frequencies ("twice daily", "3 times a day", "bd", "tds"),
+// single doses ("stat", "once only"), as-needed ("prn") and course limits ("for 5 days",
+// "for 6 doses"). Number words up to twelve are read as digits. Wards reuse a handful of
+// phrasings, so compiled schedules are kept in an LRU keyed by the normalized text. Numbers
+// are read up to MAX_DIGITS digits; a longer one does not match and the phrase is not understood.
+@Component
+public class PrescriptionCompiler {
+
+    // Enough for any real count or interval, and parses without overflow
+    private static final int MAX_DIGITS = 4;
+    private static final String NUMBER = "(\\d{1," + MAX_DIGITS + "})";
+
+    private static final String[] NUMBER_WORDS = {
+            "zero", "one", "two", "three", "four", "five", "six",
+            "seven", "eight", "nine", "ten", "eleven", "twelve"
+    };
+    private static final Pattern NUMBER_WORD = Pattern.compile(
+            "\\b(" + String.join("|", NUMBER_WORDS) + ")\\b");
+
+    private static final Pattern AS_NEEDED = Pattern.compile(
+            "\\b(prn|as needed|as required|when needed|when required|if needed|if required)\\b");
+    private static final Pattern INTERVAL = Pattern.compile(
+            "\\bevery (?:(\\d{1," + MAX_DIGITS + "}(?:\\.\\d{1," + MAX_DIGITS + "})?) ?)?(minutes?|mins?|hours?|hrs?|h|days?|weeks?)\\b");
+    private static final Pattern EVERY_OTHER_DAY = Pattern.compile("\\b(every other day|alternate days)\\b");
+    private static final Pattern Q_INTERVAL = Pattern.compile("\\bq ?" + NUMBER + " ?(h|hr|hrs|hourly)\\b");
+    private static final Pattern HOURLY = Pattern.compile("\\b" + NUMBER + " ?-? ?hourly\\b");
+    private static final Pattern TIMES_PER = Pattern.compile(
+            "\\b(once|twice|thrice|" + NUMBER + " ?(?:x|times?)) ?(?:a |per |each |every )?(day|daily|week|weekly)\\b");
+    private static final Pattern DAILY_ABBREVIATION = Pattern.compile(
+            "\\b(od|qd|daily|nocte|mane|at night|at bedtime|bd|bid|tds|tid|qds|qid|weekly)\\b");
+    private static final Pattern SINGLE = Pattern.compile(
+            "\\b(stat|once only|single dose|1 time only|once|immediately)\\b");
+    private static final Pattern FOR_COURSE = Pattern.compile("\\bfor " + NUMBER + " ?(hours?|hrs?|days?|weeks?|doses?)\\b");
+    private static final Pattern DOSE_COUNT = Pattern.compile("\\bx ?" + NUMBER + " ?doses?\\b");
+
+    private static final long DAY_MINUTES = 24 * 60;
+
+    private final Map<String, PrescriptionSchedule> cache;
+
+    public PrescriptionCompiler(@Value("${medic.administration.schedule-cache-size:10000}") int cacheSize) {
+        this.cache = new LinkedHashMap<String, PrescriptionSchedule>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PrescriptionSchedule> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public PrescriptionSchedule compile(String prescription) {
+        String text = DrugNames.normalize(prescription);
+        if (text == null) {
+            return PrescriptionSchedule.UNRECOGNIZED;
+        }
+        synchronized (cache) {
+            PrescriptionSchedule cached = cache.get(text);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        PrescriptionSchedule schedule = parse(text);
+        synchronized (cache) {
+            cache.put(text, schedule);
+        }
+        return schedule;
+    }
+
+    public int getCachedCount() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    static PrescriptionSchedule parse(String normalizedText) {
+        String text = digits(normalizedText.replace('-', ' ').replace(',', ' ').replaceAll(" +", " "));
+        if (AS_NEEDED.matcher(text).find()) {
+            return PrescriptionSchedule.AS_NEEDED;
+        }
+
+        long intervalMinutes = intervalMinutes(text);
+        int doseCount = 0;
+        long courseMinutes = 0;
+        Matcher course = FOR_COURSE.matcher(text);
+        if (course.find()) {
+            int amount = Integer.parseInt(course.group(1));
+            if (course.group(2).startsWith("dose")) {
+                doseCount = amount;
+            } else {
+                courseMinutes = amount * unitMinutes(course.group(2));
+            }
+        }
+        Matcher count = DOSE_COUNT.matcher(text);
+        if (doseCount == 0 && count.find()) {
+            doseCount = Integer.parseInt(count.group(1));
+        }
+
+        if (intervalMinutes > 0) {
+            return PrescriptionSchedule.every(intervalMinutes, doseCount, courseMinutes);
+        }
+        if (SINGLE.matcher(text).find() || doseCount == 1) {
+            return PrescriptionSchedule.single();
+        }
+        return PrescriptionSchedule.UNRECOGNIZED;
+    }
+
+    // 0 when the text states no interval or frequency
+    private static long intervalMinutes(String text) {
+        Matcher interval = INTERVAL.matcher(text);
+        if (interval.find()) {
+            double amount = interval.group(1) != null ? Double.parseDouble(interval.group(1)) : 1;
+            return Math.round(amount * unitMinutes(interval.group(2)));
+        }
+        if (EVERY_OTHER_DAY.matcher(text).find()) {
+            return 2 * DAY_MINUTES;
+        }
+        Matcher q = Q_INTERVAL.matcher(text);
+        if (q.find()) {
+            return Long.parseLong(q.group(1)) * 60;
+        }
+        Matcher hourly = HOURLY.matcher(text);
+        if (hourly.find()) {
+            return Long.parseLong(hourly.group(1)) * 60;
+        }
+        Matcher timesPer = TIMES_PER.matcher(text);
+        if (timesPer.find()) {
+            long times;
+            switch (timesPer.group(1)) {
+                case "once": times = 1; break;
+                case "twice": times = 2; break;
+                case "thrice": times = 3; break;
+                default: times = Long.parseLong(timesPer.group(2));
+            }
+            long periodMinutes = timesPer.group(3).startsWith("week") ? 7 * DAY_MINUTES : DAY_MINUTES;
+            return times > 0 ? periodMinutes / times : 0;
+        }
+        Matcher abbreviation = DAILY_ABBREVIATION.matcher(text);
+        if (abbreviation.find()) {
+            switch (abbreviation.group(1)) {
+                case "bd": case "bid": return DAY_MINUTES / 2;
+                case "tds": case "tid": return DAY_MINUTES / 3;
+                case "qds": case "qid": return DAY_MINUTES / 4;
+                case "weekly": return 7 * DAY_MINUTES;
+                default: return DAY_MINUTES;
+            }
+        }
+        return 0;
+    }
+
+    private static long unitMinutes(String unit) {
+        if (unit.startsWith("m")) {
+            return 1;
+        }
+        if (unit.startsWith("h")) {
+            return 60;
+        }
+        if (unit.startsWith("d")) {
+            return DAY_MINUTES;
+        }
+        return 7 * DAY_MINUTES;
+    }
+
+    private static String digits(String text) {
+        Matcher word = NUMBER_WORD.matcher(text);
+        StringBuilder result = new StringBuilder();
+        while (word.find()) {
+            for (int number = 0; number < NUMBER_WORDS.length; number++) {
+                if (NUMBER_WORDS[number].equals(word.group(1))) {
+                    word.appendReplacement(result, String.valueOf(number));
+                    break;
+                }
+            }
+        }
+        word.appendTail(result);
+        return result.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.medic.medication;
+
+import java.util.Objects;
+
+// Administration times compiled from a dosage's free-text prescription. Doses are numbered
+// from 0, dose 0 being at the dosage's due time and each next one intervalMinutes later.
+// A course ends after doseCount doses or courseMinutes, whichever comes first; zero means
+// no limit. A single dose has intervalMinutes 0. As-needed (PRN) and unrecognized
+// prescriptions have no fixed times and are never reminded.
+public final class PrescriptionSchedule {
+
+    static final PrescriptionSchedule UNRECOGNIZED = new PrescriptionSchedule(false, false, 0, 0, 0);
+    static final PrescriptionSchedule AS_NEEDED = new PrescriptionSchedule(true, true, 0, 0, 0);
+
+    private final boolean recognized;
+    private final boolean asNeeded;
+    private final long intervalMinutes;
+    private final int doseCount;
+    private final long courseMinutes;
+
+    PrescriptionSchedule(boolean recognized, boolean asNeeded, long intervalMinutes, int doseCount, long courseMinutes) {
+        this.recognized = recognized;
+        this.asNeeded = asNeeded;
+        this.intervalMinutes = intervalMinutes;
+        this.doseCount = doseCount;
+        this.courseMinutes = courseMinutes;
+    }
+
+    static PrescriptionSchedule single() {
+        return new PrescriptionSchedule(true, false, 0, 1, 0);
+    }
+
+    static PrescriptionSchedule every(long intervalMinutes, int doseCount, long courseMinutes) {
+        return new PrescriptionSchedule(true, false, intervalMinutes, doseCount, courseMinutes);
+    }
+
+    public boolean isRecognized() { return recognized; }
+    public boolean isAsNeeded() { return asNeeded; }
+    public long getIntervalMinutes() { return intervalMinutes; }
+    public int getDoseCount() { return doseCount; }
+    public long getCourseMinutes() { return courseMinutes; }
+
+    // Whether the schedule has fixed administration times at all
+    public boolean isTimed() {
+        return recognized && !asNeeded;
+    }
+
+    boolean hasDose(int dose) {
+        if (!isTimed() || dose < 0) {
+            return false;
+        }
+        if (intervalMinutes == 0) {
+            return dose == 0;
+        }
+        return (doseCount == 0 || dose < doseCount)
+                && (courseMinutes == 0 || dose * intervalMinutes < courseMinutes);
+    }
+
+    long doseAt(long startMillis, int dose) {
+        return startMillis + dose * intervalMinutes * 60_000L;
+    }
+
+    // First dose due at or after nowMillis - graceMillis; may be past the end of the course (see
+    // hasDose). The grace keeps dose 0 of a dosage that became due while it was being saved.
+    int firstDoseFrom(long startMillis, long nowMillis, long graceMillis) {
+        long fromMillis = nowMillis - graceMillis;
+        if (fromMillis <= startMillis || intervalMinutes == 0) {
+            return fromMillis <= startMillis ? 0 : 1;
+        }
+        long intervalMillis = intervalMinutes * 60_000L;
+        return (int) Math.min(Integer.MAX_VALUE, (fromMillis - startMillis + intervalMillis - 1) / intervalMillis);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PrescriptionSchedule)) {
+            return false;
+        }
+        PrescriptionSchedule schedule = (PrescriptionSchedule) other;
+        return recognized == schedule.recognized && asNeeded == schedule.asNeeded
+                && intervalMinutes == schedule.intervalMinutes && doseCount == schedule.doseCount
+                && courseMinutes == schedule.courseMinutes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(recognized, asNeeded, intervalMinutes, doseCount, courseMinutes);
+    }
+}
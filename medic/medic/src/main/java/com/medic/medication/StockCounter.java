@@ -0,0 +1,58 @@
+package com.medic.medication;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Live stock of one drug at one dispenser. Every operation is a CAS or an atomic add, so
+// terminals dispensing the same drug never block each other and different drugs never touch
+// the same memory. available + reserved is the quantity on hand.
+class StockCounter {
+
+    private final AtomicLong available;
+    private final AtomicLong reserved = new AtomicLong();
+
+    StockCounter(long onHand) {
+        this.available = new AtomicLong(onHand);
+    }
+
+    // Takes quantity units if that many are available; never lets available go negative
+    boolean take(long quantity) {
+        long current;
+        do {
+            current = available.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!available.compareAndSet(current, current - quantity));
+        return true;
+    }
+
+    // Units taken for a change that could not be recorded, or delivered
+    void giveBack(long quantity) {
+        available.addAndGet(quantity);
+    }
+
+    void reserve(long quantity) {
+        reserved.addAndGet(quantity);
+    }
+
+    // A reservation ends: dispensed (units leave the shelf) or cancelled (units are available again)
+    void endReservation(long quantity, boolean dispensed) {
+        reserved.addAndGet(-quantity);
+        if (!dispensed) {
+            available.addAndGet(quantity);
+        }
+    }
+
+    // On hand as the database has it; this node's reservations stay held against it
+    void reset(long onHand) {
+        available.set(onHand - reserved.get());
+    }
+
+    long getAvailable() {
+        return available.get();
+    }
+
+    long getReserved() {
+        return reserved.get();
+    }
+}
@@ -0,0 +1,25 @@
+package com.medic.medication;
+
+// One drug's stock at a dispenser. onHand counts reserved units
+public class StockLevelDTO {
+    private int dispenserId;
+    private String drugName;
+    private long onHand;
+    private long reserved;
+    private long available;
+
+    public int getDispenserId() { return dispenserId; }
+    public void setDispenserId(int dispenserId) { this.dispenserId = dispenserId; }
+
+    public String getDrugName() { return drugName; }
+    public void setDrugName(String drugName) { this.drugName = drugName; }
+
+    public long getOnHand() { return onHand; }
+    public void setOnHand(long onHand) { this.onHand = onHand; }
+
+    public long getReserved() { return reserved; }
+    public void setReserved(long reserved) { this.reserved = reserved; }
+
+    public long getAvailable() { return available; }
+    public void setAvailable(long available) { this.available = available; }
+}
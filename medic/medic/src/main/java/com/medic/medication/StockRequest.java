@@ -0,0 +1,13 @@
+package com.medic.medication;
+
+// Body of the stock endpoints: quantity is units to dispense or reserve, or a signed adjustment
+public class StockRequest {
+    private String drugName;
+    private Integer quantity;
+
+    public String getDrugName() { return drugName; }
+    public void setDrugName(String drugName) { this.drugName = drugName; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
@@ -0,0 +1,37 @@
+package com.medic.medication;
+
+import java.sql.Timestamp;
+
+// Units set aside for a pending dispense; released automatically if not dispensed by expiresAt
+public class StockReservationDTO {
+    private long reservationId;
+    private int dispenserId;
+    private String drugName;
+    private int quantity;
+    private Timestamp expiresAt;
+
+    public StockReservationDTO() {}
+
+    public StockReservationDTO(long reservationId, int dispenserId, String drugName, int quantity, Timestamp expiresAt) {
+        this.reservationId = reservationId;
+        this.dispenserId = dispenserId;
+        this.drugName = drugName;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    public long getReservationId() { return reservationId; }
+    public void setReservationId(long reservationId) { this.reservationId = reservationId; }
+
+    public int getDispenserId() { return dispenserId; }
+    public void setDispenserId(int dispenserId) { this.dispenserId = dispenserId; }
+
+    public String getDrugName() { return drugName; }
+    public void setDrugName(String drugName) { this.drugName = drugName; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public Timestamp getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Timestamp expiresAt) { this.expiresAt = expiresAt; }
+}
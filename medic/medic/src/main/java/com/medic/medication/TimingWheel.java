@@ -0,0 +1,143 @@
+package com.medic.medication;
+
+import java.util.List;
+
+// Hierarchical timing wheel: four levels of 64 slots, each slot a doubly linked list of timers.
+// Level 0 covers the next 64 ticks one tick per slot, level 1 the next 64^2 ticks 64 ticks per
+// slot, and so on; a timer further out than 64^4 ticks parks in the top level and is re-filed
+// when that slot comes round. Scheduling and cancelling are O(1) whatever the number of timers;
+// advancing costs one slot per tick plus, every 64 ticks, re-filing one slot of the level above.
+// Not thread-safe: the owner serializes access.
+final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickMillis;
+    @SuppressWarnings("unchecked")
+    private final Timer<T>[][] slots = new Timer[LEVELS][SLOTS];
+    // Next tick to process; every earlier tick has fired
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    // Fires on the first advance() at or after deadlineMillis, never before it
+    Timer<T> schedule(long deadlineMillis, T payload) {
+        Timer<T> timer = new Timer<>((deadlineMillis + tickMillis - 1) / tickMillis, payload);
+        file(timer);
+        size++;
+        return timer;
+    }
+
+    // False when the timer already fired or was cancelled
+    boolean cancel(Timer<T> timer) {
+        if (timer == null || timer.level < 0) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    // Processes every tick up to nowMillis and adds the payloads of the timers that fired
+    void advance(long nowMillis, List<T> fired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick <= targetTick) {
+            int index = (int) (currentTick & SLOT_MASK);
+            if (index == 0) {
+                // Pull the next block of each level down, the next level only when this one wrapped
+                for (int level = 1; level < LEVELS; level++) {
+                    int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                    refile(level, slot);
+                    if (slot != 0) {
+                        break;
+                    }
+                }
+            }
+            Timer<T> timer = slots[0][index];
+            slots[0][index] = null;
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                timer.level = -1;
+                timer.prev = null;
+                timer.next = null;
+                fired.add(timer.payload);
+                size--;
+                timer = next;
+            }
+            currentTick++;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void file(Timer<T> timer) {
+        long expires = Math.max(timer.deadlineTick, currentTick);
+        long delta = expires - currentTick;
+        if (delta > MAX_DELTA) {
+            expires = currentTick + MAX_DELTA;
+            delta = MAX_DELTA;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((expires >>> (SLOT_BITS * level)) & SLOT_MASK);
+        timer.level = level;
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = slots[level][slot];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        slots[level][slot] = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            slots[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.level = -1;
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    private void refile(int level, int slot) {
+        Timer<T> timer = slots[level][slot];
+        slots[level][slot] = null;
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            file(timer);
+            timer = next;
+        }
+    }
+
+    static final class Timer<T> {
+        private final long deadlineTick;
+        private final T payload;
+        // -1 once fired or cancelled
+        private int level = -1;
+        private int slot;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(long deadlineTick, T payload) {
+            this.deadlineTick = deadlineTick;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.medic.patient;
+
+import java.util.List;
+
+// One patient in a bulk admission; preferred wards are tried in order before any other ward
+public class BedAllocationRequest {
+    private Integer patientId;
+    private List<Integer> preferredWardIds;
+
+    public Integer getPatientId() {
+        return patientId;
+    }
+    public void setPatientId(Integer patientId) {
+        this.patientId = patientId;
+    }
+    public List<Integer> getPreferredWardIds() {
+        return preferredWardIds;
+    }
+    public void setPreferredWardIds(List<Integer> preferredWardIds) {
+        this.preferredWardIds = preferredWardIds;
+    }
+}
@@ -0,0 +1,92 @@
+package com.medic.patient;
+
+import java.util.List;
+
+public class BedAllocationResultDTO {
+    private int requested;
+    private int allocated;
+    private int unallocated;
+    private long elapsedMillis;
+    private List<Allocation> allocations;
+
+    public int getRequested() {
+        return requested;
+    }
+    public void setRequested(int requested) {
+        this.requested = requested;
+    }
+    public int getAllocated() {
+        return allocated;
+    }
+    public void setAllocated(int allocated) {
+        this.allocated = allocated;
+    }
+    public int getUnallocated() {
+        return unallocated;
+    }
+    public void setUnallocated(int unallocated) {
+        this.unallocated = unallocated;
+    }
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+    public List<Allocation> getAllocations() {
+        return allocations;
+    }
+    public void setAllocations(List<Allocation> allocations) {
+        this.allocations = allocations;
+    }
+
+    // Outcome for the patient at the same position in the request body
+    public static class Allocation {
+        private Integer patientId;
+        private Integer bedId;
+        private Integer wardId;
+        private String bedNumber;
+        private String error;
+
+        public Allocation() {}
+
+        public Allocation(Integer patientId, String error) {
+            this.patientId = patientId;
+            this.error = error;
+        }
+
+        public Integer getPatientId() {
+            return patientId;
+        }
+        public void setPatientId(Integer patientId) {
+            this.patientId = patientId;
+        }
+        public Integer getBedId() {
+            return bedId;
+        }
+        public void setBedId(Integer bedId) {
+            this.bedId = bedId;
+        }
+        public Integer getWardId() {
+            return wardId;
+        }
+        public void setWardId(Integer wardId) {
+            this.wardId = wardId;
+        }
+        public String getBedNumber() {
+            return bedNumber;
+        }
+        public void setBedNumber(String bedNumber) {
+            this.bedNumber = bedNumber;
+        }
+        public String getError() {
+            return error;
+        }
+        public void setError(String error) {
+            this.error = error;
+        }
+        public boolean isSuccess() {
+            return bedId != null;
+        }
+    }
+}
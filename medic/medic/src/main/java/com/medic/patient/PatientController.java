@@ -1,10 +1,15 @@
 package com.medic.patient;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/patients")
@@ -26,11 +31,43 @@ public class PatientController {
         return ResponseEntity.ok(patient);
     }
 
+    // Full graphs for several patients at once: GET /api/patients/batch?ids=1,2,3
+    @GetMapping("/batch")
+    public ResponseEntity<List<PatientDTO>> getPatientsByIds(@RequestParam List<Integer> ids) {
+        return ResponseEntity.ok(patientService.getPatientsByIds(ids));
+    }
+
     @GetMapping
     public ResponseEntity<List<PatientDTO>> getAllPatients() {
         return ResponseEntity.ok(patientService.getAllPatients());
     }
 
+    // Keyset pagination: GET /api/patients?after=<lastSeenId>&limit=N
+    @GetMapping(params = "limit")
+    public ResponseEntity<PatientPageDTO> getPatientPage(
+            @RequestParam(defaultValue = "0") int after,
+            @RequestParam int limit) {
+        return ResponseEntity.ok(patientService.getPatientPage(after, limit));
+    }
+
+    // Name, phone number or date of birth, best matches first: GET /api/patients/search?q=nakato 1990
+    @GetMapping("/search")
+    public ResponseEntity<?> searchPatients(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        if (q.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body("q is required");
+        }
+        return ResponseEntity.ok(patientService.searchPatients(q, limit));
+    }
+
+    // Chunked JSON export of every patient summary, written as it is read
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPatients() {
+        StreamingResponseBody body = patientService::exportPatientSummaries;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Patient> updatePatient(@PathVariable int id, @RequestBody Patient patient) {
         patient.setId(id);
@@ -50,16 +87,46 @@ public class PatientController {
             @PathVariable int patientId, 
             @RequestBody BedAssignmentRequest request) {
         try {
-            patientService.assignBedToPatient(patientId, request.getBedId());
+            patientService.assignBedToPatient(patientId, request.getBedId(), request.isOverrideHold());
             return ResponseEntity.ok().build();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
-    // Request DTO for bed assignment
+    // Bulk admission (mass-casualty): one planning pass and one batched transaction for the list
+    @PostMapping("/bed-allocations")
+    public ResponseEntity<BedAllocationResultDTO> allocateBeds(@RequestBody List<BedAllocationRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(patientService.allocateBeds(requests));
+    }
+
+    // Atomic multi-patient move, e.g. swapping two patients or clearing a bay for a transfer.
+    // Either every move is applied or none is.
+    @PostMapping("/bed-transfers")
+    public ResponseEntity<?> transferBeds(@RequestBody List<BedTransferRequest> transfers) {
+        Map<Integer, Integer> moves = new LinkedHashMap<>();
+        for (BedTransferRequest transfer : transfers) {
+            if (moves.containsKey(transfer.getPatientId())) {
+                return ResponseEntity.badRequest().body("Patient " + transfer.getPatientId() + " appears more than once");
+            }
+            moves.put(transfer.getPatientId(), transfer.getBedId());
+        }
+        try {
+            patientService.transferBeds(moves);
+            return ResponseEntity.ok().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // Request DTO for bed assignment; overrideHold takes the bed even when it is held for a
+    // transfer or another patient
     public static class BedAssignmentRequest {
         private Integer bedId;
+        private boolean overrideHold;
         
         public Integer getBedId() { 
             return bedId; 
@@ -68,5 +135,35 @@ public class PatientController {
         public void setBedId(Integer bedId) { 
             this.bedId = bedId; 
         }
+
+        public boolean isOverrideHold() {
+            return overrideHold;
+        }
+
+        public void setOverrideHold(boolean overrideHold) {
+            this.overrideHold = overrideHold;
+        }
+    }
+
+    // Request DTO for one move of a bed transfer; bedId null takes the patient out of their bed
+    public static class BedTransferRequest {
+        private int patientId;
+        private Integer bedId;
+
+        public int getPatientId() {
+            return patientId;
+        }
+
+        public void setPatientId(int patientId) {
+            this.patientId = patientId;
+        }
+
+        public Integer getBedId() {
+            return bedId;
+        }
+
+        public void setBedId(Integer bedId) {
+            this.bedId = bedId;
+        }
     }
-}
\ No newline at end of file
+}
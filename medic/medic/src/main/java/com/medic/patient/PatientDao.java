@@ -1,119 +1,454 @@
 package com.medic.patient;
 
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
-import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
 
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import com.medic.ward.Bed;
+import com.medic.ward.BedDao;
+import com.medic.ward.BedHoldDao;
+import com.medic.ward.BedOccupancyDao;
+import com.medic.ward.BedDTO;
+import com.medic.ward.WardOccupancyIndex;
 
 @Repository
 public class PatientDao {
 
+    // Keeps IN (...) lists well below MySQL packet and optimizer limits
+    private static final int FETCH_BATCH_SIZE = 500;
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private WardOccupancyIndex occupancyIndex;
+
+    @Autowired
+    private BedOccupancyDao bedOccupancyDao;
+
+    @Autowired
+    private BedHoldDao bedHoldDao;
+
+    @Autowired
+    private BedDao bedDao;
+
     @Transactional
     public void savePatient(Patient patient) {
         entityManager.persist(patient);
+        occupancyIndex.onPatientBed(patient.getId(), patient.getBed() != null ? patient.getBed().getId() : null);
     }
   
     @Transactional
     public Patient getPatientById(int id) {
-        try {
-            String hql = "SELECT p FROM Patient p " +
-                         "LEFT JOIN FETCH p.visits " +
-                         "LEFT JOIN FETCH p.dosages d " +
-                         "LEFT JOIN FETCH d.medicinePrice " +
-                         "LEFT JOIN FETCH p.diagnoses " +
-                         "LEFT JOIN FETCH p.results " +
+        List<Patient> patients = getPatientsByIds(List.of(id));
+        return patients.isEmpty() ? null : patients.get(0);
+    }
+
+    // Loads the patient graph with one query for the root and its to-one associations,
+    // then one IN (...) query per collection. Each collection query re-selects the already
+    // managed patients, so Hibernate attaches the children to them in the persistence context.
+    // Rows returned = patients + visits + dosages + diagnoses + results, instead of their product.
+    @Transactional
+    public List<Patient> getPatientsByIds(Collection<Integer> ids) {
+        List<Patient> patients = new ArrayList<>();
+        if (ids == null || ids.isEmpty()) {
+            return patients;
+        }
+
+        List<Integer> idList = new ArrayList<>(new LinkedHashSet<>(ids));
+        for (int from = 0; from < idList.size(); from += FETCH_BATCH_SIZE) {
+            List<Integer> batch = idList.subList(from, Math.min(from + FETCH_BATCH_SIZE, idList.size()));
+            patients.addAll(fetchGraphBatch(batch));
+        }
+        return patients;
+    }
+
+    @Transactional
+    public List<Patient> getAllPatients() {
+        List<Integer> ids = entityManager.createQuery("SELECT p.id FROM Patient p ORDER BY p.id", Integer.class)
+                .getResultList();
+        return getPatientsByIds(ids);
+    }
+
+    private List<Patient> fetchGraphBatch(List<Integer> ids) {
+        String rootHql = "SELECT DISTINCT p FROM Patient p " +
                          "LEFT JOIN FETCH p.address " +
                          "LEFT JOIN FETCH p.bed " +
                          "LEFT JOIN FETCH p.vitals " +
                          "LEFT JOIN FETCH p.biometrics " +
-                         "WHERE p.id = :id";
-            
-            return entityManager.createQuery(hql, Patient.class)
-                    .setParameter("id", id)
-                    .getSingleResult();
-        } catch (NoResultException e) {
-            return null;
+                         "WHERE p.id IN (:ids) " +
+                         "ORDER BY p.id";
+        List<Patient> patients = fetchPatients(rootHql, ids);
+        if (patients.isEmpty()) {
+            return patients;
         }
+
+        fetchPatients("SELECT DISTINCT p FROM Patient p LEFT JOIN FETCH p.visits WHERE p.id IN (:ids)", ids);
+        fetchPatients("SELECT DISTINCT p FROM Patient p LEFT JOIN FETCH p.dosages d " +
+                      "LEFT JOIN FETCH d.medicinePrice WHERE p.id IN (:ids)", ids);
+        fetchPatients("SELECT DISTINCT p FROM Patient p LEFT JOIN FETCH p.diagnoses WHERE p.id IN (:ids)", ids);
+        fetchPatients("SELECT DISTINCT p FROM Patient p LEFT JOIN FETCH p.results WHERE p.id IN (:ids)", ids);
+        return patients;
     }
-    
-    @Transactional
-    public List<Patient> getAllPatients() {
-        String hql = "SELECT DISTINCT p FROM Patient p " +
-                     "LEFT JOIN FETCH p.visits " +
-                     "LEFT JOIN FETCH p.dosages " +
-                     "LEFT JOIN FETCH p.diagnoses " +
-                     "LEFT JOIN FETCH p.results " +
-                     "LEFT JOIN FETCH p.address " +
-                     "LEFT JOIN FETCH p.bed " +
-                     "LEFT JOIN FETCH p.vitals " +
-                     "LEFT JOIN FETCH p.biometrics";
-        
-        return entityManager.createQuery(hql, Patient.class).getResultList();
+
+    private List<Patient> fetchPatients(String hql, List<Integer> ids) {
+        return entityManager.createQuery(hql, Patient.class)
+                .setParameter("ids", ids)
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .getResultList();
+    }
+
+    // Keyset page of flat summary rows: WHERE id > :afterId ORDER BY id uses the primary key
+    // index directly, so page N costs the same as page 1 and no collections are touched
+    public List<PatientSummaryDTO> getPatientSummaries(int afterId, int limit) {
+        String hql = "SELECT new com.medic.patient.PatientSummaryDTO(" +
+                     "p.id, p.firstName, p.lastName, p.middleName, " +
+                     "p.dateOfBirth, p.gender, p.contactNumber, b.id) " +
+                     "FROM Patient p " +
+                     "LEFT JOIN p.bed b " +
+                     "WHERE p.id > :afterId " +
+                     "ORDER BY p.id";
+
+        return entityManager.createQuery(hql, PatientSummaryDTO.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public List<PatientSummaryDTO> getPatientSummariesByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String hql = "SELECT new com.medic.patient.PatientSummaryDTO(" +
+                     "p.id, p.firstName, p.lastName, p.middleName, " +
+                     "p.dateOfBirth, p.gender, p.contactNumber, b.id) " +
+                     "FROM Patient p " +
+                     "LEFT JOIN p.bed b " +
+                     "WHERE p.id IN (:ids)";
+
+        return entityManager.createQuery(hql, PatientSummaryDTO.class)
+                .setParameter("ids", ids)
+                .getResultList();
     }
 
     @Transactional
     public void updatePatient(Patient patient) {
         entityManager.merge(patient);
+        occupancyIndex.onPatientBed(patient.getId(), patient.getBed() != null ? patient.getBed().getId() : null);
     }
 
     @Transactional
     public void deletePatient(int id) {
         Patient patient = entityManager.find(Patient.class, id);
         if (patient != null) {
+            if (patient.getBed() != null) {
+                bedOccupancyDao.recordMoves(Collections.singletonMap(id, patient.getBed().getId()),
+                        Collections.singletonMap(id, null));
+            }
             entityManager.remove(patient);
+            occupancyIndex.onPatientDeleted(id);
         }
     }
 
+    // Moves a patient into bedId (or out of any bed when null) with plain SQL on two rows.
+    // The patient row is locked first, so concurrent moves of the same patient serialize, and the
+    // bed is claimed with a conditional UPDATE: of two nurses racing for one bed, exactly one
+    // matches "is_occupied = 0" and the other gets "already occupied". No entity graph is loaded.
+    // A bed held for someone else, or for nobody in particular, is only taken with overrideHold.
     @Transactional
-    public void assignBedToPatient(int patientId, Integer bedId) {
-        // Find the patient with bed relationship
-        Patient patient = getPatientById(patientId);
-        if (patient == null) {
-            throw new RuntimeException("Patient not found with id: " + patientId);
+    public void assignBedToPatient(int patientId, Integer bedId, boolean overrideHold) {
+        Integer currentBedId = lockPatientBed(patientId);
+        if (Objects.equals(currentBedId, bedId)) {
+            return;
         }
 
-        // Handle bed assignment or unassignment
-        if (bedId == null) {
-            // Unassign current bed if exists
-            if (patient.getBed() != null) {
-                Bed currentBed = patient.getBed();
-                currentBed.setOccupied(false);
-                entityManager.merge(currentBed); // Update bed occupancy
-                patient.setBed(null);
-                entityManager.merge(patient); // Update patient
+        if (bedId != null) {
+            claimBed(bedId, patientId, overrideHold);
+        }
+        if (currentBedId != null) {
+            releaseBed(currentBedId);
+        }
+        setPatientBed(patientId, bedId);
+        bedOccupancyDao.recordMoves(Collections.singletonMap(patientId, currentBedId),
+                Collections.singletonMap(patientId, bedId));
+        bedDao.evictBeds(Arrays.asList(currentBedId, bedId));
+        occupancyIndex.onAssignment(patientId, currentBedId, bedId);
+    }
+
+    // Applies every move (patientId -> bedId, null to discharge from bed) or none of them.
+    // Current beds are released before any target is claimed, so swaps and rotations between
+    // the moving patients work; targets are claimed in bed-id order to keep lock order stable.
+    @Transactional
+    public void transferBeds(Map<Integer, Integer> moves) {
+        if (moves.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Integer> currentBeds = new TreeMap<>();
+        for (Integer patientId : new TreeSet<>(moves.keySet())) {
+            currentBeds.put(patientId, lockPatientBed(patientId));
+        }
+
+        Map<Integer, Integer> patientsByTarget = new TreeMap<>();
+        moves.forEach((patientId, bedId) -> {
+            if (bedId != null && patientsByTarget.put(bedId, patientId) != null) {
+                throw new RuntimeException("Bed " + bedId + " is requested for more than one patient");
             }
-        } else {
-            // Find the new bed
-            Bed newBed = entityManager.find(Bed.class, bedId);
-            if (newBed == null) {
-                throw new RuntimeException("Bed not found with id: " + bedId);
+        });
+        Set<Integer> targets = patientsByTarget.keySet();
+
+        // bed_id is unique on patient, so clear the movers before re-pointing them
+        for (Map.Entry<Integer, Integer> entry : currentBeds.entrySet()) {
+            if (entry.getValue() != null) {
+                releaseBed(entry.getValue());
+                setPatientBed(entry.getKey(), null);
+            }
+        }
+        patientsByTarget.forEach((bedId, patientId) -> claimBed(bedId, patientId, false));
+        for (Map.Entry<Integer, Integer> move : moves.entrySet()) {
+            if (move.getValue() != null) {
+                setPatientBed(move.getKey(), move.getValue());
             }
+        }
+
+        bedOccupancyDao.recordMoves(currentBeds, moves);
 
-            // Check if bed is already occupied
-            if (newBed.isOccupied()) {
-                throw new RuntimeException("Bed " + bedId + " is already occupied");
+        Set<Integer> touched = new HashSet<>(targets);
+        touched.addAll(currentBeds.values());
+        bedDao.evictBeds(touched);
+        occupancyIndex.onTransfer(currentBeds, moves);
+    }
+
+    // Mass-casualty admission: locks every requested patient, plans all beds in one pass over
+    // the free-bed snapshot, then claims them with one JDBC batch of conditional updates and
+    // re-points the patients with a second batch. A bed someone else took in the meantime
+    // fails its conditional update, and that patient is simply planned again from what is left.
+    @Transactional
+    public BedAllocationResultDTO allocateBeds(List<BedAllocationRequest> requests,
+                                               Map<Integer, Deque<Integer>> freeBedsByWard) {
+        BedAllocationResultDTO.Allocation[] results = new BedAllocationResultDTO.Allocation[requests.size()];
+        Map<Integer, Integer> currentBeds = lockPatientBeds(requests.stream()
+                .map(BedAllocationRequest::getPatientId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(TreeSet::new)));
+
+        // Request positions still waiting for a bed, in request order
+        List<Integer> pending = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Integer patientId = requests.get(i).getPatientId();
+            if (patientId == null) {
+                results[i] = new BedAllocationResultDTO.Allocation(null, "patientId is required");
+            } else if (!seen.add(patientId)) {
+                results[i] = new BedAllocationResultDTO.Allocation(patientId, "Patient appears more than once");
+            } else if (!currentBeds.containsKey(patientId)) {
+                results[i] = new BedAllocationResultDTO.Allocation(patientId, "Patient not found with id: " + patientId);
+            } else if (currentBeds.get(patientId) != null) {
+                results[i] = new BedAllocationResultDTO.Allocation(patientId,
+                        "Patient already in bed " + currentBeds.get(patientId));
+            } else {
+                pending.add(i);
             }
+        }
 
-            // Unassign current bed if exists
-            if (patient.getBed() != null) {
-                Bed currentBed = patient.getBed();
-                currentBed.setOccupied(false);
-                entityManager.merge(currentBed);
+        // Wards without a preference are filled fullest-free first, to keep patients together
+        List<Integer> fallbackWards = new ArrayList<>(freeBedsByWard.keySet());
+        fallbackWards.sort((a, b) -> Integer.compare(freeBedsByWard.get(b).size(), freeBedsByWard.get(a).size()));
+
+        Map<Integer, Integer> claimed = new LinkedHashMap<>();
+        Map<Integer, Integer> wardOfBed = new HashMap<>();
+        while (!pending.isEmpty()) {
+            Map<Integer, Integer> planned = new LinkedHashMap<>();
+            List<Integer> unplaced = new ArrayList<>();
+            for (int index : pending) {
+                BedAllocationRequest request = requests.get(index);
+                Integer wardId = pickWard(request.getPreferredWardIds(), fallbackWards, freeBedsByWard);
+                if (wardId == null) {
+                    results[index] = new BedAllocationResultDTO.Allocation(request.getPatientId(), "No free bed available");
+                    continue;
+                }
+                int bedId = freeBedsByWard.get(wardId).poll();
+                planned.put(index, bedId);
+                wardOfBed.put(bedId, wardId);
+            }
+
+            int[] updated = claimBedBatch(planned.values());
+            int position = 0;
+            for (Map.Entry<Integer, Integer> plan : planned.entrySet()) {
+                if (updated[position++] > 0) {
+                    claimed.put(plan.getKey(), plan.getValue());
+                } else {
+                    unplaced.add(plan.getKey());
+                }
+            }
+            pending = unplaced;
+        }
+
+        Map<Integer, Integer> moves = new LinkedHashMap<>();
+        claimed.forEach((index, bedId) -> moves.put(requests.get(index).getPatientId(), bedId));
+        setPatientBedBatch(moves);
+        bedOccupancyDao.recordMoves(new HashMap<>(), moves);
+
+        int allocated = 0;
+        for (Map.Entry<Integer, Integer> claim : claimed.entrySet()) {
+            BedAllocationResultDTO.Allocation allocation = new BedAllocationResultDTO.Allocation();
+            allocation.setPatientId(requests.get(claim.getKey()).getPatientId());
+            allocation.setBedId(claim.getValue());
+            allocation.setWardId(wardOfBed.get(claim.getValue()));
+            BedDTO bed = occupancyIndex.getBed(claim.getValue());
+            if (bed != null) {
+                allocation.setBedNumber(bed.getBedNumber());
+            }
+            results[claim.getKey()] = allocation;
+            allocated++;
+        }
+
+        bedDao.evictBeds(moves.values());
+        occupancyIndex.onTransfer(new HashMap<>(), moves);
+
+        BedAllocationResultDTO result = new BedAllocationResultDTO();
+        result.setRequested(requests.size());
+        result.setAllocated(allocated);
+        result.setUnallocated(requests.size() - allocated);
+        result.setAllocations(Arrays.asList(results));
+        return result;
+    }
+
+    private Integer pickWard(List<Integer> preferredWardIds, List<Integer> fallbackWards,
+                             Map<Integer, Deque<Integer>> freeBedsByWard) {
+        if (preferredWardIds != null) {
+            for (Integer wardId : preferredWardIds) {
+                Deque<Integer> free = freeBedsByWard.get(wardId);
+                if (free != null && !free.isEmpty()) {
+                    return wardId;
+                }
+            }
+        }
+        for (Integer wardId : fallbackWards) {
+            if (!freeBedsByWard.get(wardId).isEmpty()) {
+                return wardId;
+            }
+        }
+        return null;
+    }
+
+    // patientId -> current bed (null when not in a bed) for every patient that exists, row-locked
+    private Map<Integer, Integer> lockPatientBeds(Collection<Integer> patientIds) {
+        Map<Integer, Integer> beds = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(patientIds);
+        for (int from = 0; from < ids.size(); from += FETCH_BATCH_SIZE) {
+            List<?> rows = entityManager.createNativeQuery(
+                            "SELECT patient_id, bed_id FROM patient WHERE patient_id IN (:ids) FOR UPDATE")
+                    .setParameter("ids", ids.subList(from, Math.min(from + FETCH_BATCH_SIZE, ids.size())))
+                    .getResultList();
+            for (Object row : rows) {
+                Object[] columns = (Object[]) row;
+                beds.put(((Number) columns[0]).intValue(),
+                        columns[1] != null ? ((Number) columns[1]).intValue() : null);
+            }
+        }
+        return beds;
+    }
+
+    private int[] claimBedBatch(Collection<Integer> bedIds) {
+        int[][] counts = new int[1][];
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE bed SET is_occupied = 1 WHERE bed_id = ? AND is_occupied = 0")) {
+                for (Integer bedId : bedIds) {
+                    statement.setInt(1, bedId);
+                    statement.addBatch();
+                }
+                counts[0] = statement.executeBatch();
             }
+        });
+        return counts[0];
+    }
+
+    private void setPatientBedBatch(Map<Integer, Integer> moves) {
+        if (moves.isEmpty()) {
+            return;
+        }
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE patient SET bed_id = ? WHERE patient_id = ?")) {
+                for (Map.Entry<Integer, Integer> move : moves.entrySet()) {
+                    statement.setInt(1, move.getValue());
+                    statement.setInt(2, move.getKey());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
 
-            // Assign new bed
-            newBed.setOccupied(true);
-            entityManager.merge(newBed);
-            patient.setBed(newBed);
-            entityManager.merge(patient);
+    private Integer lockPatientBed(int patientId) {
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT bed_id FROM patient WHERE patient_id = :patientId FOR UPDATE")
+                .setParameter("patientId", patientId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Patient not found with id: " + patientId);
         }
+        Object bedId = rows.get(0);
+        return bedId != null ? ((Number) bedId).intValue() : null;
+    }
+
+    // A bed held for this patient (or whose hold has run out, or any held bed with overrideHold)
+    // is taken over from the hold; it is already marked occupied
+    private void claimBed(int bedId, int patientId, boolean overrideHold) {
+        int claimed = bedUpdate("UPDATE bed SET is_occupied = 1 WHERE bed_id = :bedId AND is_occupied = 0", bedId);
+        if (claimed == 0 && !bedHoldDao.takeOver(bedId, patientId, overrideHold)) {
+            if (entityManager.find(Bed.class, bedId) == null) {
+                throw new RuntimeException("Bed not found with id: " + bedId);
+            }
+            throw new RuntimeException("Bed " + bedId + " is already occupied or held");
+        }
+    }
+
+    private void releaseBed(int bedId) {
+        bedUpdate("UPDATE bed SET is_occupied = 0 WHERE bed_id = :bedId", bedId);
+    }
+
+    private void setPatientBed(int patientId, Integer bedId) {
+        entityManager.createNativeQuery("UPDATE patient SET bed_id = :bedId WHERE patient_id = :patientId")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("")
+                .setParameter("bedId", bedId)
+                .setParameter("patientId", patientId)
+                .executeUpdate();
+    }
+
+    // An empty query space stops Hibernate from dropping the whole second-level cache on a
+    // native update; the touched beds are evicted individually instead
+    private int bedUpdate(String sql, int bedId) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("")
+                .setParameter("bedId", bedId)
+                .executeUpdate();
     }
 }
\ No newline at end of file
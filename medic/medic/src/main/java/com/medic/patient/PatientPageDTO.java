@@ -0,0 +1,32 @@
+package com.medic.patient;
+
+import java.util.List;
+
+// One keyset page of patient summaries; nextAfter is null once the last page is reached
+public class PatientPageDTO {
+    private List<PatientSummaryDTO> patients;
+    private Integer nextAfter;
+
+    public PatientPageDTO() {}
+
+    public PatientPageDTO(List<PatientSummaryDTO> patients, Integer nextAfter) {
+        this.patients = patients;
+        this.nextAfter = nextAfter;
+    }
+
+    public List<PatientSummaryDTO> getPatients() {
+        return patients;
+    }
+
+    public void setPatients(List<PatientSummaryDTO> patients) {
+        this.patients = patients;
+    }
+
+    public Integer getNextAfter() {
+        return nextAfter;
+    }
+
+    public void setNextAfter(Integer nextAfter) {
+        this.nextAfter = nextAfter;
+    }
+}
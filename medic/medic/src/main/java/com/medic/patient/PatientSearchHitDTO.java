@@ -0,0 +1,30 @@
+package com.medic.patient;
+
+// One ranked search result; higher scores match the query better
+public class PatientSearchHitDTO {
+    private PatientSummaryDTO patient;
+    private double score;
+
+    public PatientSearchHitDTO() {}
+
+    public PatientSearchHitDTO(PatientSummaryDTO patient, double score) {
+        this.patient = patient;
+        this.score = score;
+    }
+
+    public PatientSummaryDTO getPatient() {
+        return patient;
+    }
+
+    public void setPatient(PatientSummaryDTO patient) {
+        this.patient = patient;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
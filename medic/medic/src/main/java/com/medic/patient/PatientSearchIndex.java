@@ -0,0 +1,873 @@
+package com.medic.patient;
+
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// In-memory patient search over first, middle and last name, contact number and date of birth.
+// Every patient is reduced to a handful of tokens: lower-case, accent-free name parts, the
+// contact number's digits ("#0772123456", plus its last nine digits so local and international
+// forms match) and the date of birth ("@1990-05-12" and "@1990"). Name prefixes of one or two
+// letters are tokens too ("^j", "^jo"): they match most patients, and a range scan over every
+// name they start would cost more than the rest of the query. Tokens live in a sorted skip
+// list, so a longer prefix is one range scan; a one-edit typo is found by looking up the term's
+// one-edit variants over the letters seen in names instead of scanning. A query intersects its
+// terms' postings (as bitmaps where they are dense) and ranks at most the candidate cap of the
+// patients matching every term, reporting whether anything was cut.
+// Postings are sorted id arrays read through immutable (array, size) views: new ids, which
+// mostly arrive in ascending order, are appended past every published size and any other
+// change copies, so readers never lock and writers (serialized) never disturb what a reader
+// sees. The index is filled in the background at startup, retried with backoff while the
+// database is unavailable, and kept current by PatientService; until the load finishes results
+// may be partial.
+@Component
+public class PatientSearchIndex {
+
+    private static final Pattern DATE_ISO = Pattern.compile("(\\d{4})-(\\d{1,2})-(\\d{1,2})");
+    private static final Pattern DATE_DAY_FIRST = Pattern.compile("(\\d{1,2})[/.-](\\d{1,2})[/.-](\\d{4})");
+    private static final Pattern YEAR = Pattern.compile("(19|20)\\d{2}");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    // Spaces inside a number as typed, e.g. "+256 772 123 456"
+    private static final Pattern DIGIT_GROUP_GAP = Pattern.compile("(?<=[\\d)])\\s+(?=[\\d(])");
+
+    private static final int LOAD_CHUNK_SIZE = 1000;
+    private static final long LOAD_RETRY_INITIAL_MS = 1000;
+    private static final long LOAD_RETRY_MAX_MS = 60_000;
+    private static final int MIN_DIGITS = 3;
+    private static final int LOCAL_DIGITS = 9;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int SHORT_PREFIX = 2;
+    // A term with this many times more ids than the candidates so far is checked per candidate
+    private static final int BROAD_TERM_RATIO = 8;
+
+    private static final byte LAST_NAME = 0;
+    private static final byte FIRST_NAME = 1;
+    private static final byte MIDDLE_NAME = 2;
+    private static final byte CONTACT = 3;
+    private static final byte BIRTH_DATE = 4;
+    private static final double[] FIELD_WEIGHTS = {1.0, 0.9, 0.6, 1.0, 0.8};
+
+    @Autowired
+    private PatientDao patientDao;
+
+    // Patients gathered from the index per query before ranking
+    @Value("${medic.patients.search.max-candidates:5000}")
+    private int maxCandidates;
+
+    // Ids a single term may contribute to the intersection; commoner terms are checked per candidate
+    @Value("${medic.patients.search.max-materialized:200000}")
+    private int maxMaterialized;
+
+    // Failed reads the startup load retries before giving up; the index then stays partial
+    @Value("${medic.patients.search.load-retries:20}")
+    private int loadRetries;
+
+    // token -> sorted patient ids
+    private final ConcurrentSkipListMap<String, Ids> postings = new ConcurrentSkipListMap<>();
+    // Every character of an indexed name token, the alphabet typo variants are built from
+    private volatile char[] nameCharacters = new char[0];
+    // Indexed by patient id, which the database assigns from 1 upwards; replaced when it grows.
+    // Ranking reads an entry per candidate, so this saves a hash lookup and two objects each.
+    private volatile AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(1024);
+    private volatile int size;
+
+    // Guarded by this: patients changed while the startup load runs, which the load must not
+    // overwrite; null once the load has finished or given up
+    private Set<Integer> changedDuringLoad = new HashSet<>();
+    private volatile boolean loaded;
+    private ExecutorService loader;
+
+    @PostConstruct
+    public void init() {
+        loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "patient-search-load");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loader.execute(this::load);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public synchronized void onPatientSaved(int id, String firstName, String middleName, String lastName,
+                                            String contactNumber, Timestamp dateOfBirth) {
+        if (changedDuringLoad != null) {
+            changedDuringLoad.add(id);
+        }
+        put(id, firstName, middleName, lastName, contactNumber, dateOfBirth);
+    }
+
+    public synchronized void onPatientDeleted(int id) {
+        if (changedDuringLoad != null) {
+            changedDuringLoad.add(id);
+        }
+        remove(id);
+    }
+
+    // Best matches first; every term of the query has to match (prefix, whole token or one typo).
+    // The result is complete unless the startup load is still running or the matches had to be
+    // cut to maxCandidates before ranking.
+    public Result search(String query, int limit) {
+        List<Term> terms = parse(query);
+        if (terms.isEmpty()) {
+            return new Result(new ArrayList<>(), loaded);
+        }
+
+        // Each term's postings are merged into one sorted view and the views are intersected, so
+        // the cap applies to patients matching every term. A term spread over several tokens and
+        // dense among the ids in use is marked in a bitmap instead, and bitmaps are intersected
+        // word by word. A term with far more ids than the candidates so far (or than
+        // maxMaterialized) is not merged: checking it per candidate, which the ranking does
+        // anyway, is cheaper. Longer terms tend to be narrower, so go first.
+        List<Term> narrowestFirst = new ArrayList<>(terms);
+        narrowestFirst.sort(Comparator.comparingInt((Term term) -> term.text.length()).reversed());
+        Ids candidates = null;
+        BitSet denseCandidates = null;
+        TermPostings broad = null;
+        for (Term term : narrowestFirst) {
+            long candidateCount = denseCandidates != null ? denseCandidates.cardinality()
+                    : candidates != null ? candidates.size : -1;
+            long mergeLimit = candidateCount < 0 ? maxMaterialized
+                    : Math.min(maxMaterialized, candidateCount * BROAD_TERM_RATIO);
+            TermPostings termPostings = postings(term, mergeLimit);
+            if (termPostings.size > mergeLimit) {
+                if (broad == null) {
+                    broad = termPostings;
+                }
+            } else if (termPostings.views.size() > 1 && termPostings.isDense()) {
+                BitSet marked = termPostings.mark();
+                if (candidates != null) {
+                    candidates = filter(candidates, marked);
+                } else if (denseCandidates == null) {
+                    denseCandidates = marked;
+                } else {
+                    denseCandidates.and(marked);
+                }
+            } else {
+                Ids ids = termPostings.merge(Integer.MAX_VALUE);
+                if (denseCandidates != null) {
+                    candidates = filter(ids, denseCandidates);
+                    denseCandidates = null;
+                } else {
+                    candidates = candidates == null ? ids : intersect(candidates, ids);
+                }
+            }
+        }
+
+        boolean truncated;
+        if (denseCandidates != null) {
+            truncated = denseCandidates.cardinality() > maxCandidates;
+            candidates = lowest(denseCandidates, maxCandidates);
+        } else if (candidates == null) {
+            // Every term is too common to merge: rank the lowest ids of one of them
+            candidates = broad.merge(maxCandidates);
+            truncated = true;
+        } else {
+            truncated = candidates.size > maxCandidates;
+        }
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(Hit.WORST_FIRST);
+        for (int i = 0; i < candidates.size && i < maxCandidates; i++) {
+            int id = candidates.array[i];
+            Entry entry = entry(id);
+            if (entry == null) {
+                continue;
+            }
+            double score = 0;
+            for (Term term : terms) {
+                double termScore = entry.score(term);
+                if (termScore == 0) {
+                    score = 0;
+                    break;
+                }
+                score += termScore;
+            }
+            if (score > 0) {
+                best.add(new Hit(id, score, entry.sortKey));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Hit.WORST_FIRST.reversed());
+        return new Result(hits, loaded && !truncated);
+    }
+
+    // Postings of every token the term may match; gathering stops once they exceed limit
+    private TermPostings postings(Term term, long limit) {
+        TermPostings found = new TermPostings();
+        if (term.kind == Term.Kind.DATE) {
+            found.add(postings.get(term.text), limit);
+            return found;
+        }
+        if (term.kind == Term.Kind.DIGITS) {
+            if (addPrefix("#" + term.text, found, limit) && YEAR.matcher(term.text).matches()) {
+                found.add(postings.get("@" + term.text), limit);
+            }
+            return found;
+        }
+        if (term.text.length() <= SHORT_PREFIX) {
+            found.add(postings.get("^" + term.text), limit);
+            return found;
+        }
+        if (addPrefix(term.text, found, limit) && term.text.length() >= MIN_FUZZY_LENGTH) {
+            for (String token : typoNeighbours(term.text)) {
+                // Neighbours sharing the prefix are already in
+                if (!token.startsWith(term.text) && !found.add(postings.get(token), limit)) {
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    // False once more than limit ids are gathered
+    private boolean addPrefix(String prefix, TermPostings found, long limit) {
+        for (Ids patientIds : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            if (!found.add(patientIds, limit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Ids present in both sorted views. Each id of the smaller view is found by galloping from
+    // the previous match, so a small view against a large one costs little more than the
+    // small one's length.
+    private static Ids intersect(Ids first, Ids second) {
+        Ids smaller = first.size <= second.size ? first : second;
+        Ids larger = smaller == first ? second : first;
+        int[] common = new int[smaller.size];
+        int count = 0;
+        int from = 0;
+        for (int i = 0; i < smaller.size && from < larger.size; i++) {
+            int id = smaller.array[i];
+            int step = 1;
+            while (from + step < larger.size && larger.array[from + step - 1] < id) {
+                step <<= 1;
+            }
+            int at = Arrays.binarySearch(larger.array, from, Math.min(from + step, larger.size), id);
+            if (at >= 0) {
+                common[count++] = id;
+                from = at + 1;
+            } else {
+                from = -at - 1;
+            }
+        }
+        return new Ids(common, count);
+    }
+
+    // Ids of the view that are marked
+    private static Ids filter(Ids ids, BitSet marked) {
+        int[] kept = new int[ids.size];
+        int count = 0;
+        for (int i = 0; i < ids.size; i++) {
+            if (marked.get(ids.array[i])) {
+                kept[count++] = ids.array[i];
+            }
+        }
+        return new Ids(kept, count);
+    }
+
+    // The lowest marked ids, at most max of them
+    private static Ids lowest(BitSet marked, int max) {
+        int[] ids = new int[Math.min(marked.cardinality(), max)];
+        for (int i = 0, id = marked.nextSetBit(0); i < ids.length; i++, id = marked.nextSetBit(id + 1)) {
+            ids[i] = id;
+        }
+        return new Ids(ids, ids.length);
+    }
+
+    // Indexed name tokens within one edit (insert, delete, substitute or swap) of the term. Every
+    // such edit is looked up: a few hundred skip list probes cost far less than the memory an
+    // index of the tokens' own edits takes.
+    private Set<String> typoNeighbours(String term) {
+        char[] alphabet = nameCharacters;
+        Set<String> found = new HashSet<>();
+        for (int i = 0; i <= term.length(); i++) {
+            String before = term.substring(0, i);
+            for (char c : alphabet) {
+                addIfIndexed(before + c + term.substring(i), found);
+            }
+            if (i == term.length()) {
+                break;
+            }
+            String after = term.substring(i + 1);
+            addIfIndexed(before + after, found);
+            for (char c : alphabet) {
+                if (c != term.charAt(i)) {
+                    addIfIndexed(before + c + after, found);
+                }
+            }
+            if (i + 1 < term.length() && term.charAt(i) != term.charAt(i + 1)) {
+                addIfIndexed(before + term.charAt(i + 1) + term.charAt(i) + term.substring(i + 2), found);
+            }
+        }
+        return found;
+    }
+
+    private void addIfIndexed(String token, Set<String> found) {
+        if (postings.containsKey(token)) {
+            found.add(token);
+        }
+    }
+
+    // Read in id order, so after a failure the load carries on from the last chunk it read
+    private void load() {
+        try {
+            int afterId = 0;
+            int failures = 0;
+            List<PatientSummaryDTO> chunk;
+            do {
+                try {
+                    chunk = patientDao.getPatientSummaries(afterId, LOAD_CHUNK_SIZE);
+                    failures = 0;
+                } catch (RuntimeException e) {
+                    if (++failures > loadRetries) {
+                        // Database gone for good: stop tracking changes, results stay partial
+                        synchronized (this) {
+                            changedDuringLoad = null;
+                        }
+                        return;
+                    }
+                    Thread.sleep(Math.min(LOAD_RETRY_MAX_MS, LOAD_RETRY_INITIAL_MS << Math.min(failures - 1, 16)));
+                    chunk = null;
+                    continue;
+                }
+                synchronized (this) {
+                    for (PatientSummaryDTO patient : chunk) {
+                        if (!changedDuringLoad.contains(patient.getId())) {
+                            put(patient.getId(), patient.getFirstName(), patient.getMiddleName(),
+                                    patient.getLastName(), patient.getContactNumber(), patient.getDateOfBirth());
+                        }
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.get(chunk.size() - 1).getId();
+                }
+            } while (chunk == null || chunk.size() == LOAD_CHUNK_SIZE);
+            synchronized (this) {
+                changedDuringLoad = null;
+            }
+            loaded = true;
+        } catch (InterruptedException e) {
+            // Shutting down
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Guarded by this
+    private void put(int id, String firstName, String middleName, String lastName, String contactNumber,
+                     Timestamp dateOfBirth) {
+        remove(id);
+        List<String> tokens = new ArrayList<>();
+        List<Byte> fields = new ArrayList<>();
+        addNameTokens(lastName, LAST_NAME, tokens, fields);
+        addNameTokens(firstName, FIRST_NAME, tokens, fields);
+        addNameTokens(middleName, MIDDLE_NAME, tokens, fields);
+        String digits = contactNumber != null ? contactNumber.replaceAll("\\D", "") : "";
+        if (digits.length() >= MIN_DIGITS) {
+            addToken("#" + digits, CONTACT, tokens, fields);
+            if (digits.length() > LOCAL_DIGITS) {
+                addToken("#" + digits.substring(digits.length() - LOCAL_DIGITS), CONTACT, tokens, fields);
+            }
+        }
+        if (dateOfBirth != null) {
+            LocalDate date = dateOfBirth.toLocalDateTime().toLocalDate();
+            addToken("@" + date, BIRTH_DATE, tokens, fields);
+            addToken("@" + date.getYear(), BIRTH_DATE, tokens, fields);
+        }
+
+        // The entry goes in first: a reader that finds the id in a posting then finds its entry
+        String sortKey = normalize(lastName) + " " + normalize(firstName);
+        setEntry(id, new Entry(tokens, fields, sortKey));
+        for (String token : withShortPrefixes(tokens)) {
+            link(token, id);
+        }
+    }
+
+    // Guarded by this
+    private void remove(int id) {
+        Entry entry = entry(id);
+        if (entry != null) {
+            setEntry(id, null);
+            for (String token : withShortPrefixes(entry.tokens())) {
+                unlink(token, id);
+            }
+        }
+    }
+
+    // The tokens plus the short prefixes of the name tokens, which are linked but left out of
+    // the entry: ranking would only have to step over them
+    private static Set<String> withShortPrefixes(List<String> tokens) {
+        Set<String> linked = new LinkedHashSet<>(tokens);
+        for (String token : tokens) {
+            if (token.charAt(0) != '#' && token.charAt(0) != '@') {
+                for (int length = 1; length <= SHORT_PREFIX && length <= token.length(); length++) {
+                    linked.add("^" + token.substring(0, length));
+                }
+            }
+        }
+        return linked;
+    }
+
+    private Entry entry(int id) {
+        AtomicReferenceArray<Entry> current = entries;
+        return id >= 0 && id < current.length() ? current.get(id) : null;
+    }
+
+    // Guarded by this
+    private void setEntry(int id, Entry entry) {
+        AtomicReferenceArray<Entry> current = entries;
+        if (id >= current.length()) {
+            if (entry == null) {
+                return;
+            }
+            AtomicReferenceArray<Entry> grown = new AtomicReferenceArray<>(Math.max(id + 1, current.length() * 3 / 2));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            entries = current = grown;
+        }
+        Entry previous = current.getAndSet(id, entry);
+        size += (entry != null ? 1 : 0) - (previous != null ? 1 : 0);
+    }
+
+    private void link(String token, int id) {
+        Ids ids = postings.get(token);
+        if (ids != null) {
+            Ids linked = ids.with(id);
+            if (linked != ids) {
+                postings.put(token, linked);
+            }
+            return;
+        }
+        postings.put(token, new Ids(new int[] {id}, 1));
+        if (isName(token)) {
+            addNameCharacters(token);
+        }
+    }
+
+    private void unlink(String token, int id) {
+        Ids ids = postings.get(token);
+        if (ids == null) {
+            return;
+        }
+        Ids unlinked = ids.without(id);
+        if (unlinked == ids) {
+            return;
+        }
+        if (unlinked != null) {
+            postings.put(token, unlinked);
+            return;
+        }
+        postings.remove(token);
+    }
+
+    // Guarded by this
+    private void addNameCharacters(String token) {
+        char[] known = nameCharacters;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (indexOf(known, c) < 0) {
+                known = Arrays.copyOf(known, known.length + 1);
+                known[known.length - 1] = c;
+            }
+        }
+        if (known != nameCharacters) {
+            nameCharacters = known;
+        }
+    }
+
+    private static int indexOf(char[] chars, char c) {
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void addNameTokens(String name, byte field, List<String> tokens, List<Byte> fields) {
+        String normalized = normalize(name);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        for (String part : normalized.split(" ")) {
+            addToken(part, field, tokens, fields);
+        }
+    }
+
+    private static void addToken(String token, byte field, List<String> tokens, List<Byte> fields) {
+        int existing = tokens.indexOf(token);
+        if (existing < 0) {
+            tokens.add(token);
+            fields.add(field);
+        } else if (FIELD_WEIGHTS[field] > FIELD_WEIGHTS[fields.get(existing)]) {
+            fields.set(existing, field);
+        }
+    }
+
+    static List<Term> parse(String query) {
+        List<Term> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        String joined = DIGIT_GROUP_GAP.matcher(query.trim().toLowerCase(Locale.ROOT)).replaceAll("");
+        for (String raw : joined.split("[\\s,]+")) {
+            String date = parseDate(raw);
+            if (date != null) {
+                terms.add(new Term(Term.Kind.DATE, "@" + date));
+                continue;
+            }
+            String digits = raw.replaceAll("[\\s()+-]", "");
+            if (!digits.isEmpty() && digits.chars().allMatch(Character::isDigit)) {
+                if (digits.length() > LOCAL_DIGITS) {
+                    // Country or trunk prefix as typed need not match the stored one
+                    terms.add(new Term(Term.Kind.DIGITS, digits.substring(digits.length() - LOCAL_DIGITS)));
+                } else if (digits.length() >= MIN_DIGITS) {
+                    terms.add(new Term(Term.Kind.DIGITS, digits));
+                }
+                continue;
+            }
+            String name = normalize(raw);
+            for (String part : name.isEmpty() ? new String[0] : name.split(" ")) {
+                terms.add(new Term(Term.Kind.NAME, part));
+            }
+        }
+        return terms;
+    }
+
+    // yyyy-mm-dd, or dd/mm/yyyy with / . or - as separator; null when the text is not a date
+    private static String parseDate(String text) {
+        Matcher iso = DATE_ISO.matcher(text);
+        Matcher dayFirst = DATE_DAY_FIRST.matcher(text);
+        try {
+            if (iso.matches()) {
+                return LocalDate.of(Integer.parseInt(iso.group(1)), Integer.parseInt(iso.group(2)),
+                        Integer.parseInt(iso.group(3))).toString();
+            }
+            if (dayFirst.matches()) {
+                return LocalDate.of(Integer.parseInt(dayFirst.group(3)), Integer.parseInt(dayFirst.group(2)),
+                        Integer.parseInt(dayFirst.group(1))).toString();
+            }
+        } catch (DateTimeException e) {
+            // Not a calendar date
+        }
+        return null;
+    }
+
+    // Lower case, accents removed, anything but letters and digits turned into single spaces
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String plain = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return plain.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private static boolean isName(String token) {
+        return token.length() >= MIN_FUZZY_LENGTH && token.charAt(0) != '#' && token.charAt(0) != '@';
+    }
+
+    // Optimal string alignment distance of at most one: one insert, delete, substitution or swap
+    static boolean withinOneEdit(String a, String b) {
+        return withinOneEdit(a, b, 0, b.length());
+    }
+
+    // The same against b[from, to)
+    private static boolean withinOneEdit(String a, String b, int from, int to) {
+        int bLength = to - from;
+        int lengthDifference = a.length() - bLength;
+        if (Math.abs(lengthDifference) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < a.length() && i < bLength && a.charAt(i) == b.charAt(from + i)) {
+            i++;
+        }
+        if (lengthDifference > 0) {
+            return a.regionMatches(i + 1, b, from + i, bLength - i);
+        }
+        if (lengthDifference < 0) {
+            return b.regionMatches(from + i + 1, a, i, a.length() - i);
+        }
+        if (i >= a.length() - 1) {
+            return true;
+        }
+        if (a.regionMatches(i + 1, b, from + i + 1, a.length() - i - 1)) {
+            return true;
+        }
+        return a.charAt(i) == b.charAt(from + i + 1) && a.charAt(i + 1) == b.charAt(from + i)
+                && a.regionMatches(i + 2, b, from + i + 2, a.length() - i - 2);
+    }
+
+    // Published view of a token's sorted ids. Only array[0, size) belongs to this view; with()
+    // may fill slots past it for a newer view sharing the same array.
+    private static final class Ids {
+        private final int[] array;
+        private final int size;
+
+        private Ids(int[] array, int size) {
+            this.array = array;
+            this.size = size;
+        }
+
+        // This view when id is already present
+        private Ids with(int id) {
+            if (array[size - 1] < id) {
+                if (size < array.length) {
+                    array[size] = id;
+                    return new Ids(array, size + 1);
+                }
+                int[] grown = Arrays.copyOf(array, size + (size >> 1) + 1);
+                grown[size] = id;
+                return new Ids(grown, size + 1);
+            }
+            int at = Arrays.binarySearch(array, 0, size, id);
+            if (at >= 0) {
+                return this;
+            }
+            at = -at - 1;
+            int[] copy = new int[size + 1];
+            System.arraycopy(array, 0, copy, 0, at);
+            copy[at] = id;
+            System.arraycopy(array, at, copy, at + 1, size - at);
+            return new Ids(copy, size + 1);
+        }
+
+        // This view when id is absent, null when id was the last one
+        private Ids without(int id) {
+            int at = Arrays.binarySearch(array, 0, size, id);
+            if (at < 0) {
+                return this;
+            }
+            if (size == 1) {
+                return null;
+            }
+            int[] copy = new int[size - 1];
+            System.arraycopy(array, 0, copy, 0, at);
+            System.arraycopy(array, at + 1, copy, at, size - at - 1);
+            return new Ids(copy, size - 1);
+        }
+    }
+
+    // The posting views a term gathered
+    private static final class TermPostings {
+        private final List<Ids> views = new ArrayList<>();
+        private long size;
+
+        // False once more than limit ids are gathered
+        private boolean add(Ids ids, long limit) {
+            if (ids != null) {
+                views.add(ids);
+                size += ids.size;
+            }
+            return size <= limit;
+        }
+
+        // Dense enough among the ids in use that a bitmap beats sorting them
+        private boolean isDense() {
+            return !views.isEmpty() && size * Long.SIZE >= highest();
+        }
+
+        private int highest() {
+            int highest = 0;
+            for (Ids ids : views) {
+                highest = Math.max(highest, ids.array[ids.size - 1]);
+            }
+            return highest;
+        }
+
+        private BitSet mark() {
+            BitSet marked = new BitSet(highest() + 1);
+            for (Ids ids : views) {
+                for (int i = 0; i < ids.size; i++) {
+                    marked.set(ids.array[i]);
+                }
+            }
+            return marked;
+        }
+
+        // The lowest distinct ids of all views, at most max of them
+        private Ids merge(int max) {
+            if (views.isEmpty()) {
+                return new Ids(new int[0], 0);
+            }
+            if (views.size() == 1) {
+                Ids only = views.get(0);
+                return new Ids(only.array, Math.min(only.size, max));
+            }
+            if (!isDense()) {
+                int[] all = new int[(int) size];
+                int at = 0;
+                for (Ids ids : views) {
+                    System.arraycopy(ids.array, 0, all, at, ids.size);
+                    at += ids.size;
+                }
+                Arrays.sort(all);
+                int distinct = 0;
+                for (int i = 0; i < all.length && distinct < max; i++) {
+                    if (distinct == 0 || all[i] != all[distinct - 1]) {
+                        all[distinct++] = all[i];
+                    }
+                }
+                return new Ids(all, distinct);
+            }
+            return lowest(mark(), max);
+        }
+    }
+
+    static final class Term {
+        enum Kind { NAME, DIGITS, DATE }
+
+        private final Kind kind;
+        private final String text;
+
+        private Term(Kind kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+    }
+
+    // A patient's tokens packed into one string, each as its field's digit, the token and a
+    // space (tokens never contain one), so ranking reads a single object per candidate
+    private static final class Entry {
+        private final String tokens;
+        private final String sortKey;
+
+        private Entry(List<String> tokens, List<Byte> fields, String sortKey) {
+            StringBuilder packed = new StringBuilder();
+            for (int i = 0; i < tokens.size(); i++) {
+                packed.append((char) ('0' + fields.get(i))).append(tokens.get(i)).append(' ');
+            }
+            this.tokens = packed.toString();
+            this.sortKey = sortKey;
+        }
+
+        private List<String> tokens() {
+            List<String> unpacked = new ArrayList<>();
+            for (int from = 0; from < tokens.length(); ) {
+                int to = tokens.indexOf(' ', from);
+                unpacked.add(tokens.substring(from + 1, to));
+                from = to + 1;
+            }
+            return unpacked;
+        }
+
+        // Best match of the term among this patient's tokens, 0 for none. A whole token beats
+        // a prefix, a longer share of the token beats a shorter one, and a typo scores lowest.
+        private double score(Term term) {
+            double best = 0;
+            for (int from = 0; from < tokens.length(); ) {
+                int to = tokens.indexOf(' ', from);
+                double match = match(term, from + 1, to) * FIELD_WEIGHTS[tokens.charAt(from) - '0'];
+                best = Math.max(best, match);
+                from = to + 1;
+            }
+            return best;
+        }
+
+        // Score of the token at tokens[from, to); a term never holds a space, so comparing from
+        // the token's start cannot run on into the next token
+        private double match(Term term, int from, int to) {
+            String text = term.text;
+            int length = to - from;
+            char first = tokens.charAt(from);
+            switch (term.kind) {
+                case DATE:
+                    return length == text.length() && tokens.startsWith(text, from) ? 100 : 0;
+                case DIGITS:
+                    if (first == '@' && length == text.length() + 1 && tokens.startsWith(text, from + 1)) {
+                        return 80;
+                    }
+                    if (first == '#' && tokens.startsWith(text, from + 1)) {
+                        return length == text.length() + 1 ? 100 : 60 + 30.0 * text.length() / (length - 1);
+                    }
+                    return 0;
+                default:
+                    if (first == '#' || first == '@') {
+                        return 0;
+                    }
+                    if (tokens.startsWith(text, from)) {
+                        return length == text.length() ? 100 : 60 + 30.0 * text.length() / length;
+                    }
+                    if (text.length() >= MIN_FUZZY_LENGTH && withinOneEdit(text, tokens, from, to)) {
+                        return 40;
+                    }
+                    return 0;
+            }
+        }
+    }
+
+    public static final class Hit {
+        // Lowest score first, ties broken by name then id so the order is stable
+        private static final Comparator<Hit> WORST_FIRST = Comparator
+                .comparingDouble((Hit hit) -> hit.score)
+                .thenComparing((Hit hit) -> hit.sortKey, Comparator.reverseOrder())
+                .thenComparing((Hit hit) -> hit.id, Comparator.reverseOrder());
+
+        private final int id;
+        private final double score;
+        private final String sortKey;
+
+        private Hit(int id, double score, String sortKey) {
+            this.id = id;
+            this.score = score;
+            this.sortKey = sortKey;
+        }
+
+        public int getId() { return id; }
+        public double getScore() { return score; }
+    }
+
+    public static final class Result {
+        private final List<Hit> hits;
+        private final boolean complete;
+
+        private Result(List<Hit> hits, boolean complete) {
+            this.hits = hits;
+            this.complete = complete;
+        }
+
+        public List<Hit> getHits() { return hits; }
+        // False when a patient matching the query may be missing from the hits
+        public boolean isComplete() { return complete; }
+    }
+}
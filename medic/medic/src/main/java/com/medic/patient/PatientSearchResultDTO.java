@@ -0,0 +1,33 @@
+package com.medic.patient;
+
+import java.util.List;
+
+// Ranked search hits; complete is false while the index is still loading or when more patients
+// matched than could be ranked, in which case a narrower query may find others
+public class PatientSearchResultDTO {
+    private List<PatientSearchHitDTO> hits;
+    private boolean complete;
+
+    public PatientSearchResultDTO() {}
+
+    public PatientSearchResultDTO(List<PatientSearchHitDTO> hits, boolean complete) {
+        this.hits = hits;
+        this.complete = complete;
+    }
+
+    public List<PatientSearchHitDTO> getHits() {
+        return hits;
+    }
+
+    public void setHits(List<PatientSearchHitDTO> hits) {
+        this.hits = hits;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+}
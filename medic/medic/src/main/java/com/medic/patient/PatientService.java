@@ -1,9 +1,16 @@
 package com.medic.patient;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,6 +19,7 @@ import com.medic.medication.Dosage;
 import com.medic.medication.DosageDTO;
 import com.medic.medication.MedicinePrice;
 import com.medic.medication.MedicinePriceDTO;
+import com.medic.report.PdfReportService;
 import com.medic.result.Diagnosis;
 import com.medic.result.DiagnosisDTO;
 import com.medic.result.Result;
@@ -22,17 +30,34 @@ import com.medic.vitals.Vitals;
 import com.medic.vitals.VitalsDTO;
 import com.medic.ward.Bed;
 import com.medic.ward.BedDTO;
+import com.medic.ward.WardOccupancyIndex;
 import com.medic.visit.Visit;
 import com.medic.visit.VisitDto;
 
 @Service
 public class PatientService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    private static final int MAX_SEARCH_RESULTS = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @Autowired
     private PatientDao patientDao;
 
+    @Autowired
+    private WardOccupancyIndex occupancyIndex;
+
+    @Autowired
+    private PatientSearchIndex searchIndex;
+
+    @Autowired
+    private PdfReportService pdfReportService;
+
     public void savePatient(Patient patient) {
         patientDao.savePatient(patient);
+        indexPatient(patient);
     }
 
     @Transactional(readOnly = true)
@@ -43,24 +68,104 @@ public class PatientService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public PatientPageDTO getPatientPage(int afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<PatientSummaryDTO> patients = patientDao.getPatientSummaries(afterId, pageSize);
+        Integer nextAfter = patients.size() < pageSize ? null : patients.get(patients.size() - 1).getId();
+        return new PatientPageDTO(patients, nextAfter);
+    }
+
+    // Writes every patient summary as one JSON array, walking the table in keyset chunks
+    // so only EXPORT_CHUNK_SIZE rows are ever held in memory at a time
+    public void exportPatientSummaries(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartArray();
+            int afterId = 0;
+            List<PatientSummaryDTO> chunk;
+            do {
+                chunk = patientDao.getPatientSummaries(afterId, EXPORT_CHUNK_SIZE);
+                for (PatientSummaryDTO patient : chunk) {
+                    generator.writeObject(patient);
+                }
+                generator.flush();
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.get(chunk.size() - 1).getId();
+                }
+            } while (chunk.size() == EXPORT_CHUNK_SIZE);
+            generator.writeEndArray();
+        }
+    }
+
     @Transactional(readOnly = true)
     public PatientDTO getPatientById(int id) {
         Patient patient = patientDao.getPatientById(id);
         return convertToDTO(patient);
     }
 
+    @Transactional(readOnly = true)
+    public List<PatientDTO> getPatientsByIds(List<Integer> ids) {
+        return patientDao.getPatientsByIds(ids).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
     public void updatePatient(Patient patient) {
         patientDao.updatePatient(patient);
+        indexPatient(patient);
+        pdfReportService.invalidatePatient(patient.getId());
     }
 
     public void deletePatient(int id) {
         patientDao.deletePatient(id);
+        searchIndex.onPatientDeleted(id);
+        pdfReportService.forgetPatient(id);
+    }
+
+    // Ranked by the in-memory index; only the hits' summaries are read from the database
+    @Transactional(readOnly = true)
+    public PatientSearchResultDTO searchPatients(String query, int limit) {
+        PatientSearchIndex.Result result = searchIndex.search(query, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
+        List<PatientSearchIndex.Hit> hits = result.getHits();
+        List<Integer> ids = hits.stream().map(PatientSearchIndex.Hit::getId).collect(Collectors.toList());
+        Map<Integer, PatientSummaryDTO> summaries = new HashMap<>();
+        for (PatientSummaryDTO summary : patientDao.getPatientSummariesByIds(ids)) {
+            summaries.put(summary.getId(), summary);
+        }
+        List<PatientSearchHitDTO> results = new ArrayList<>();
+        for (PatientSearchIndex.Hit hit : hits) {
+            PatientSummaryDTO summary = summaries.get(hit.getId());
+            if (summary != null) {
+                results.add(new PatientSearchHitDTO(summary, hit.getScore()));
+            }
+        }
+        return new PatientSearchResultDTO(results, result.isComplete());
     }
 
     // Add this method for bed assignment
     @Transactional
-    public void assignBedToPatient(int patientId, Integer bedId) {
-        patientDao.assignBedToPatient(patientId, bedId);
+    public void assignBedToPatient(int patientId, Integer bedId, boolean overrideHold) {
+        patientDao.assignBedToPatient(patientId, bedId, overrideHold);
+    }
+
+    // Plans and claims beds for a whole incident's worth of patients in one transaction
+    public BedAllocationResultDTO allocateBeds(List<BedAllocationRequest> requests) {
+        long start = System.nanoTime();
+        BedAllocationResultDTO result = patientDao.allocateBeds(requests, occupancyIndex.getFreeBedsByWard());
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    // All moves commit together or not at all; the map keeps the request order
+    public void transferBeds(Map<Integer, Integer> moves) {
+        patientDao.transferBeds(moves);
+    }
+
+    // The DAO methods commit on return, so the index only ever sees committed patients
+    private void indexPatient(Patient patient) {
+        searchIndex.onPatientSaved(patient.getId(), patient.getFirstName(), patient.getMiddleName(),
+                patient.getLastName(), patient.getContactNumber(), patient.getDateOfBirth());
     }
 
     // Main conversion method from Patient entity to PatientDTO
@@ -0,0 +1,96 @@
+package com.medic.patient;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+// Flat patient row used by list/export endpoints - no collections, no nested entities
+public class PatientSummaryDTO {
+    private int id;
+    private String firstName;
+    private String lastName;
+    private String middleName;
+    private Timestamp dateOfBirth;
+    private String gender;
+    private String contactNumber;
+    private Integer bedId;
+
+    public PatientSummaryDTO() {}
+
+    // Used by the JPQL constructor expression in PatientDao, which types the timestamp
+    // column as java.util.Date
+    public PatientSummaryDTO(int id, String firstName, String lastName, String middleName,
+                             Date dateOfBirth, String gender, String contactNumber, Integer bedId) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.middleName = middleName;
+        this.dateOfBirth = dateOfBirth != null ? new Timestamp(dateOfBirth.getTime()) : null;
+        this.gender = gender;
+        this.contactNumber = contactNumber;
+        this.bedId = bedId;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getMiddleName() {
+        return middleName;
+    }
+
+    public void setMiddleName(String middleName) {
+        this.middleName = middleName;
+    }
+
+    public Timestamp getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public void setDateOfBirth(Timestamp dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+
+    public String getGender() {
+        return gender;
+    }
+
+    public void setGender(String gender) {
+        this.gender = gender;
+    }
+
+    public String getContactNumber() {
+        return contactNumber;
+    }
+
+    public void setContactNumber(String contactNumber) {
+        this.contactNumber = contactNumber;
+    }
+
+    public Integer getBedId() {
+        return bedId;
+    }
+
+    public void setBedId(Integer bedId) {
+        this.bedId = bedId;
+    }
+}
@@ -0,0 +1,173 @@
+package com.medic.report;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Content-addressed store for rendered PDFs: the key is a hash of the report's clinical data,
+// so identical content is rendered once and a stale entry can never be served for new data.
+// Memory tier is a byte-bounded LRU; the disk tier keeps renders across restarts.
+@Component
+public class PdfReportCache {
+
+    private static final String SUFFIX = ".pdf";
+
+    @Value("${medic.report.pdf-cache.memory-mb:64}")
+    private long memoryLimitMb;
+
+    @Value("${medic.report.pdf-cache.disk-mb:1024}")
+    private long diskLimitMb;
+
+    @Value("${medic.report.pdf-cache.dir:${java.io.tmpdir}/medic-pdf-cache}")
+    private String directory;
+
+    private Path root;
+    private long memoryLimitBytes;
+    private long memoryBytes;
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() throws IOException {
+        memoryLimitBytes = memoryLimitMb * 1024 * 1024;
+        root = Paths.get(directory);
+        Files.createDirectories(root);
+        try (Stream<Path> files = Files.list(root)) {
+            diskBytes.set(files.filter(f -> f.toString().endsWith(SUFFIX)).mapToLong(this::sizeOf).sum());
+        }
+    }
+
+    public byte[] get(String hash) {
+        synchronized (memory) {
+            byte[] pdf = memory.get(hash);
+            if (pdf != null) {
+                memoryHits.increment();
+                return pdf;
+            }
+        }
+
+        Path file = root.resolve(hash + SUFFIX);
+        try {
+            byte[] pdf = Files.readAllBytes(file);
+            diskHits.increment();
+            putInMemory(hash, pdf);
+            return pdf;
+        } catch (IOException e) {
+            misses.increment();
+            return null;
+        }
+    }
+
+    public void put(String hash, byte[] pdf) {
+        putInMemory(hash, pdf);
+
+        Path file = root.resolve(hash + SUFFIX);
+        if (Files.exists(file)) {
+            return;
+        }
+        try {
+            // Write then rename, so a reader never sees a half-written file
+            Path temp = Files.createTempFile(root, hash, ".tmp");
+            Files.write(temp, pdf);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            if (diskBytes.addAndGet(pdf.length) > diskLimitMb * 1024 * 1024) {
+                pruneDisk();
+            }
+        } catch (IOException e) {
+            // The disk tier is best effort; the memory copy still serves this node
+        }
+    }
+
+    private void putInMemory(String hash, byte[] pdf) {
+        if (pdf.length > memoryLimitBytes) {
+            return;
+        }
+        synchronized (memory) {
+            byte[] previous = memory.put(hash, pdf);
+            memoryBytes += pdf.length - (previous != null ? previous.length : 0);
+            Iterator<Map.Entry<String, byte[]>> eldest = memory.entrySet().iterator();
+            while (memoryBytes > memoryLimitBytes && eldest.hasNext()) {
+                memoryBytes -= eldest.next().getValue().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    // Drops the least recently written files until the tier is back under 90% of its limit
+    private synchronized void pruneDisk() throws IOException {
+        long target = diskLimitMb * 1024 * 1024 * 9 / 10;
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(root)) {
+            files = stream.filter(f -> f.toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparingLong(this::lastModified))
+                    .collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            if (diskBytes.get() <= target) {
+                break;
+            }
+            long size = sizeOf(file);
+            if (Files.deleteIfExists(file)) {
+                diskBytes.addAndGet(-size);
+            }
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.sum();
+    }
+
+    public long getDiskHits() {
+        return diskHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getMemoryBytes() {
+        synchronized (memory) {
+            return memoryBytes;
+        }
+    }
+
+    public long getDiskBytes() {
+        return diskBytes.get();
+    }
+
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
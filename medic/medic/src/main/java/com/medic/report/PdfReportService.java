@@ -9,17 +9,305 @@ import com.itextpdf.layout.properties.UnitValue;
 import com.medic.medication.DosageDTO;
 import com.medic.result.DiagnosisDTO;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.io.ByteArrayOutputStream;
-import java.time.format.DateTimeFormatter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 @Service
 public class PdfReportService {
 
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private PdfReportCache pdfCache;
+
+    @Value("${medic.report.prerender-threads:2}")
+    private int prerenderThreads;
+
+    // Patients whose last render and version are remembered; beyond this, entries are dropped
+    @Value("${medic.report.tracked-patients:10000}")
+    private int trackedPatients;
+
+    // reportDate changes on every build, so the hash takes the clinical content plus the day
+    // the report is dated (all the PDF prints of it) rather than the timestamp
+    @JsonIgnoreProperties({"reportDate"})
+    private abstract static class ClinicalContentMixin {
+    }
+
+    private final ObjectMapper hashMapper = new ObjectMapper().addMixIn(Report.class, ClinicalContentMixin.class);
+
+    // Stamped from one counter on every clinical write for a patient; invalidateAll() bumps the
+    // epoch instead. A patient without an entry is at versionFloor, which is raised to a dropped
+    // entry's stamp before the entry goes, so dropping one can only force a re-render.
+    private final ConcurrentHashMap<Integer, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong stamps = new AtomicLong();
+    private final AtomicLong versionFloor = new AtomicLong();
+    private final AtomicLong epoch = new AtomicLong();
+
+    // Last rendered hash per patient, valid while version and epoch still match.
+    // Patients in this map are the ones somebody has opened, so they are pre-rendered on change.
+    private final ConcurrentHashMap<Integer, PdfPointer> pointers = new ConcurrentHashMap<>();
+    private final Set<Integer> pendingPrerender = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor prerenderPool;
+
+    @PostConstruct
+    public void startPrerenderPool() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        prerenderPool = new ThreadPoolExecutor(prerenderThreads, prerenderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1_000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-prerender-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void stopPrerenderPool() {
+        prerenderPool.shutdownNow();
+    }
+
+    public static class CachedPdf {
+        private final String hash;
+        private final byte[] content;
+
+        public CachedPdf(String hash, byte[] content) {
+            this.hash = hash;
+            this.content = content;
+        }
+
+        public String getHash() { return hash; }
+        public byte[] getContent() { return content; }
+    }
+
+    private static class PdfPointer {
+        private final long version;
+        private final long epoch;
+        private final LocalDate reportDay;
+        private final String hash;
+
+        private PdfPointer(long version, long epoch, LocalDate reportDay, String hash) {
+            this.version = version;
+            this.epoch = epoch;
+            this.reportDay = reportDay;
+            this.hash = hash;
+        }
+    }
+
+    // Serves a patient's PDF from cache when nothing changed since the last render; otherwise
+    // rebuilds the report in-process and only re-renders if its content hash is new.
+    // Returns null when the patient does not exist.
+    public CachedPdf getPatientPdf(int patientId) {
+        long version = version(patientId);
+        long currentEpoch = epoch.get();
+
+        PdfPointer pointer = pointers.get(patientId);
+        // A render from an earlier day would print a stale report date
+        if (pointer != null && pointer.version == version && pointer.epoch == currentEpoch
+                && pointer.reportDay.equals(LocalDate.now())) {
+            byte[] cached = pdfCache.get(pointer.hash);
+            if (cached != null) {
+                return new CachedPdf(pointer.hash, cached);
+            }
+        }
+
+        Report report = reportService.generateReportFromPatientId(patientId, ReportService.ReportSource.DAO);
+        if (report == null) {
+            return null;
+        }
+        String hash = contentHash(report);
+        byte[] pdf = pdfCache.get(hash);
+        if (pdf == null) {
+            pdf = generatePdfReport(report);
+            pdfCache.put(hash, pdf);
+        }
+        // Stored with the version read before the build, so a write during the build leaves it stale
+        pointers.put(patientId, new PdfPointer(version, currentEpoch, reportDay(report), hash));
+        trim(pointers);
+        return new CachedPdf(hash, pdf);
+    }
+
+    // Called by services that change the patient or their vitals, biometrics, diagnoses, dosages
+    // or results. A null patient (e.g. an update that did not carry one) invalidates every patient.
+    public void invalidatePatient(Integer patientId) {
+        afterCommit(() -> applyInvalidation(patientId));
+    }
+
+    // Changes that reach every report, such as medicine prices
+    public void invalidateAll() {
+        invalidatePatient(null);
+    }
+
+    // Patient deleted: nothing of theirs is served or kept any more
+    public void forgetPatient(int patientId) {
+        afterCommit(() -> {
+            pointers.remove(patientId);
+            dropVersion(patientId);
+        });
+    }
+
+    private void applyInvalidation(Integer patientId) {
+        if (patientId == null) {
+            epoch.incrementAndGet();
+            pointers.keySet().forEach(this::schedulePrerender);
+            return;
+        }
+        versions.put(patientId, stamps.incrementAndGet());
+        if (versions.size() > trackedPatients) {
+            for (Integer tracked : versions.keySet()) {
+                if (versions.size() <= trackedPatients) {
+                    break;
+                }
+                if (!tracked.equals(patientId)) {
+                    dropVersion(tracked);
+                }
+            }
+        }
+        if (pointers.containsKey(patientId)) {
+            schedulePrerender(patientId);
+        }
+    }
+
+    private long version(int patientId) {
+        Long version = versions.get(patientId);
+        return version != null ? version : versionFloor.get();
+    }
+
+    private void dropVersion(int patientId) {
+        Long version = versions.get(patientId);
+        if (version != null) {
+            versionFloor.accumulateAndGet(version, Math::max);
+            versions.remove(patientId, version);
+        }
+    }
+
+    // Any entries will do; a dropped pointer only costs a report build on the next request
+    private void trim(ConcurrentHashMap<Integer, PdfPointer> map) {
+        for (Integer patientId : map.keySet()) {
+            if (map.size() <= trackedPatients) {
+                return;
+            }
+            map.remove(patientId);
+        }
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private void schedulePrerender(int patientId) {
+        // A burst of writes for one patient collapses into a single queued render
+        if (!pendingPrerender.add(patientId)) {
+            return;
+        }
+        prerenderPool.execute(() -> {
+            pendingPrerender.remove(patientId);
+            try {
+                if (getPatientPdf(patientId) == null) {
+                    pointers.remove(patientId);
+                }
+            } catch (RuntimeException e) {
+                pointers.remove(patientId);
+            }
+        });
+        if (prerenderPool.getQueue().remainingCapacity() == 0) {
+            // Queue full: the task may have been discarded, let a later change retry it
+            pendingPrerender.remove(patientId);
+        }
+    }
+
+    private static LocalDate reportDay(Report report) {
+        return report.getReportDate() != null ? report.getReportDate().toLocalDateTime().toLocalDate() : LocalDate.now();
+    }
+
+    private String contentHash(Report report) {
+        try {
+            JsonNode content = canonicalize(hashMapper.valueToTree(report));
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(reportDay(report).toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(hashMapper.writeValueAsBytes(content)));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to hash report content", e);
+        }
+    }
+
+    // The report's collections are HashSets of DTOs without equals/hashCode, so their iteration
+    // order changes between builds; sorting array elements makes equal content hash equally
+    private JsonNode canonicalize(JsonNode node) {
+        if (node.isArray()) {
+            List<JsonNode> elements = new ArrayList<>();
+            node.forEach(element -> elements.add(canonicalize(element)));
+            elements.sort(Comparator.comparing(JsonNode::toString));
+            ArrayNode sorted = hashMapper.createArrayNode();
+            sorted.addAll(elements);
+            return sorted;
+        }
+        if (node.isObject()) {
+            ObjectNode object = (ObjectNode) node;
+            object.fieldNames().forEachRemaining(name -> object.set(name, canonicalize(object.get(name))));
+        }
+        return node;
+    }
+
+    // Buffered mode: the finished document is held in memory, which the PDF cache needs
     public byte[] generatePdfReport(Report report) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfWriter writer = new PdfWriter(baos);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writePdfReport(report, baos);
+        return baos.toByteArray();
+    }
+
+    // Streaming mode: the document is written into the caller's stream instead of a byte[], so a
+    // large report is never held whole on the server. The caller owns and closes the stream.
+    public void streamPdfReport(Report report, OutputStream out) {
+        writePdfReport(report, out);
+    }
+
+    // iText's Document flushes each finished page to the writer by default, so the bytes reach
+    // the target stream as pages are laid out whichever mode is used
+    private void writePdfReport(Report report, OutputStream out) {
+        try {
+            PdfWriter writer = new PdfWriter(out);
+            writer.setCloseStream(false);
             PdfDocument pdfDoc = new PdfDocument(writer);
             Document document = new Document(pdfDoc);
 
@@ -37,8 +325,8 @@ public class PdfReportService {
             addTableRow(patientTable, "Patient ID:", String.valueOf(report.getId()));
             addTableRow(patientTable, "Gender:", report.getGender());
             addTableRow(patientTable, "Age:", report.getAge() + " years");
-            addTableRow(patientTable, "Report Date:", 
-                report.getReportDate().toLocalDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+            // Day only: it is part of the cache key, a time would make every render unique
+            addTableRow(patientTable, "Report Date:", reportDay(report).toString());
             document.add(patientTable);
             document.add(new Paragraph("\n"));
 
@@ -109,7 +397,6 @@ public class PdfReportService {
             }
 
             document.close();
-            return baos.toByteArray();
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate PDF report", e);
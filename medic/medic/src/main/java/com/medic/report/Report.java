@@ -5,6 +5,7 @@ import java.time.LocalDate;
 import java.time.Period;
 import java.util.Set;
 
+import com.medic.alert.VitalsThresholds;
 import com.medic.medication.DosageDTO;
 import com.medic.result.DiagnosisDTO;
 import com.medic.result.ResultDTO;
@@ -56,14 +57,15 @@ public class Report {
     }
 
     public void evaluateCriticalVitals() {
+        evaluateCriticalVitals(VitalsThresholds.defaults());
+    }
+
+    public void evaluateCriticalVitals(VitalsThresholds thresholds) {
         if (vitals != null) {
-            hasCriticalVitals = 
-                vitals.getTemperature() > 39.0 || vitals.getTemperature() < 35.0 ||
-                vitals.getHeartRate() > 120 || vitals.getHeartRate() < 50 ||
-                vitals.getBloodPressureSystolic() > 180 || vitals.getBloodPressureDiastolic() > 120 ||
-                vitals.getBloodPressureSystolic() < 90 || vitals.getBloodPressureDiastolic() < 60 ||
-                vitals.getRespiratoryRate() > 30 || vitals.getRespiratoryRate() < 10 ||
-                vitals.getOxygenSaturation() < 92;
+            hasCriticalVitals = thresholds.isCritical(
+                vitals.getTemperature(), vitals.getHeartRate(),
+                vitals.getBloodPressureSystolic(), vitals.getBloodPressureDiastolic(),
+                vitals.getRespiratoryRate(), vitals.getOxygenSaturation());
         }
     }
 
@@ -6,8 +6,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -20,10 +22,14 @@ public class ReportController {
     @Autowired
     private PdfReportService  pdfReportService;
 
+    @Autowired
+    private PdfReportCache pdfReportCache;
+
     @GetMapping("/patient/{patientId}")
-    public ResponseEntity<?> getPatientReport(@PathVariable int patientId) {
+    public ResponseEntity<?> getPatientReport(@PathVariable int patientId,
+            @RequestParam(required = false) ReportService.ReportSource source) {
         try {
-            Report report = reportService.generateReportFromPatientId(patientId);
+            Report report = reportService.generateReportFromPatientId(patientId, resolveSource(source));
             if (report == null) {
                 return ResponseEntity.notFound().build();
             }
@@ -33,32 +39,72 @@ public class ReportController {
                 .body(createErrorResponse("Failed to generate report", e));
         }
     }
-        @GetMapping("/patient/{patientId}/pdf")
-    public ResponseEntity<byte[]> generatePdfReport(@PathVariable int patientId) {
+    // Served from the content-addressed PDF cache; ?source=HTTP bypasses it and renders afresh.
+    // The ETag is the content hash, so an unchanged report costs the client a 304.
+    @GetMapping("/patient/{patientId}/pdf")
+    public ResponseEntity<byte[]> generatePdfReport(@PathVariable int patientId,
+            @RequestParam(required = false) ReportService.ReportSource source,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Report report = reportService.generateReportFromPatientId(patientId);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentDispositionFormData("filename", "medical-report-patient-" + patientId + ".pdf");
+            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
+
+            if (resolveSource(source) == ReportService.ReportSource.HTTP) {
+                Report report = reportService.generateReportFromPatientId(patientId, ReportService.ReportSource.HTTP);
+                if (report == null) {
+                    return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                }
+                return new ResponseEntity<>(pdfReportService.generatePdfReport(report), headers, HttpStatus.OK);
+            }
+
+            PdfReportService.CachedPdf pdf = pdfReportService.getPatientPdf(patientId);
+            if (pdf == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+
+            String etag = "\"" + pdf.getHash() + "\"";
+            headers.setETag(etag);
+            if (etag.equals(ifNoneMatch)) {
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+            return new ResponseEntity<>(pdf.getContent(), headers, HttpStatus.OK);
+                
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Renders straight into the response: no byte[] of the document is ever held on the server.
+    // Meant for long histories; bypasses the PDF cache.
+    @GetMapping("/patient/{patientId}/pdf/stream")
+    public ResponseEntity<StreamingResponseBody> streamPdfReport(@PathVariable int patientId,
+            @RequestParam(required = false) ReportService.ReportSource source) {
+        try {
+            Report report = reportService.generateReportFromPatientId(patientId, resolveSource(source));
             if (report == null) {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
 
-            byte[] pdfBytes = pdfReportService.generatePdfReport(report);
-            
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
             headers.setContentDispositionFormData("filename", "medical-report-patient-" + patientId + ".pdf");
             headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-            
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
-                
+
+            StreamingResponseBody body = out -> pdfReportService.streamPdfReport(report, out);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @GetMapping("/patient/{patientId}/compact")
-    public ResponseEntity<?> getCompactPatientReport(@PathVariable int patientId) {
+    public ResponseEntity<?> getCompactPatientReport(@PathVariable int patientId,
+            @RequestParam(required = false) ReportService.ReportSource source) {
         try {
-            Report report = reportService.getCompactReportFromPatientId(patientId);
+            Report report = reportService.getCompactReportFromPatientId(patientId, resolveSource(source));
             if (report == null) {
                 return ResponseEntity.notFound().build();
             }
@@ -69,6 +115,22 @@ public class ReportController {
         }
     }
 
+    @GetMapping("/pdf-cache/metrics")
+    public ResponseEntity<Map<String, Long>> getPdfCacheMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("memoryHits", pdfReportCache.getMemoryHits());
+        metrics.put("diskHits", pdfReportCache.getDiskHits());
+        metrics.put("misses", pdfReportCache.getMisses());
+        metrics.put("memoryBytes", pdfReportCache.getMemoryBytes());
+        metrics.put("diskBytes", pdfReportCache.getDiskBytes());
+        return ResponseEntity.ok(metrics);
+    }
+
+    // ?source=HTTP forces the old loopback path for side-by-side timing; default comes from config
+    private ReportService.ReportSource resolveSource(ReportService.ReportSource source) {
+        return source != null ? source : reportService.getDefaultSource();
+    }
+
     private Map<String, String> createErrorResponse(String message, Exception e) {
         Map<String, String> errorResponse = new HashMap<>();
         errorResponse.put("error", message);
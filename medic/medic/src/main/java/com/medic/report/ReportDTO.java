@@ -5,6 +5,7 @@ import java.time.LocalDate;
 import java.time.Period;
 import java.util.Set;
 
+import com.medic.alert.VitalsThresholds;
 import com.medic.medication.DosageDTO;
 import com.medic.result.DiagnosisDTO;
 import com.medic.result.ResultDTO;
@@ -160,19 +161,18 @@ public class ReportDTO {
     }
 
     public void evaluateCriticalVitals() {
+        evaluateCriticalVitals(VitalsThresholds.defaults());
+    }
+
+    public void evaluateCriticalVitals(VitalsThresholds thresholds) {
         if (vitals == null) {
             this.criticalVitals = false;
             return;
         }
 
-        boolean critical = 
-            vitals.getTemperature() > 39.0 || vitals.getTemperature() < 35.0 || // High/Low fever
-            vitals.getHeartRate() > 120 || vitals.getHeartRate() < 50 || // Tachycardia/Bradycardia
-            vitals.getBloodPressureSystolic() > 180 || vitals.getBloodPressureDiastolic() > 120 || // Hypertension crisis
-            vitals.getBloodPressureSystolic() < 90 || vitals.getBloodPressureDiastolic() < 60 || // Hypotension
-            vitals.getRespiratoryRate() > 30 || vitals.getRespiratoryRate() < 10 || // Respiratory distress
-            vitals.getOxygenSaturation() < 92; // Hypoxia
-
-        this.criticalVitals = critical;
+        this.criticalVitals = thresholds.isCritical(
+            vitals.getTemperature(), vitals.getHeartRate(),
+            vitals.getBloodPressureSystolic(), vitals.getBloodPressureDiastolic(),
+            vitals.getRespiratoryRate(), vitals.getOxygenSaturation());
     }
 }
\ No newline at end of file
@@ -6,9 +6,13 @@ import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
+import javax.transaction.Transactional;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import com.medic.alert.VitalsThresholds;
+
 import com.medic.patient.Patient;
 import com.medic.vitals.Biometrics;
 import com.medic.vitals.BiometricsDTO;
@@ -20,12 +24,18 @@ import com.medic.result.Result;
 import com.medic.result.ResultDTO;
 import com.medic.medication.Dosage;
 import com.medic.medication.DosageDTO;
+import com.medic.medication.MedicinePrice;
+import com.medic.medication.MedicinePriceDTO;
 
 @Repository
 public class ReportDao {
 @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private VitalsThresholds vitalsThresholds;
+
+    @Transactional
     public Report getReportByPatientId(int patientId) {
         try {
             // Use JOIN FETCH to eagerly load all required relationships in a single query
@@ -76,7 +86,7 @@ public class ReportDao {
 
             // Calculate derived fields
             report.calculateBmi();
-            report.evaluateCriticalVitals();
+            report.evaluateCriticalVitals(vitalsThresholds);
 
             // Generate summary
             String summary = generateSummary(diagnosisDTOs);
@@ -213,14 +223,23 @@ public class ReportDao {
         dto.setCaution(dosage.getCaution());
         dto.setNote(dosage.getNote());
         
-        // MedicinePrice conversion if needed
-        // if (dosage.getMedicinePrice() != null) {
-        //     dto.setMedicinePrice(convertToMedicinePriceDTO(dosage.getMedicinePrice()));
-        // }
+        // MedicinePrice is already join-fetched, so this costs no extra query
+        if (dosage.getMedicinePrice() != null) {
+            dto.setMedicinePrice(convertToMedicinePriceDTO(dosage.getMedicinePrice()));
+        }
         
         return dto;
     }
 
+    private MedicinePriceDTO convertToMedicinePriceDTO(MedicinePrice medicinePrice) {
+        MedicinePriceDTO dto = new MedicinePriceDTO();
+        dto.setId(medicinePrice.getId());
+        dto.setQuantity(medicinePrice.getQuantity());
+        dto.setUnitMeasure(medicinePrice.getUnitMeasure());
+        dto.setPrice(medicinePrice.getPrice());
+        return dto;
+    }
+
     private String generateSummary(Set<DiagnosisDTO> diagnoses) {
         if (diagnoses == null || diagnoses.isEmpty()) {
             return "No diagnoses available";
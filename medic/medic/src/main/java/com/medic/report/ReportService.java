@@ -3,25 +3,61 @@ package com.medic.report;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import com.medic.alert.VitalsThresholds;
 import com.medic.patient.PatientDTO;
 import com.medic.result.DiagnosisDTO;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import java.util.stream.Collectors;
 
 @Service
 public class ReportService {
 
-    private static final String PATIENT_API_BASE_URL = "http://localhost:8080/medic/api/patients";
+    // DAO assembles the report in-process; HTTP is the old loopback call to /api/patients/{id},
+    // kept so the two paths can be compared side by side
+    public enum ReportSource { DAO, HTTP }
+
+    @Value("${medic.report.patient-api-url:http://localhost:8080/medic/api/patients}")
+    private String patientApiBaseUrl;
+
+    @Value("${medic.report.source:DAO}")
+    private ReportSource defaultSource;
     
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private ReportDao reportDao;
+
+    @Autowired
+    private VitalsThresholds vitalsThresholds;
+
+    public ReportSource getDefaultSource() {
+        return defaultSource;
+    }
+
     public Report generateReportFromPatientId(int patientId) {
+        return generateReportFromPatientId(patientId, defaultSource);
+    }
+
+    public Report generateReportFromPatientId(int patientId, ReportSource source) {
+        if (source == ReportSource.HTTP) {
+            return generateReportViaHttp(patientId);
+        }
+        return generateReportInProcess(patientId);
+    }
+
+    // One DAO transaction, no servlet round trip and no JSON serialize/deserialize
+    public Report generateReportInProcess(int patientId) {
+        return reportDao.getReportByPatientId(patientId);
+    }
+
+    public Report generateReportViaHttp(int patientId) {
         try {
             // Fetch complete patient data from existing API
-            String patientUrl = PATIENT_API_BASE_URL + "/" + patientId;
+            String patientUrl = patientApiBaseUrl + "/" + patientId;
             ResponseEntity<PatientDTO> response = restTemplate.getForEntity(patientUrl, PatientDTO.class);
             
             if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
@@ -79,7 +115,7 @@ public class ReportService {
         
         // Calculate derived fields
         report.calculateBmi();
-        report.evaluateCriticalVitals();
+        report.evaluateCriticalVitals(vitalsThresholds);
         
         // Generate summary
         String summary = generateSummary(patient.getDiagnoses());
@@ -99,7 +135,11 @@ public class ReportService {
     }
     
     public Report getCompactReportFromPatientId(int patientId) {
-        Report fullReport = generateReportFromPatientId(patientId);
+        return getCompactReportFromPatientId(patientId, defaultSource);
+    }
+
+    public Report getCompactReportFromPatientId(int patientId, ReportSource source) {
+        Report fullReport = generateReportFromPatientId(patientId, source);
         if (fullReport == null) {
             return null;
         }
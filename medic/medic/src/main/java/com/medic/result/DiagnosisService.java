@@ -7,18 +7,25 @@ import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.medic.report.PdfReportService;
+
 @Service
 public class DiagnosisService {
 
     @Autowired
     private DiagnosisDao diagnosisDao;
 
+    @Autowired
+    private PdfReportService pdfReportService;
+
     public void save(Diagnosis diagnosis) {
         diagnosisDao.save(diagnosis);
+        pdfReportService.invalidatePatient(patientIdOf(diagnosis));
     }
 
     public void update(Diagnosis diagnosis) {
         diagnosisDao.update(diagnosis);
+        pdfReportService.invalidatePatient(patientIdOf(diagnosis));
     }
 
     public Diagnosis getDiagnosisById(int id){
@@ -27,6 +34,11 @@ public class DiagnosisService {
 
     public void delete(Diagnosis diagnosis) {
         diagnosisDao.delete(diagnosis);
+        pdfReportService.invalidatePatient(patientIdOf(diagnosis));
+    }
+
+    private Integer patientIdOf(Diagnosis diagnosis) {
+        return diagnosis.getPatient() != null ? diagnosis.getPatient().getId() : null;
     }
 
     // Return DTO
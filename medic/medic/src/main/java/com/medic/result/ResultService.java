@@ -6,28 +6,39 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.medic.report.PdfReportService;
+
 @Service
 public class ResultService {
 
     private final ResultDao resultDao;
+    private final PdfReportService pdfReportService;
 
-    public ResultService(ResultDao resultDao) {
+    public ResultService(ResultDao resultDao, PdfReportService pdfReportService) {
         this.resultDao = resultDao;
+        this.pdfReportService = pdfReportService;
     }
 
     @Transactional
     public void save(Result result) {
         resultDao.save(result);
+        pdfReportService.invalidatePatient(patientIdOf(result));
     }
 
     @Transactional
     public void update(Result result) {
         resultDao.update(result);
+        pdfReportService.invalidatePatient(patientIdOf(result));
     }
 
     @Transactional
     public void delete(Result result) {
         resultDao.delete(result);
+        pdfReportService.invalidatePatient(patientIdOf(result));
+    }
+
+    private Integer patientIdOf(Result result) {
+        return result.getPatient() != null ? result.getPatient().getId() : null;
     }
 
     // ✅ Return DTO for single result
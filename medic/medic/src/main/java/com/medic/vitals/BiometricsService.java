@@ -2,6 +2,9 @@ package com.medic.vitals;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+
+import com.medic.report.PdfReportService;
+
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -11,8 +14,12 @@ public class BiometricsService {
     @Autowired
     private BiometricsDao biometricsDao;
 
+    @Autowired
+    private PdfReportService pdfReportService;
+
     public void save(Biometrics biometrics) {
         biometricsDao.save(biometrics);
+        pdfReportService.invalidatePatient(patientIdOf(biometrics));
     }
 
     // Return DTO instead of entity
@@ -43,10 +50,16 @@ public class BiometricsService {
 
     public void update(Biometrics biometrics) {
         biometricsDao.update(biometrics);
+        pdfReportService.invalidatePatient(patientIdOf(biometrics));
     }
 
     public void delete(Biometrics biometrics) {
         biometricsDao.delete(biometrics);
+        pdfReportService.invalidatePatient(patientIdOf(biometrics));
+    }
+
+    private Integer patientIdOf(Biometrics biometrics) {
+        return biometrics.getPatient() != null ? biometrics.getPatient().getId() : null;
     }
 
     // Helper converter
@@ -0,0 +1,78 @@
+package com.medic.vitals;
+
+import java.util.List;
+
+public class VitalsBatchResultDTO {
+    private int received;
+    private int succeeded;
+    private int failed;
+    private long elapsedMillis;
+    private double readingsPerSecond;
+    private List<ItemResult> items;
+
+    public int getReceived() {
+        return received;
+    }
+    public void setReceived(int received) {
+        this.received = received;
+    }
+    public int getSucceeded() {
+        return succeeded;
+    }
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+    public int getFailed() {
+        return failed;
+    }
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+    public double getReadingsPerSecond() {
+        return readingsPerSecond;
+    }
+    public void setReadingsPerSecond(double readingsPerSecond) {
+        this.readingsPerSecond = readingsPerSecond;
+    }
+    public List<ItemResult> getItems() {
+        return items;
+    }
+    public void setItems(List<ItemResult> items) {
+        this.items = items;
+    }
+
+    // Outcome for the reading at the same position in the request body
+    public static class ItemResult {
+        private int index;
+        private Integer patientId;
+        private boolean success;
+        private String error;
+
+        public ItemResult() {}
+
+        public ItemResult(int index, Integer patientId, boolean success, String error) {
+            this.index = index;
+            this.patientId = patientId;
+            this.success = success;
+            this.error = error;
+        }
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+
+        public Integer getPatientId() { return patientId; }
+        public void setPatientId(Integer patientId) { this.patientId = patientId; }
+
+        public boolean isSuccess() { return success; }
+        public void setSuccess(boolean success) { this.success = success; }
+
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+    }
+}
@@ -0,0 +1,62 @@
+package com.medic.vitals;
+
+import java.sql.Timestamp;
+
+// Downsampled vitals for one time bucket: min/max/avg of every metric
+public class VitalsBucketDTO {
+    private Timestamp bucketStart;
+    private long samples;
+    private Stats temperature;
+    private Stats heartRate;
+    private Stats bloodPressureSystolic;
+    private Stats bloodPressureDiastolic;
+    private Stats respiratoryRate;
+    private Stats oxygenSaturation;
+
+    public Timestamp getBucketStart() { return bucketStart; }
+    public void setBucketStart(Timestamp bucketStart) { this.bucketStart = bucketStart; }
+
+    public long getSamples() { return samples; }
+    public void setSamples(long samples) { this.samples = samples; }
+
+    public Stats getTemperature() { return temperature; }
+    public void setTemperature(Stats temperature) { this.temperature = temperature; }
+
+    public Stats getHeartRate() { return heartRate; }
+    public void setHeartRate(Stats heartRate) { this.heartRate = heartRate; }
+
+    public Stats getBloodPressureSystolic() { return bloodPressureSystolic; }
+    public void setBloodPressureSystolic(Stats bloodPressureSystolic) { this.bloodPressureSystolic = bloodPressureSystolic; }
+
+    public Stats getBloodPressureDiastolic() { return bloodPressureDiastolic; }
+    public void setBloodPressureDiastolic(Stats bloodPressureDiastolic) { this.bloodPressureDiastolic = bloodPressureDiastolic; }
+
+    public Stats getRespiratoryRate() { return respiratoryRate; }
+    public void setRespiratoryRate(Stats respiratoryRate) { this.respiratoryRate = respiratoryRate; }
+
+    public Stats getOxygenSaturation() { return oxygenSaturation; }
+    public void setOxygenSaturation(Stats oxygenSaturation) { this.oxygenSaturation = oxygenSaturation; }
+
+    public static class Stats {
+        private double min;
+        private double max;
+        private double avg;
+
+        public Stats() {}
+
+        public Stats(double min, double max, double avg) {
+            this.min = min;
+            this.max = max;
+            this.avg = avg;
+        }
+
+        public double getMin() { return min; }
+        public void setMin(double min) { this.min = min; }
+
+        public double getMax() { return max; }
+        public void setMax(double max) { this.max = max; }
+
+        public double getAvg() { return avg; }
+        public void setAvg(double avg) { this.avg = avg; }
+    }
+}
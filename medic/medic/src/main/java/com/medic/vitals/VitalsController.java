@@ -1,8 +1,11 @@
 package com.medic.vitals;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -11,6 +14,8 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/vitals")
 public class VitalsController {
 
+    private static final int MAX_BATCH_READINGS = 20000;
+
     @Autowired
     private VitalsService vitalsService;
 
@@ -26,6 +31,18 @@ public class VitalsController {
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
+    // Bulk ingestion for bedside monitors; per-item outcome in the response body
+    @PostMapping("/batch")
+    public ResponseEntity<VitalsBatchResultDTO> createBatch(@RequestBody List<VitalsReadingDTO> readings) {
+        if (readings == null || readings.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (readings.size() > MAX_BATCH_READINGS) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.ok(vitalsService.saveBatch(readings));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<VitalsDTO> getById(@PathVariable int id) {
         return ResponseEntity.ok(vitalsService.getById(id));
@@ -36,6 +53,23 @@ public class VitalsController {
         return ResponseEntity.ok(vitalsService.getByPatientId(patientId));
     }
 
+    // Downsampled trend: GET /vitals/patient/{id}/history?from=...&to=...&step=<seconds>
+    // Defaults to the last 24 hours; each bucket carries min/max/avg per metric
+    @GetMapping("/patient/{patientId}/history")
+    public ResponseEntity<VitalsHistoryDTO> getHistory(
+            @PathVariable int patientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long step) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        if (!start.isBefore(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(vitalsService.getHistory(patientId,
+                Timestamp.valueOf(start), Timestamp.valueOf(end), step));
+    }
+
     @PutMapping
     public ResponseEntity<Void> update(@RequestBody Vitals vitals) {
         vitalsService.update(vitals);
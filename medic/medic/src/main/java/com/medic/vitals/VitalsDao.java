@@ -1,16 +1,63 @@
 package com.medic.vitals;
 
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
 
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class VitalsDao {
 
+    // Plain JDBC batch: Vitals uses IDENTITY ids, which makes Hibernate skip insert batching.
+    // With rewriteBatchedStatements=true on the URL the driver sends one multi-row INSERT per batch.
+    // vitals.patient_id is unique, so a newer reading replaces the stored one, like an update would.
+    private static final String UPSERT_SQL =
+            "INSERT INTO vitals (temperature, heart_rate, blood_pressure_systolic, blood_pressure_diastolic, " +
+            "respiratory_rate, oxygen_saturation, note, patient_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE temperature = VALUES(temperature), heart_rate = VALUES(heart_rate), " +
+            "blood_pressure_systolic = VALUES(blood_pressure_systolic), " +
+            "blood_pressure_diastolic = VALUES(blood_pressure_diastolic), " +
+            "respiratory_rate = VALUES(respiratory_rate), oxygen_saturation = VALUES(oxygen_saturation), " +
+            "note = VALUES(note)";
+
+    // A second sample for the same patient and millisecond is a duplicate key error, not dropped
+    private static final String APPEND_HISTORY_SQL =
+            "INSERT INTO vitals_history (patient_id, recorded_at, temperature, heart_rate, " +
+            "blood_pressure_systolic, blood_pressure_diastolic, respiratory_rate, oxygen_saturation) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // A client resending a batch whose response it lost would otherwise fail its whole chunk on
+    // one duplicate; a sample already stored for that patient and millisecond is kept as it is.
+    // Not INSERT IGNORE, which would also swallow truncation and foreign key errors.
+    private static final String APPEND_HISTORY_BATCH_SQL =
+            APPEND_HISTORY_SQL + " ON DUPLICATE KEY UPDATE patient_id = patient_id";
+
+    // Server-side downsampling: one row per step-second bucket, aggregated by MySQL over a
+    // range scan of the (patient_id, recorded_at) primary key
+    private static final String HISTORY_BUCKETS_SQL =
+            "SELECT FROM_UNIXTIME(FLOOR(UNIX_TIMESTAMP(recorded_at) / :step) * :step) AS bucket_start, " +
+            "COUNT(*), " +
+            "MIN(temperature), MAX(temperature), AVG(temperature), " +
+            "MIN(heart_rate), MAX(heart_rate), AVG(heart_rate), " +
+            "MIN(blood_pressure_systolic), MAX(blood_pressure_systolic), AVG(blood_pressure_systolic), " +
+            "MIN(blood_pressure_diastolic), MAX(blood_pressure_diastolic), AVG(blood_pressure_diastolic), " +
+            "MIN(respiratory_rate), MAX(respiratory_rate), AVG(respiratory_rate), " +
+            "MIN(oxygen_saturation), MAX(oxygen_saturation), AVG(oxygen_saturation) " +
+            "FROM vitals_history " +
+            "WHERE patient_id = :patientId AND recorded_at >= :fromTime AND recorded_at < :toTime " +
+            "GROUP BY bucket_start " +
+            "ORDER BY bucket_start";
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -48,4 +95,77 @@ public class VitalsDao {
     public void delete(Vitals vitals) {
         entityManager.remove(entityManager.contains(vitals) ? vitals : entityManager.merge(vitals));
     }
+
+    // Every reading carries its recordedAt; VitalsService stamps those sent without one
+    @Transactional
+    public void upsertBatch(List<VitalsReadingDTO> readings) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+                for (VitalsReadingDTO reading : readings) {
+                    statement.setDouble(1, reading.getTemperature());
+                    statement.setInt(2, reading.getHeartRate());
+                    statement.setInt(3, reading.getBloodPressureSystolic());
+                    statement.setInt(4, reading.getBloodPressureDiastolic());
+                    statement.setInt(5, reading.getRespiratoryRate());
+                    statement.setDouble(6, reading.getOxygenSaturation());
+                    if (reading.getNote() != null) {
+                        statement.setString(7, reading.getNote());
+                    } else {
+                        statement.setNull(7, Types.VARCHAR);
+                    }
+                    statement.setInt(8, reading.getPatientId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(APPEND_HISTORY_BATCH_SQL)) {
+                for (VitalsReadingDTO reading : readings) {
+                    statement.setInt(1, reading.getPatientId());
+                    statement.setTimestamp(2, reading.getRecordedAt());
+                    statement.setDouble(3, reading.getTemperature());
+                    statement.setInt(4, reading.getHeartRate());
+                    statement.setInt(5, reading.getBloodPressureSystolic());
+                    statement.setInt(6, reading.getBloodPressureDiastolic());
+                    statement.setInt(7, reading.getRespiratoryRate());
+                    statement.setDouble(8, reading.getOxygenSaturation());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    @Transactional
+    public void appendSample(int patientId, Vitals vitals, Timestamp recordedAt) {
+        entityManager.createNativeQuery(APPEND_HISTORY_SQL)
+                .setParameter(1, patientId)
+                .setParameter(2, recordedAt)
+                .setParameter(3, vitals.getTemperature())
+                .setParameter(4, vitals.getHeartRate())
+                .setParameter(5, vitals.getBloodPressureSystolic())
+                .setParameter(6, vitals.getBloodPressureDiastolic())
+                .setParameter(7, vitals.getRespiratoryRate())
+                .setParameter(8, vitals.getOxygenSaturation())
+                .executeUpdate();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getHistoryBuckets(int patientId, Timestamp from, Timestamp to, long stepSeconds) {
+        return entityManager.createNativeQuery(HISTORY_BUCKETS_SQL)
+                .setParameter("step", stepSeconds)
+                .setParameter("patientId", patientId)
+                .setParameter("fromTime", from)
+                .setParameter("toTime", to)
+                .getResultList();
+    }
+
+    public Set<Integer> findExistingPatientIds(Collection<Integer> patientIds) {
+        if (patientIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        String jpql = "SELECT p.id FROM Patient p WHERE p.id IN (:ids)";
+        return new HashSet<>(entityManager.createQuery(jpql, Integer.class)
+                            .setParameter("ids", patientIds)
+                            .getResultList());
+    }
 }
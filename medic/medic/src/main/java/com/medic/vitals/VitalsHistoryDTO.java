@@ -0,0 +1,27 @@
+package com.medic.vitals;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public class VitalsHistoryDTO {
+    private int patientId;
+    private Timestamp from;
+    private Timestamp to;
+    private long stepSeconds;
+    private List<VitalsBucketDTO> buckets;
+
+    public int getPatientId() { return patientId; }
+    public void setPatientId(int patientId) { this.patientId = patientId; }
+
+    public Timestamp getFrom() { return from; }
+    public void setFrom(Timestamp from) { this.from = from; }
+
+    public Timestamp getTo() { return to; }
+    public void setTo(Timestamp to) { this.to = to; }
+
+    public long getStepSeconds() { return stepSeconds; }
+    public void setStepSeconds(long stepSeconds) { this.stepSeconds = stepSeconds; }
+
+    public List<VitalsBucketDTO> getBuckets() { return buckets; }
+    public void setBuckets(List<VitalsBucketDTO> buckets) { this.buckets = buckets; }
+}
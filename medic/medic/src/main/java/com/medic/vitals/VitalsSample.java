@@ -0,0 +1,70 @@
+package com.medic.vitals;
+
+import java.sql.Timestamp;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+// Append-only vitals time series. The primary key (patient_id, recorded_at) is InnoDB's
+// clustered index, so one patient's readings are stored contiguously in time order and a
+// range query is a single index range scan. Narrow column types keep rows around 30 bytes.
+@Entity
+@Table(name = "vitals_history")
+@IdClass(VitalsSampleId.class)
+public class VitalsSample {
+
+    @Id
+    @Column(name = "patient_id", nullable = false)
+    private int patientId;
+
+    @Id
+    @Column(name = "recorded_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private Timestamp recordedAt;
+
+    @Column(name = "temperature", nullable = false)
+    private float temperature;
+
+    @Column(name = "heart_rate", nullable = false)
+    private short heartRate;
+
+    @Column(name = "blood_pressure_systolic", nullable = false)
+    private short bloodPressureSystolic;
+
+    @Column(name = "blood_pressure_diastolic", nullable = false)
+    private short bloodPressureDiastolic;
+
+    @Column(name = "respiratory_rate", nullable = false)
+    private short respiratoryRate;
+
+    @Column(name = "oxygen_saturation", nullable = false)
+    private float oxygenSaturation;
+
+    public VitalsSample() {}
+
+    public int getPatientId() { return patientId; }
+    public void setPatientId(int patientId) { this.patientId = patientId; }
+
+    public Timestamp getRecordedAt() { return recordedAt; }
+    public void setRecordedAt(Timestamp recordedAt) { this.recordedAt = recordedAt; }
+
+    public float getTemperature() { return temperature; }
+    public void setTemperature(float temperature) { this.temperature = temperature; }
+
+    public short getHeartRate() { return heartRate; }
+    public void setHeartRate(short heartRate) { this.heartRate = heartRate; }
+
+    public short getBloodPressureSystolic() { return bloodPressureSystolic; }
+    public void setBloodPressureSystolic(short bloodPressureSystolic) { this.bloodPressureSystolic = bloodPressureSystolic; }
+
+    public short getBloodPressureDiastolic() { return bloodPressureDiastolic; }
+    public void setBloodPressureDiastolic(short bloodPressureDiastolic) { this.bloodPressureDiastolic = bloodPressureDiastolic; }
+
+    public short getRespiratoryRate() { return respiratoryRate; }
+    public void setRespiratoryRate(short respiratoryRate) { this.respiratoryRate = respiratoryRate; }
+
+    public float getOxygenSaturation() { return oxygenSaturation; }
+    public void setOxygenSaturation(float oxygenSaturation) { this.oxygenSaturation = oxygenSaturation; }
+}
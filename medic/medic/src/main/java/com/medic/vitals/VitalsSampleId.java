@@ -0,0 +1,37 @@
+package com.medic.vitals;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.Objects;
+
+// Composite key of vitals_history: (patient_id, recorded_at)
+public class VitalsSampleId implements Serializable {
+    private int patientId;
+    private Timestamp recordedAt;
+
+    public VitalsSampleId() {}
+
+    public VitalsSampleId(int patientId, Timestamp recordedAt) {
+        this.patientId = patientId;
+        this.recordedAt = recordedAt;
+    }
+
+    public int getPatientId() { return patientId; }
+    public void setPatientId(int patientId) { this.patientId = patientId; }
+
+    public Timestamp getRecordedAt() { return recordedAt; }
+    public void setRecordedAt(Timestamp recordedAt) { this.recordedAt = recordedAt; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof VitalsSampleId)) return false;
+        VitalsSampleId other = (VitalsSampleId) o;
+        return patientId == other.patientId && Objects.equals(recordedAt, other.recordedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(patientId, recordedAt);
+    }
+}
@@ -1,10 +1,25 @@
 package com.medic.vitals;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.medic.alert.CriticalVitalsEngine;
+import com.medic.report.PdfReportService;
 
 @Service
 public class VitalsService {
@@ -12,8 +27,193 @@ public class VitalsService {
     @Autowired
     private VitalsDao vitalsDao;
 
+    @Autowired
+    private CriticalVitalsEngine alertEngine;
+
+    @Autowired
+    private PdfReportService pdfReportService;
+
+    private static final long DEFAULT_BUCKETS = 300;
+    private static final long MAX_BUCKETS = 2000;
+
+    // Readings written per transaction / JDBC batch
+    @Value("${medic.vitals.batch-size:500}")
+    private int batchSize;
+
+    @Transactional
     public void save(Vitals vitals) {
         vitalsDao.save(vitals);
+        appendHistory(vitals);
+    }
+
+    // Every new reading written through the service is also appended to vitals_history,
+    // so the one-row-per-patient vitals table stays the "latest" view without losing trends
+    private void appendHistory(Vitals vitals) {
+        if (vitals.getPatient() != null) {
+            Timestamp recordedAt = new Timestamp(System.currentTimeMillis());
+            vitalsDao.appendSample(vitals.getPatient().getId(), vitals, recordedAt);
+            notifyAfterCommit(vitals.getPatient().getId(), vitals, recordedAt);
+        }
+        pdfReportService.invalidatePatient(vitals.getPatient() != null ? vitals.getPatient().getId() : null);
+    }
+
+    // Alerts are raised only for readings that actually committed
+    private void notifyAfterCommit(int patientId, Vitals vitals, Timestamp recordedAt) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                alertEngine.onReading(patientId, vitals.getTemperature(), vitals.getHeartRate(),
+                        vitals.getBloodPressureSystolic(), vitals.getBloodPressureDiastolic(),
+                        vitals.getRespiratoryRate(), vitals.getOxygenSaturation(), recordedAt);
+            }
+        });
+    }
+
+    public VitalsHistoryDTO getHistory(int patientId, Timestamp from, Timestamp to, Long stepSeconds) {
+        long rangeSeconds = Math.max(1, (to.getTime() - from.getTime()) / 1000);
+        long step = stepSeconds != null && stepSeconds > 0 ? stepSeconds : Math.max(1, rangeSeconds / DEFAULT_BUCKETS);
+        // Never return more than MAX_BUCKETS points, whatever step the client asked for
+        step = Math.max(step, (rangeSeconds + MAX_BUCKETS - 1) / MAX_BUCKETS);
+
+        List<VitalsBucketDTO> buckets = vitalsDao.getHistoryBuckets(patientId, from, to, step).stream()
+                .map(this::convertRowToBucket)
+                .collect(Collectors.toList());
+
+        VitalsHistoryDTO history = new VitalsHistoryDTO();
+        history.setPatientId(patientId);
+        history.setFrom(from);
+        history.setTo(to);
+        history.setStepSeconds(step);
+        history.setBuckets(buckets);
+        return history;
+    }
+
+    private VitalsBucketDTO convertRowToBucket(Object[] row) {
+        VitalsBucketDTO bucket = new VitalsBucketDTO();
+        bucket.setBucketStart(toTimestamp(row[0]));
+        bucket.setSamples(((Number) row[1]).longValue());
+        bucket.setTemperature(toStats(row, 2));
+        bucket.setHeartRate(toStats(row, 5));
+        bucket.setBloodPressureSystolic(toStats(row, 8));
+        bucket.setBloodPressureDiastolic(toStats(row, 11));
+        bucket.setRespiratoryRate(toStats(row, 14));
+        bucket.setOxygenSaturation(toStats(row, 17));
+        return bucket;
+    }
+
+    private VitalsBucketDTO.Stats toStats(Object[] row, int offset) {
+        return new VitalsBucketDTO.Stats(
+                ((Number) row[offset]).doubleValue(),
+                ((Number) row[offset + 1]).doubleValue(),
+                ((Number) row[offset + 2]).doubleValue());
+    }
+
+    private Timestamp toTimestamp(Object value) {
+        if (value instanceof Timestamp) {
+            return (Timestamp) value;
+        }
+        if (value instanceof LocalDateTime) {
+            return Timestamp.valueOf((LocalDateTime) value);
+        }
+        return null;
+    }
+
+    // Each chunk is validated, then written as one JDBC batch in its own transaction,
+    // so a bad chunk only fails its own readings and never holds locks for the whole request
+    public VitalsBatchResultDTO saveBatch(List<VitalsReadingDTO> readings) {
+        long start = System.nanoTime();
+        VitalsBatchResultDTO.ItemResult[] results = new VitalsBatchResultDTO.ItemResult[readings.size()];
+        stampReadings(readings);
+        Set<String> samples = new HashSet<>();
+
+        for (int from = 0; from < readings.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, readings.size());
+            List<VitalsReadingDTO> chunk = readings.subList(from, to);
+
+            Set<Integer> knownPatients = vitalsDao.findExistingPatientIds(chunk.stream()
+                    .map(VitalsReadingDTO::getPatientId)
+                    .filter(id -> id != null)
+                    .collect(Collectors.toSet()));
+
+            List<VitalsReadingDTO> valid = new ArrayList<>();
+            List<Integer> validIndexes = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                VitalsReadingDTO reading = readings.get(i);
+                String error = validateReading(reading, knownPatients);
+                if (error == null && !samples.add(reading.getPatientId() + "@" + reading.getRecordedAt().getTime())) {
+                    error = "Duplicate reading for patient " + reading.getPatientId() + " at " + reading.getRecordedAt();
+                }
+                if (error != null) {
+                    results[i] = new VitalsBatchResultDTO.ItemResult(i, reading.getPatientId(), false, error);
+                } else {
+                    valid.add(reading);
+                    validIndexes.add(i);
+                }
+            }
+
+            if (valid.isEmpty()) {
+                continue;
+            }
+            String chunkError = null;
+            try {
+                vitalsDao.upsertBatch(valid);
+            } catch (RuntimeException e) {
+                chunkError = "Batch write failed: " + e.getMessage();
+            }
+            for (int i : validIndexes) {
+                results[i] = new VitalsBatchResultDTO.ItemResult(i, readings.get(i).getPatientId(),
+                        chunkError == null, chunkError);
+            }
+            if (chunkError == null) {
+                valid.stream().map(VitalsReadingDTO::getPatientId).distinct()
+                        .forEach(pdfReportService::invalidatePatient);
+                for (VitalsReadingDTO reading : valid) {
+                    alertEngine.onReading(reading.getPatientId(), reading.getTemperature(), reading.getHeartRate(),
+                            reading.getBloodPressureSystolic(), reading.getBloodPressureDiastolic(),
+                            reading.getRespiratoryRate(), reading.getOxygenSaturation(), reading.getRecordedAt());
+                }
+            }
+        }
+
+        VitalsBatchResultDTO result = new VitalsBatchResultDTO();
+        result.setItems(Arrays.asList(results));
+        result.setReceived(readings.size());
+        int succeeded = (int) result.getItems().stream().filter(VitalsBatchResultDTO.ItemResult::isSuccess).count();
+        result.setSucceeded(succeeded);
+        result.setFailed(readings.size() - succeeded);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        result.setElapsedMillis(elapsedMillis);
+        result.setReadingsPerSecond(elapsedMillis == 0 ? succeeded : succeeded * 1000.0 / elapsedMillis);
+        return result;
+    }
+
+    // Readings without their own time are stamped now, a millisecond apart per patient, so each
+    // one is a distinct history sample rather than a duplicate of its neighbour
+    private void stampReadings(List<VitalsReadingDTO> readings) {
+        long now = System.currentTimeMillis();
+        Map<Integer, Long> lastStamps = new HashMap<>();
+        for (VitalsReadingDTO reading : readings) {
+            if (reading != null && reading.getPatientId() != null && reading.getRecordedAt() == null) {
+                long stamp = lastStamps.merge(reading.getPatientId(), now, (last, unused) -> last + 1);
+                reading.setRecordedAt(new Timestamp(stamp));
+            }
+        }
+    }
+
+    private String validateReading(VitalsReadingDTO reading, Set<Integer> knownPatients) {
+        if (reading == null || reading.getPatientId() == null) {
+            return "patientId is required";
+        }
+        if (!knownPatients.contains(reading.getPatientId())) {
+            return "Patient not found with id: " + reading.getPatientId();
+        }
+        if (reading.getHeartRate() < 0 || reading.getRespiratoryRate() < 0
+                || reading.getBloodPressureSystolic() < 0 || reading.getBloodPressureDiastolic() < 0
+                || reading.getTemperature() <= 0 || reading.getOxygenSaturation() < 0
+                || reading.getOxygenSaturation() > 100) {
+            return "Reading has out-of-range values";
+        }
+        return null;
     }
 
     // Return DTO instead of entity
@@ -42,12 +242,16 @@ public class VitalsService {
                 .collect(Collectors.toList());
     }
 
+    // A correction of the stored reading, not a new one: history keeps what was measured
+    @Transactional
     public void update(Vitals vitals) {
         vitalsDao.update(vitals);
+        pdfReportService.invalidatePatient(vitals.getPatient() != null ? vitals.getPatient().getId() : null);
     }
 
     public void delete(Vitals vitals) {
         vitalsDao.delete(vitals);
+        pdfReportService.invalidatePatient(vitals.getPatient() != null ? vitals.getPatient().getId() : null);
     }
 
     // DTO converter
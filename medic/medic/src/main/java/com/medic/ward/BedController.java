@@ -3,6 +3,7 @@ package com.medic.ward;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +15,9 @@ public class BedController {
     @Autowired
     private BedService bedService;
 
+    @Value("${medic.ward.holds.max-ttl-seconds:86400}")
+    private int maxHoldSeconds;
+
     @PostMapping
     public ResponseEntity<Void> create(@RequestBody Bed bed) {
         bedService.save(bed);
@@ -34,6 +38,54 @@ public class BedController {
         return ResponseEntity.ok(bedService.getAll());
     }
 
+    @GetMapping("/{id}/occupant")
+    public ResponseEntity<Integer> getOccupant(@PathVariable int id) {
+        Integer patientId = bedService.getOccupant(id);
+        if (patientId != null) {
+            return ResponseEntity.ok(patientId);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    // Holds a free bed for ttlSeconds, e.g. for a transfer from another facility. The bed counts
+    // as occupied until the hold is released, expires, or the patient is assigned to it.
+    @PostMapping("/{id}/hold")
+    public ResponseEntity<?> hold(@PathVariable int id, @RequestBody BedHoldRequest request) {
+        if (request.getTtlSeconds() == null || request.getTtlSeconds() <= 0 || request.getTtlSeconds() > maxHoldSeconds) {
+            return ResponseEntity.badRequest().body("ttlSeconds must be between 1 and " + maxHoldSeconds);
+        }
+        if (bedService.getById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(bedService.holdBed(id, request));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}/hold")
+    public ResponseEntity<BedHoldDTO> getHold(@PathVariable int id) {
+        BedHoldDTO hold = bedService.getHold(id);
+        if (hold != null) {
+            return ResponseEntity.ok(hold);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/{id}/hold")
+    public ResponseEntity<Void> releaseHold(@PathVariable int id) {
+        if (bedService.releaseHold(id)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/holds")
+    public ResponseEntity<List<BedHoldDTO>> getActiveHolds() {
+        return ResponseEntity.ok(bedService.getActiveHolds());
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Void> update(@PathVariable int id, @RequestBody Bed updatedBed) {
         Bed existing = bedService.getBedById(id);
@@ -7,6 +7,18 @@ public class BedDTO {
     private int bedColumn;
     private boolean isOccupied;
     private int wardId;
+
+    public BedDTO() {}
+
+    // Used by JPQL constructor expressions
+    public BedDTO(int bedId, String bedNumber, int bedRow, int bedColumn, boolean isOccupied, int wardId) {
+        this.bedId = bedId;
+        this.bedNumber = bedNumber;
+        this.bedRow = bedRow;
+        this.bedColumn = bedColumn;
+        this.isOccupied = isOccupied;
+        this.wardId = wardId;
+    }
   
     public int getBedId() {
         return bedId;
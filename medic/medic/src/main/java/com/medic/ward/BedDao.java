@@ -1,11 +1,19 @@
 package com.medic.ward;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 import javax.transaction.Transactional;
 
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Repository
 public class BedDao {
@@ -13,9 +21,13 @@ public class BedDao {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private WardOccupancyIndex occupancyIndex;
+
     @Transactional
     public void save(Bed bed) {
         entityManager.persist(bed);
+        occupancyIndex.onBedChanged(bed.getId(), wardIdOf(bed));
     }
 
     public Bed getById(int id) {
@@ -24,16 +36,68 @@ public class BedDao {
 
     public List<Bed> getAll() {
         return entityManager.createQuery("SELECT b FROM Bed b", Bed.class)
+                            .setHint(QueryHints.HINT_CACHEABLE, true)
                             .getResultList();
     }
 
+    // Keyset page of one ward's beds as flat DTOs, optionally only occupied or only free ones
+    public List<BedDTO> getBedsByWard(int wardId, int afterId, int limit, Boolean occupied) {
+        String hql = "SELECT new com.medic.ward.BedDTO(" +
+                     "b.id, b.bedNumber, b.bedRow, b.bedColumn, b.isOccupied, b.ward.id) " +
+                     "FROM Bed b " +
+                     "WHERE b.ward.id = :wardId AND b.id > :afterId " +
+                     (occupied != null ? "AND b.isOccupied = :occupied " : "") +
+                     "ORDER BY b.id";
+        TypedQuery<BedDTO> query = entityManager.createQuery(hql, BedDTO.class)
+                .setParameter("wardId", wardId)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit);
+        if (occupied != null) {
+            query.setParameter("occupied", occupied);
+        }
+        return query.getResultList();
+    }
+
+    // is_occupied belongs to assignments and holds, so an edit keeps the stored value
     @Transactional
     public void update(Bed bed) {
-        entityManager.merge(bed);
+        Bed existing = entityManager.find(Bed.class, bed.getId());
+        if (existing != null) {
+            bed.setOccupied(existing.isOccupied());
+        }
+        Bed merged = entityManager.merge(bed);
+        occupancyIndex.onBedChanged(merged.getId(), wardIdOf(merged));
     }
 
     @Transactional
     public void delete(Bed bed) {
         entityManager.remove(entityManager.contains(bed) ? bed : entityManager.merge(bed));
+        occupancyIndex.onBedDeleted(bed.getId());
+    }
+
+    // For writes that change beds past Hibernate (native updates from assignments and holds):
+    // evicted now and again after commit, so a concurrent reader cannot re-cache the old row.
+    // Null ids are skipped.
+    public void evictBeds(Collection<Integer> bedIds) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        List<Integer> ids = new ArrayList<>();
+        for (Integer bedId : bedIds) {
+            if (bedId != null) {
+                ids.add(bedId);
+                cache.evict(Bed.class, bedId);
+            }
+        }
+        if (!ids.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ids.forEach(bedId -> cache.evict(Bed.class, bedId));
+                }
+            });
+        }
+    }
+
+    private Integer wardIdOf(Bed bed) {
+        return bed.getWard() != null ? bed.getWard().getId() : null;
     }
 }
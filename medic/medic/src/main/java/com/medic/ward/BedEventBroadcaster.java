@@ -0,0 +1,103 @@
+package com.medic.ward;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.medic.config.SseFanOut;
+
+// Pushes committed bed/ward changes to SSE subscribers. Every event gets a sequence id and is
+// kept in a replay ring, so a reconnecting client resumes from its Last-Event-ID. Delivery goes
+// through SseFanOut; a client it disconnects for falling behind resumes the same way.
+@Component
+public class BedEventBroadcaster {
+
+    private static final long SUBSCRIPTION_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    @Value("${medic.ward.events.replay-size:10000}")
+    private int replaySize;
+
+    @Value("${medic.ward.events.client-buffer:256}")
+    private int clientBuffer;
+
+    @Value("${medic.ward.events.sender-threads:4}")
+    private int senderThreads;
+
+    // Guarded by this: the sequence, the ring and subscriber registration move together,
+    // so a subscriber never misses or duplicates an event between replay and live delivery
+    private long sequence;
+    private BedEventDTO[] ring;
+
+    private SseFanOut<BedEventDTO> fanOut;
+
+    @PostConstruct
+    public void init() {
+        ring = new BedEventDTO[replaySize];
+        fanOut = new SseFanOut<>("ward-events", senderThreads, clientBuffer,
+                event -> SseEmitter.event()
+                        .id(String.valueOf(event.getId()))
+                        .name(event.getType().name())
+                        .data(event));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOut.shutdown();
+    }
+
+    public synchronized void publish(BedEventDTO.Type type, int wardId, Integer bedId, Integer patientId) {
+        BedEventDTO event = new BedEventDTO(++sequence, type, wardId, bedId, patientId);
+        ring[(int) (event.getId() % ring.length)] = event;
+        fanOut.publish(event);
+    }
+
+    // wardIds empty or null means every ward; lastEventId null means live events only
+    public synchronized SseEmitter subscribe(Set<Integer> wardIds, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(SUBSCRIPTION_TIMEOUT_MS);
+        Predicate<BedEventDTO> filter = wardIds == null || wardIds.isEmpty()
+                ? event -> true
+                : event -> event.getType() == BedEventDTO.Type.RESYNC || wardIds.contains(event.getWardId());
+
+        List<BedEventDTO> backlog = Collections.emptyList();
+        if (lastEventId != null && lastEventId != sequence) {
+            // An id ahead of the sequence was issued before a restart: nothing can be replayed
+            List<BedEventDTO> missed = lastEventId < sequence ? replayAfter(lastEventId, filter) : null;
+            if (missed == null || missed.size() > clientBuffer) {
+                backlog = Collections.singletonList(new BedEventDTO(sequence, BedEventDTO.Type.RESYNC, 0, null, null));
+            } else {
+                backlog = missed;
+            }
+        }
+        fanOut.subscribe(emitter, filter, backlog);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return fanOut.getSubscriberCount();
+    }
+
+    // Events after lastEventId that pass the filter, or null if the ring no longer has them
+    private List<BedEventDTO> replayAfter(long lastEventId, Predicate<BedEventDTO> filter) {
+        long oldest = Math.max(1, sequence - ring.length + 1);
+        if (lastEventId + 1 < oldest) {
+            return null;
+        }
+        List<BedEventDTO> missed = new ArrayList<>();
+        for (long id = lastEventId + 1; id <= sequence; id++) {
+            BedEventDTO event = ring[(int) (id % ring.length)];
+            if (filter.test(event)) {
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+}
@@ -0,0 +1,83 @@
+package com.medic.ward;
+
+// One bed/ward change as pushed over the ward event stream. id is the SSE event id a client
+// sends back as Last-Event-ID to resume.
+public class BedEventDTO {
+
+    public enum Type {
+        BED_OCCUPIED,
+        BED_FREED,
+        // Bed reserved (e.g. for an incoming transfer) without a patient in it yet
+        BED_HELD,
+        // Beds were added, moved or removed, or the ward itself changed: refetch the ward grid
+        WARD_CHANGED,
+        // The requested Last-Event-ID is older than the replay buffer: refetch everything
+        RESYNC
+    }
+
+    private long id;
+    private Type type;
+    private int wardId;
+    private Integer bedId;
+    private Integer patientId;
+    private long timestamp;
+
+    public BedEventDTO() {}
+
+    public BedEventDTO(long id, Type type, int wardId, Integer bedId, Integer patientId) {
+        this.id = id;
+        this.type = type;
+        this.wardId = wardId;
+        this.bedId = bedId;
+        this.patientId = patientId;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public int getWardId() {
+        return wardId;
+    }
+
+    public void setWardId(int wardId) {
+        this.wardId = wardId;
+    }
+
+    public Integer getBedId() {
+        return bedId;
+    }
+
+    public void setBedId(Integer bedId) {
+        this.bedId = bedId;
+    }
+
+    public Integer getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Integer patientId) {
+        this.patientId = patientId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
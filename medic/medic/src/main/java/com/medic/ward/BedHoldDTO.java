@@ -0,0 +1,43 @@
+package com.medic.ward;
+
+import java.sql.Timestamp;
+
+// A bed held until expiresAt; patientId is null when the hold is for a patient not yet registered
+public class BedHoldDTO {
+    private long holdId;
+    private int bedId;
+    private Integer patientId;
+    private String reference;
+    private Timestamp createdAt;
+    private Timestamp expiresAt;
+
+    public BedHoldDTO() {}
+
+    public BedHoldDTO(long holdId, int bedId, Integer patientId, String reference,
+                      Timestamp createdAt, Timestamp expiresAt) {
+        this.holdId = holdId;
+        this.bedId = bedId;
+        this.patientId = patientId;
+        this.reference = reference;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public long getHoldId() { return holdId; }
+    public void setHoldId(long holdId) { this.holdId = holdId; }
+
+    public int getBedId() { return bedId; }
+    public void setBedId(int bedId) { this.bedId = bedId; }
+
+    public Integer getPatientId() { return patientId; }
+    public void setPatientId(Integer patientId) { this.patientId = patientId; }
+
+    public String getReference() { return reference; }
+    public void setReference(String reference) { this.reference = reference; }
+
+    public Timestamp getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Timestamp createdAt) { this.createdAt = createdAt; }
+
+    public Timestamp getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Timestamp expiresAt) { this.expiresAt = expiresAt; }
+}
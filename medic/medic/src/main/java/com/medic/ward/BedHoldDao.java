@@ -0,0 +1,214 @@
+package com.medic.ward;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+// Bed holds share the bed's is_occupied flag with assignments: a hold claims the bed with the
+// same conditional update (0 -> 1) that PatientDao uses, so a bed is free, held or occupied and
+// never granted twice. Whoever deletes the bed_hold row owns the flag from then on: release and
+// expiry clear it, an assignment keeps it for the patient. The flag is only ever cleared for a
+// bed no patient points at, so a bed that was assigned despite its hold stays occupied.
+@Repository
+public class BedHoldDao {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO bed_hold (bed_id, patient_id, reference, created_at, expires_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String FREE_SQL =
+            "UPDATE bed SET is_occupied = 0 WHERE bed_id = ? AND NOT EXISTS (SELECT 1 FROM patient WHERE bed_id = ?)";
+
+    private static final String SELECT_SQL =
+            "SELECT hold_id, bed_id, patient_id, reference, created_at, expires_at FROM bed_hold ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private WardOccupancyIndex occupancyIndex;
+
+    @Autowired
+    private BedDao bedDao;
+
+    // A hold that expired but has not been swept yet is taken over in place
+    @Transactional
+    public BedHoldDTO hold(int bedId, Integer patientId, String reference, long ttlMillis) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Timestamp expiresAt = new Timestamp(now.getTime() + ttlMillis);
+
+        if (patientId != null && entityManager.createNativeQuery("SELECT 1 FROM patient WHERE patient_id = :patientId")
+                .setParameter("patientId", patientId)
+                .getResultList()
+                .isEmpty()) {
+            throw new RuntimeException("Patient not found with id: " + patientId);
+        }
+
+        int claimed = nativeUpdate("UPDATE bed SET is_occupied = 1 WHERE bed_id = :bedId AND is_occupied = 0")
+                .setParameter("bedId", bedId)
+                .executeUpdate();
+        if (claimed == 0) {
+            int takenOver = nativeUpdate("DELETE FROM bed_hold WHERE bed_id = :bedId AND expires_at <= :now")
+                    .setParameter("bedId", bedId)
+                    .setParameter("now", now)
+                    .executeUpdate();
+            if (takenOver == 0) {
+                if (entityManager.find(Bed.class, bedId) == null) {
+                    throw new RuntimeException("Bed not found with id: " + bedId);
+                }
+                throw new RuntimeException("Bed " + bedId + " is already occupied or held");
+            }
+        }
+
+        long[] holdId = new long[1];
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                statement.setInt(1, bedId);
+                statement.setObject(2, patientId);
+                statement.setString(3, reference);
+                statement.setTimestamp(4, now);
+                statement.setTimestamp(5, expiresAt);
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    keys.next();
+                    holdId[0] = keys.getLong(1);
+                }
+            }
+        });
+
+        bedDao.evictBeds(List.of(bedId));
+        occupancyIndex.onBedHeld(bedId);
+        return new BedHoldDTO(holdId[0], bedId, patientId, reference, now, expiresAt);
+    }
+
+    // Ends the bed's hold early; false if it had none
+    @Transactional
+    public boolean release(int bedId) {
+        int deleted = nativeUpdate("DELETE FROM bed_hold WHERE bed_id = :bedId")
+                .setParameter("bedId", bedId)
+                .executeUpdate();
+        if (deleted == 0) {
+            return false;
+        }
+        int freed = nativeUpdate("UPDATE bed SET is_occupied = 0 WHERE bed_id = :bedId " +
+                                 "AND NOT EXISTS (SELECT 1 FROM patient WHERE bed_id = :bedId)")
+                .setParameter("bedId", bedId)
+                .executeUpdate();
+        if (freed > 0) {
+            bedDao.evictBeds(List.of(bedId));
+            occupancyIndex.onHoldEnded(bedId);
+        }
+        return true;
+    }
+
+    // Called by an assignment whose claim on bedId failed: the patient takes over a hold made for
+    // them or already expired. A hold made for nobody in particular, or for someone else, is only
+    // taken with overrideHold. The bed stays is_occupied.
+    @Transactional
+    public boolean takeOver(int bedId, int patientId, boolean overrideHold) {
+        return nativeUpdate("DELETE FROM bed_hold WHERE bed_id = :bedId " +
+                            "AND (:overrideHold OR patient_id = :patientId OR expires_at <= :now)")
+                .setParameter("bedId", bedId)
+                .setParameter("overrideHold", overrideHold)
+                .setParameter("patientId", patientId)
+                .setParameter("now", new Timestamp(System.currentTimeMillis()))
+                .executeUpdate() > 0;
+    }
+
+    // Deletes every hold in holdId -> bedId that is still there and due in one JDBC batch, then
+    // frees those beds no patient has; returns the beds freed. Holds released or taken over in
+    // the meantime simply match nothing.
+    @Transactional
+    public List<Integer> expireHolds(Map<Long, Integer> bedsByHold, long now) {
+        List<Integer> freed = new ArrayList<>();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            List<Long> holdIds = new ArrayList<>(bedsByHold.keySet());
+            int[] deleted;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM bed_hold WHERE hold_id = ? AND expires_at <= ?")) {
+                for (Long holdId : holdIds) {
+                    statement.setLong(1, holdId);
+                    statement.setTimestamp(2, new Timestamp(now));
+                    statement.addBatch();
+                }
+                deleted = statement.executeBatch();
+            }
+            List<Integer> due = new ArrayList<>();
+            for (int i = 0; i < holdIds.size(); i++) {
+                if (deleted[i] > 0) {
+                    due.add(bedsByHold.get(holdIds.get(i)));
+                }
+            }
+            // One update per bed, so each count says whether the bed was really freed
+            try (PreparedStatement statement = connection.prepareStatement(FREE_SQL)) {
+                for (Integer bedId : due) {
+                    statement.setInt(1, bedId);
+                    statement.setInt(2, bedId);
+                    if (statement.executeUpdate() > 0) {
+                        freed.add(bedId);
+                    }
+                }
+            }
+        });
+
+        bedDao.evictBeds(freed);
+        freed.forEach(occupancyIndex::onHoldEnded);
+        return freed;
+    }
+
+    public BedHoldDTO getHold(int bedId) {
+        List<BedHoldDTO> holds = query(SELECT_SQL + "WHERE bed_id = :bedId", "bedId", bedId);
+        return holds.isEmpty() ? null : holds.get(0);
+    }
+
+    // Every stored hold, soonest expiry first; activeAt drops the ones already due at that time
+    public List<BedHoldDTO> getHolds(Long activeAt) {
+        if (activeAt == null) {
+            return query(SELECT_SQL + "ORDER BY expires_at", null, null);
+        }
+        return query(SELECT_SQL + "WHERE expires_at > :now ORDER BY expires_at", "now", new Timestamp(activeAt));
+    }
+
+    private List<BedHoldDTO> query(String sql, String parameter, Object value) {
+        javax.persistence.Query query = entityManager.createNativeQuery(sql);
+        if (parameter != null) {
+            query.setParameter(parameter, value);
+        }
+        List<BedHoldDTO> holds = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            holds.add(new BedHoldDTO(((Number) columns[0]).longValue(), ((Number) columns[1]).intValue(),
+                    columns[2] != null ? ((Number) columns[2]).intValue() : null, (String) columns[3],
+                    toTimestamp(columns[4]), toTimestamp(columns[5])));
+        }
+        return holds;
+    }
+
+    private Timestamp toTimestamp(Object value) {
+        if (value instanceof Timestamp) {
+            return (Timestamp) value;
+        }
+        return Timestamp.valueOf((LocalDateTime) value);
+    }
+
+    // An empty query space stops Hibernate from dropping the whole second-level cache
+    @SuppressWarnings("rawtypes")
+    private NativeQuery nativeUpdate(String sql) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("");
+    }
+}
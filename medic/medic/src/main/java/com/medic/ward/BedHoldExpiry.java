@@ -0,0 +1,120 @@
+package com.medic.ward;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Frees bed holds when their TTL runs out. Every hold sits in one DelayQueue (a heap ordered by
+// expiry), so a single thread sleeps until the next hold is due and then drains everything that
+// is due with it: thousands of holds expiring together are freed in a few JDBC batches, with no
+// thread per hold and no table scan. Holds released or taken over early stay queued and simply
+// match nothing when they come up. Correctness does not depend on this thread being on time:
+// assignments and new holds take over an expired hold in the database themselves.
+@Component
+public class BedHoldExpiry {
+
+    private static final long RETRY_DELAY_MS = 5000;
+
+    @Autowired
+    private BedHoldDao bedHoldDao;
+
+    @Value("${medic.ward.holds.expiry-batch-size:500}")
+    private int batchSize;
+
+    private final DelayQueue<Expiry> queue = new DelayQueue<>();
+    private volatile long expired;
+    private Thread worker;
+
+    @PostConstruct
+    public void init() {
+        worker = new Thread(this::run, "bed-hold-expiry");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.interrupt();
+    }
+
+    public void schedule(long holdId, int bedId, long expiresAt) {
+        queue.add(new Expiry(holdId, bedId, expiresAt));
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    public long getExpired() {
+        return expired;
+    }
+
+    private void run() {
+        try {
+            loadStoredHolds();
+            while (true) {
+                List<Expiry> due = new ArrayList<>();
+                due.add(queue.take());
+                queue.drainTo(due, batchSize - 1);
+
+                Map<Long, Integer> bedsByHold = new LinkedHashMap<>();
+                due.forEach(expiry -> bedsByHold.put(expiry.holdId, expiry.bedId));
+                try {
+                    expired += bedHoldDao.expireHolds(bedsByHold, System.currentTimeMillis()).size();
+                } catch (RuntimeException e) {
+                    // Database unavailable: try the same holds again shortly
+                    long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+                    due.forEach(expiry -> schedule(expiry.holdId, expiry.bedId, retryAt));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Holds from before a restart, including any that expired while the application was down
+    private void loadStoredHolds() throws InterruptedException {
+        while (true) {
+            try {
+                bedHoldDao.getHolds(null).forEach(hold ->
+                        schedule(hold.getHoldId(), hold.getBedId(), hold.getExpiresAt().getTime()));
+                return;
+            } catch (RuntimeException e) {
+                Thread.sleep(RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    private static final class Expiry implements Delayed {
+        private final long holdId;
+        private final int bedId;
+        private final long expiresAt;
+
+        private Expiry(long holdId, int bedId, long expiresAt) {
+            this.holdId = holdId;
+            this.bedId = bedId;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAt, ((Expiry) other).expiresAt);
+        }
+    }
+}
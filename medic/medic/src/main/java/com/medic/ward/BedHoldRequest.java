@@ -0,0 +1,17 @@
+package com.medic.ward;
+
+// Body of POST /beds/{id}/hold: how long to hold the bed and, optionally, for whom
+public class BedHoldRequest {
+    private Integer ttlSeconds;
+    private Integer patientId;
+    private String reference;
+
+    public Integer getTtlSeconds() { return ttlSeconds; }
+    public void setTtlSeconds(Integer ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+
+    public Integer getPatientId() { return patientId; }
+    public void setPatientId(Integer patientId) { this.patientId = patientId; }
+
+    public String getReference() { return reference; }
+    public void setReference(String reference) { this.reference = reference; }
+}
@@ -0,0 +1,62 @@
+package com.medic.ward;
+
+import java.sql.Timestamp;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+// Append-mostly log of bed stays: a row is inserted when a patient takes a bed and its end_at
+// is set when they leave it. Rows are written with JDBC batches by BedOccupancyDao; the entity
+// exists so the schema is known to Hibernate.
+@Entity
+@Table(name = "bed_occupancy", indexes = {
+    @Index(name = "idx_bed_occupancy_ward_start", columnList = "ward_id, start_at"),
+    @Index(name = "idx_bed_occupancy_patient_open", columnList = "patient_id, end_at")
+})
+public class BedOccupancy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "occupancy_id", nullable = false)
+    private long id;
+
+    @Column(name = "bed_id", nullable = false)
+    private int bedId;
+
+    @Column(name = "ward_id", nullable = false)
+    private int wardId;
+
+    @Column(name = "patient_id", nullable = false)
+    private int patientId;
+
+    @Column(name = "start_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private Timestamp startAt;
+
+    @Column(name = "end_at", columnDefinition = "DATETIME(3)")
+    private Timestamp endAt;
+
+    public BedOccupancy() {}
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public int getBedId() { return bedId; }
+    public void setBedId(int bedId) { this.bedId = bedId; }
+
+    public int getWardId() { return wardId; }
+    public void setWardId(int wardId) { this.wardId = wardId; }
+
+    public int getPatientId() { return patientId; }
+    public void setPatientId(int patientId) { this.patientId = patientId; }
+
+    public Timestamp getStartAt() { return startAt; }
+    public void setStartAt(Timestamp startAt) { this.startAt = startAt; }
+
+    public Timestamp getEndAt() { return endAt; }
+    public void setEndAt(Timestamp endAt) { this.endAt = endAt; }
+}
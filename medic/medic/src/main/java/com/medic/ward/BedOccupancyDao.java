@@ -0,0 +1,63 @@
+package com.medic.ward;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class BedOccupancyDao {
+
+    private static final String CLOSE_SQL =
+            "UPDATE bed_occupancy SET end_at = ? WHERE patient_id = ? AND end_at IS NULL";
+
+    private static final String OPEN_SQL =
+            "INSERT INTO bed_occupancy (bed_id, ward_id, patient_id, start_at) " +
+            "SELECT bed_id, ward_id, ?, ? FROM bed WHERE bed_id = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private BedOccupancyTimeline timeline;
+
+    // Logs bed moves inside the caller's transaction: the stay of every patient whose bed
+    // changed is closed and, if they went to a bed, a new one is opened. Both maps are
+    // patientId -> bedId (null = no bed), before and after.
+    @Transactional
+    public void recordMoves(Map<Integer, Integer> fromBeds, Map<Integer, Integer> toBeds) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(CLOSE_SQL)) {
+                for (Map.Entry<Integer, Integer> from : fromBeds.entrySet()) {
+                    if (from.getValue() != null && !Objects.equals(from.getValue(), toBeds.get(from.getKey()))) {
+                        statement.setTimestamp(1, now);
+                        statement.setInt(2, from.getKey());
+                        statement.addBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(OPEN_SQL)) {
+                for (Map.Entry<Integer, Integer> to : toBeds.entrySet()) {
+                    if (to.getValue() != null && !Objects.equals(to.getValue(), fromBeds.get(to.getKey()))) {
+                        statement.setInt(1, to.getKey());
+                        statement.setTimestamp(2, now);
+                        statement.setInt(3, to.getValue());
+                        statement.addBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+        });
+        timeline.onMoves(fromBeds, toBeds, now.getTime());
+    }
+}
@@ -0,0 +1,32 @@
+package com.medic.ward;
+
+import java.sql.Timestamp;
+
+// One bed stay; endAt is null while the patient is still in the bed
+public class BedOccupancyIntervalDTO {
+    private int bedId;
+    private int patientId;
+    private Timestamp startAt;
+    private Timestamp endAt;
+
+    public BedOccupancyIntervalDTO() {}
+
+    public BedOccupancyIntervalDTO(int bedId, int patientId, Timestamp startAt, Timestamp endAt) {
+        this.bedId = bedId;
+        this.patientId = patientId;
+        this.startAt = startAt;
+        this.endAt = endAt;
+    }
+
+    public int getBedId() { return bedId; }
+    public void setBedId(int bedId) { this.bedId = bedId; }
+
+    public int getPatientId() { return patientId; }
+    public void setPatientId(int patientId) { this.patientId = patientId; }
+
+    public Timestamp getStartAt() { return startAt; }
+    public void setStartAt(Timestamp startAt) { this.startAt = startAt; }
+
+    public Timestamp getEndAt() { return endAt; }
+    public void setEndAt(Timestamp endAt) { this.endAt = endAt; }
+}
@@ -0,0 +1,165 @@
+package com.medic.ward;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Occupancy history per ward, answered from an in-memory interval tree built from the
+// bed_occupancy log the first time a ward is queried and kept current after each commit.
+@Component
+public class BedOccupancyTimeline {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private WardOccupancyIndex occupancyIndex;
+
+    // Guarded by this
+    private final Map<Integer, OccupancyIntervals> wards = new HashMap<>();
+    private long changes;
+
+    // Stays overlapping [from, to); pass to = from + 1 ms for "who was in which bed at from"
+    public List<BedOccupancyIntervalDTO> getStays(int wardId, long from, long to) {
+        List<BedOccupancyIntervalDTO> stays = new ArrayList<>();
+        OccupancyIntervals intervals = intervals(wardId);
+        synchronized (this) {
+            intervals.overlapping(from, to, (bedId, patientId, start, end) -> stays.add(
+                    new BedOccupancyIntervalDTO(bedId, patientId, new Timestamp(start),
+                            end == OccupancyIntervals.OPEN ? null : new Timestamp(end))));
+        }
+        return stays;
+    }
+
+    // Occupied bed-hours in [from, to) against the ward's current bed count
+    public WardUtilizationDTO getUtilization(int wardId, long from, long to) {
+        long[] occupiedMillis = new long[1];
+        int[] stays = new int[1];
+        long now = System.currentTimeMillis();
+        OccupancyIntervals intervals = intervals(wardId);
+        synchronized (this) {
+            intervals.overlapping(from, to, (bedId, patientId, start, end) -> {
+                long clippedEnd = Math.min(end == OccupancyIntervals.OPEN ? now : end, to);
+                occupiedMillis[0] += Math.max(0, clippedEnd - Math.max(start, from));
+                stays[0]++;
+            });
+        }
+
+        WardOccupancyDTO occupancy = occupancyIndex.getOccupancy(wardId);
+        int beds = occupancy != null ? occupancy.getTotalBeds() : 0;
+        double windowHours = (Math.min(to, now) - from) / 3_600_000.0;
+
+        WardUtilizationDTO utilization = new WardUtilizationDTO();
+        utilization.setWardId(wardId);
+        utilization.setFrom(new Timestamp(from));
+        utilization.setTo(new Timestamp(to));
+        utilization.setStays(stays[0]);
+        utilization.setOccupiedBedHours(occupiedMillis[0] / 3_600_000.0);
+        utilization.setAvailableBedHours(Math.max(0, beds * windowHours));
+        utilization.setUtilizationPercent(utilization.getAvailableBedHours() == 0 ? 0
+                : utilization.getOccupiedBedHours() * 100.0 / utilization.getAvailableBedHours());
+        return utilization;
+    }
+
+    // Called inside the writing transaction; the trees change only once it commits
+    void onMoves(Map<Integer, Integer> fromBeds, Map<Integer, Integer> toBeds, long at) {
+        Runnable apply = () -> applyMoves(fromBeds, toBeds, at);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private synchronized void applyMoves(Map<Integer, Integer> fromBeds, Map<Integer, Integer> toBeds, long at) {
+        changes++;
+        fromBeds.forEach((patientId, bedId) -> {
+            if (bedId != null && !Objects.equals(bedId, toBeds.get(patientId))) {
+                for (OccupancyIntervals intervals : wards.values()) {
+                    if (intervals.close(patientId, at)) {
+                        break;
+                    }
+                }
+            }
+        });
+        toBeds.forEach((patientId, bedId) -> {
+            if (bedId == null || Objects.equals(bedId, fromBeds.get(patientId))) {
+                return;
+            }
+            BedDTO bed = occupancyIndex.getBed(bedId);
+            if (bed == null) {
+                // Unknown bed: drop the loaded trees, they are rebuilt from the log on next use
+                wards.clear();
+                return;
+            }
+            OccupancyIntervals intervals = wards.get(bed.getWardId());
+            if (intervals != null) {
+                intervals.add(bedId, patientId, at, OccupancyIntervals.OPEN);
+            }
+        });
+    }
+
+    private OccupancyIntervals intervals(int wardId) {
+        synchronized (this) {
+            OccupancyIntervals loaded = wards.get(wardId);
+            if (loaded != null) {
+                return loaded;
+            }
+        }
+
+        // Read the log outside the lock; if a move committed meanwhile, read it again
+        for (int attempt = 0; ; attempt++) {
+            long before;
+            synchronized (this) {
+                before = changes;
+            }
+            OccupancyIntervals intervals = load(wardId);
+            synchronized (this) {
+                if (changes == before || attempt == 2) {
+                    wards.put(wardId, intervals);
+                    return intervals;
+                }
+            }
+        }
+    }
+
+    private OccupancyIntervals load(int wardId) {
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT bed_id, patient_id, start_at, end_at FROM bed_occupancy " +
+                        "WHERE ward_id = :wardId ORDER BY start_at")
+                .setParameter("wardId", wardId)
+                .getResultList();
+        OccupancyIntervals intervals = new OccupancyIntervals();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            long end = columns[3] != null ? toMillis(columns[3]) : OccupancyIntervals.OPEN;
+            intervals.add(((Number) columns[0]).intValue(), ((Number) columns[1]).intValue(),
+                    toMillis(columns[2]), end);
+        }
+        return intervals;
+    }
+
+    private long toMillis(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).getTime();
+        }
+        return Timestamp.valueOf((LocalDateTime) value).getTime();
+    }
+}
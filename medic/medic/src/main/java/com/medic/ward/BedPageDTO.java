@@ -0,0 +1,32 @@
+package com.medic.ward;
+
+import java.util.List;
+
+// One keyset page of beds; nextAfter is null once the last page is reached
+public class BedPageDTO {
+    private List<BedDTO> beds;
+    private Integer nextAfter;
+
+    public BedPageDTO() {}
+
+    public BedPageDTO(List<BedDTO> beds, Integer nextAfter) {
+        this.beds = beds;
+        this.nextAfter = nextAfter;
+    }
+
+    public List<BedDTO> getBeds() {
+        return beds;
+    }
+
+    public void setBeds(List<BedDTO> beds) {
+        this.beds = beds;
+    }
+
+    public Integer getNextAfter() {
+        return nextAfter;
+    }
+
+    public void setNextAfter(Integer nextAfter) {
+        this.nextAfter = nextAfter;
+    }
+}
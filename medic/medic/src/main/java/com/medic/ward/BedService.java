@@ -12,6 +12,15 @@ public class BedService {
     @Autowired
     private BedDao bedDao;
 
+    @Autowired
+    private WardOccupancyIndex occupancyIndex;
+
+    @Autowired
+    private BedHoldDao bedHoldDao;
+
+    @Autowired
+    private BedHoldExpiry holdExpiry;
+
     public void save(Bed bed) {
         bedDao.save(bed);
     }
@@ -32,6 +41,31 @@ public class BedService {
                      .collect(Collectors.toList());
     }
 
+    // Patient currently in the bed, from the in-memory occupancy index
+    public Integer getOccupant(int bedId) {
+        return occupancyIndex.getOccupant(bedId);
+    }
+
+    // The hold is committed when the DAO returns; only then is its expiry queued
+    public BedHoldDTO holdBed(int bedId, BedHoldRequest request) {
+        BedHoldDTO hold = bedHoldDao.hold(bedId, request.getPatientId(), request.getReference(),
+                request.getTtlSeconds() * 1000L);
+        holdExpiry.schedule(hold.getHoldId(), bedId, hold.getExpiresAt().getTime());
+        return hold;
+    }
+
+    public boolean releaseHold(int bedId) {
+        return bedHoldDao.release(bedId);
+    }
+
+    public BedHoldDTO getHold(int bedId) {
+        return bedHoldDao.getHold(bedId);
+    }
+
+    public List<BedHoldDTO> getActiveHolds() {
+        return bedHoldDao.getHolds(System.currentTimeMillis());
+    }
+
     public void update(Bed bed) {
         bedDao.update(bed);
     }
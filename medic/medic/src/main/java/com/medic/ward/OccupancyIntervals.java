@@ -0,0 +1,164 @@
+package com.medic.ward;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Interval tree over one ward's bed stays, as half-open [start, end) in epoch millis; a stay
+// that is still open ends at OPEN. Stays are kept sorted by start, with a max-end segment tree
+// on top. An overlap query binary-searches the last stay starting before the window, then walks
+// down only the subtrees whose max end reaches into it: O(log n + k) for k matches.
+// New stays almost always start "now", so adding one is an append plus an O(log n) update.
+// Not thread-safe; BedOccupancyTimeline synchronizes access.
+class OccupancyIntervals {
+
+    static final long OPEN = Long.MAX_VALUE;
+
+    interface Visitor {
+        void visit(int bedId, int patientId, long start, long end);
+    }
+
+    private long[] starts = new long[16];
+    private long[] ends = new long[16];
+    private int[] bedIds = new int[16];
+    private int[] patientIds = new int[16];
+    private int size;
+
+    // Segment tree over ends: leaves at [capacity, 2 * capacity), node i = max(2i, 2i + 1)
+    private int capacity = 16;
+    private long[] maxEnd = newTree(16);
+
+    private final Map<Integer, Integer> openByPatient = new HashMap<>();
+
+    void add(int bedId, int patientId, long start, long end) {
+        if (size == starts.length) {
+            grow();
+        }
+        int position = size;
+        if (size > 0 && start < starts[size - 1]) {
+            // Out of order (clock skew, back-dated row): shift into place and rebuild
+            position = upperBound(start);
+            System.arraycopy(starts, position, starts, position + 1, size - position);
+            System.arraycopy(ends, position, ends, position + 1, size - position);
+            System.arraycopy(bedIds, position, bedIds, position + 1, size - position);
+            System.arraycopy(patientIds, position, patientIds, position + 1, size - position);
+        }
+        starts[position] = start;
+        ends[position] = end;
+        bedIds[position] = bedId;
+        patientIds[position] = patientId;
+        size++;
+
+        if (position == size - 1) {
+            updateTree(position);
+            if (end == OPEN) {
+                openByPatient.put(patientId, position);
+            }
+        } else {
+            rebuild();
+        }
+    }
+
+    // Ends the patient's open stay in this ward; false if they have none here
+    boolean close(int patientId, long end) {
+        Integer position = openByPatient.remove(patientId);
+        if (position == null) {
+            return false;
+        }
+        ends[position] = end;
+        updateTree(position);
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Every stay overlapping [from, to)
+    void overlapping(long from, long to, Visitor visitor) {
+        int candidates = lowerBound(to);
+        if (candidates > 0) {
+            collect(1, 0, capacity, candidates, from, visitor);
+        }
+    }
+
+    private void collect(int node, int low, int high, int limit, long from, Visitor visitor) {
+        if (low >= limit || maxEnd[node] <= from) {
+            return;
+        }
+        if (node >= capacity) {
+            int i = node - capacity;
+            visitor.visit(bedIds[i], patientIds[i], starts[i], ends[i]);
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        collect(2 * node, low, middle, limit, from, visitor);
+        collect(2 * node + 1, middle, high, limit, from, visitor);
+    }
+
+    // Number of stays starting before t
+    private int lowerBound(long t) {
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < t) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Number of stays starting at or before t
+    private int upperBound(long t) {
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] <= t) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void updateTree(int position) {
+        int node = capacity + position;
+        maxEnd[node] = ends[position];
+        for (node >>= 1; node >= 1; node >>= 1) {
+            maxEnd[node] = Math.max(maxEnd[2 * node], maxEnd[2 * node + 1]);
+        }
+    }
+
+    private void grow() {
+        int length = starts.length * 2;
+        starts = Arrays.copyOf(starts, length);
+        ends = Arrays.copyOf(ends, length);
+        bedIds = Arrays.copyOf(bedIds, length);
+        patientIds = Arrays.copyOf(patientIds, length);
+        capacity = length;
+        rebuild();
+    }
+
+    private void rebuild() {
+        maxEnd = newTree(capacity);
+        System.arraycopy(ends, 0, maxEnd, capacity, size);
+        for (int node = capacity - 1; node >= 1; node--) {
+            maxEnd[node] = Math.max(maxEnd[2 * node], maxEnd[2 * node + 1]);
+        }
+        openByPatient.clear();
+        for (int i = 0; i < size; i++) {
+            if (ends[i] == OPEN) {
+                openByPatient.put(patientIds[i], i);
+            }
+        }
+    }
+
+    private static long[] newTree(int capacity) {
+        long[] tree = new long[2 * capacity];
+        Arrays.fill(tree, Long.MIN_VALUE);
+        return tree;
+    }
+}
@@ -0,0 +1,70 @@
+package com.medic.ward;
+
+// Per-ward bed counts, built directly by the census GROUP BY query
+public class WardCensusDTO {
+    private int wardId;
+    private String wardName;
+    private String location;
+    private long totalBeds;
+    private long occupiedBeds;
+    private long freeBeds;
+
+    public WardCensusDTO() {}
+
+    public WardCensusDTO(int wardId, String wardName, String location, Long totalBeds, Long occupiedBeds) {
+        this.wardId = wardId;
+        this.wardName = wardName;
+        this.location = location;
+        this.totalBeds = totalBeds != null ? totalBeds : 0;
+        this.occupiedBeds = occupiedBeds != null ? occupiedBeds : 0;
+        this.freeBeds = this.totalBeds - this.occupiedBeds;
+    }
+
+    public int getWardId() {
+        return wardId;
+    }
+
+    public void setWardId(int wardId) {
+        this.wardId = wardId;
+    }
+
+    public String getWardName() {
+        return wardName;
+    }
+
+    public void setWardName(String wardName) {
+        this.wardName = wardName;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public long getTotalBeds() {
+        return totalBeds;
+    }
+
+    public void setTotalBeds(long totalBeds) {
+        this.totalBeds = totalBeds;
+    }
+
+    public long getOccupiedBeds() {
+        return occupiedBeds;
+    }
+
+    public void setOccupiedBeds(long occupiedBeds) {
+        this.occupiedBeds = occupiedBeds;
+    }
+
+    public long getFreeBeds() {
+        return freeBeds;
+    }
+
+    public void setFreeBeds(long freeBeds) {
+        this.freeBeds = freeBeds;
+    }
+}
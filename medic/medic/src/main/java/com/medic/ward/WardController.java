@@ -1,11 +1,17 @@
 package com.medic.ward;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/wards")
@@ -14,12 +20,73 @@ public class WardController {
     @Autowired
     private WardService wardService;
 
+    @Autowired
+    private BedEventBroadcaster bedEvents;
+
     @PostMapping
     public ResponseEntity<Void> create(@RequestBody Ward ward) {
         wardService.save(ward);
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
+    // Server-Sent Events for bed occupancy and ward layout changes. ?wardId= (repeatable)
+    // narrows the stream; a reconnect with Last-Event-ID replays what the client missed.
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestParam(required = false) Set<Integer> wardId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        wardService.preloadOccupancy();
+        return bedEvents.subscribe(wardId, lastEventId);
+    }
+
+    // Occupancy history: ?at= gives who was in which bed at that instant,
+    // ?from=&to= every stay overlapping the window (default: the last 24 hours)
+    @GetMapping("/{id}/occupancy/history")
+    public ResponseEntity<List<BedOccupancyIntervalDTO>> getOccupancyHistory(@PathVariable int id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (at != null) {
+            long instant = Timestamp.valueOf(at).getTime();
+            return ResponseEntity.ok(wardService.getOccupancyHistory(id, instant, instant + 1));
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        if (!start.isBefore(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(wardService.getOccupancyHistory(id,
+                Timestamp.valueOf(start).getTime(), Timestamp.valueOf(end).getTime()));
+    }
+
+    // Occupied vs available bed-hours over a window (default: the last 30 days)
+    @GetMapping("/{id}/occupancy/utilization")
+    public ResponseEntity<WardUtilizationDTO> getUtilization(@PathVariable int id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        if (!start.isBefore(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(wardService.getUtilization(id,
+                Timestamp.valueOf(start).getTime(), Timestamp.valueOf(end).getTime()));
+    }
+
+    // Bed counts per ward from one aggregate query
+    @GetMapping("/census")
+    public ResponseEntity<List<WardCensusDTO>> getCensus() {
+        return ResponseEntity.ok(wardService.getCensus());
+    }
+
+    // Paginated drill-down into one ward's beds: ?after=<last bedId>&limit=&occupied=
+    @GetMapping("/{id}/census/beds")
+    public ResponseEntity<BedPageDTO> getCensusBeds(@PathVariable int id,
+            @RequestParam(defaultValue = "0") int after,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) Boolean occupied) {
+        return ResponseEntity.ok(wardService.getCensusBeds(id, after, limit, occupied));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<WardDTO> getById(@PathVariable int id) {
         WardDTO ward = wardService.getById(id);
@@ -34,6 +101,39 @@ public class WardController {
         return ResponseEntity.ok(wardService.getAll());
     }
 
+    // Compact occupancy grid for the ward view, served from memory
+    @GetMapping("/{id}/grid")
+    public ResponseEntity<WardGridDTO> getGrid(@PathVariable int id) {
+        WardGridDTO grid = wardService.getGrid(id);
+        if (grid != null) {
+            return ResponseEntity.ok(grid);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/{id}/free-bed")
+    public ResponseEntity<BedDTO> getFirstFreeBed(@PathVariable int id) {
+        BedDTO bed = wardService.findFirstFreeBed(id);
+        if (bed != null) {
+            return ResponseEntity.ok(bed);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/{id}/occupancy")
+    public ResponseEntity<WardOccupancyDTO> getOccupancy(@PathVariable int id) {
+        WardOccupancyDTO occupancy = wardService.getOccupancy(id);
+        if (occupancy != null) {
+            return ResponseEntity.ok(occupancy);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/occupancy")
+    public ResponseEntity<List<WardOccupancyDTO>> getAllOccupancy() {
+        return ResponseEntity.ok(wardService.getAllOccupancy());
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Void> update(@PathVariable int id, @RequestBody Ward updatedWard) {
         Ward existing = wardService.getByWardId(id);
@@ -4,6 +4,8 @@ import java.util.List;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -12,9 +14,13 @@ public class WardDao {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private WardOccupancyIndex occupancyIndex;
+
     @Transactional
     public void save(Ward ward) {
         entityManager.persist(ward);
+        occupancyIndex.onWardChanged(ward.getId());
     }
 
     public Ward getById(int id) {
@@ -23,16 +29,31 @@ public class WardDao {
 
     public List<Ward> getAll() {
         return entityManager.createQuery("SELECT w FROM Ward w", Ward.class)
+                            .setHint(QueryHints.HINT_CACHEABLE, true)
                             .getResultList();
     }
 
+    // One GROUP BY over bed instead of materializing every Bed entity. Deliberately not
+    // query-cached: occupancy changes go through native updates that skip query invalidation.
+    public List<WardCensusDTO> getCensus() {
+        String hql = "SELECT new com.medic.ward.WardCensusDTO(" +
+                     "w.id, w.name, w.location, COUNT(b.id), " +
+                     "SUM(CASE WHEN b.isOccupied = true THEN 1L ELSE 0L END)) " +
+                     "FROM Ward w LEFT JOIN w.beds b " +
+                     "GROUP BY w.id, w.name, w.location " +
+                     "ORDER BY w.id";
+        return entityManager.createQuery(hql, WardCensusDTO.class).getResultList();
+    }
+
     @Transactional
     public void update(Ward ward) {
         entityManager.merge(ward);
+        occupancyIndex.onWardChanged(ward.getId());
     }
 
     @Transactional
     public void delete(Ward ward) {
         entityManager.remove(entityManager.contains(ward) ? ward : entityManager.merge(ward));
+        occupancyIndex.onWardChanged(ward.getId());
     }
 }
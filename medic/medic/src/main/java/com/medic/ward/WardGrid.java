@@ -0,0 +1,147 @@
+package com.medic.ward;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Occupancy of one ward. Beds are numbered into slots in row-major (row, column) order and a
+// BitSet holds one bit per slot, so "first free bed" is a nextClearBit() scan over a few words.
+// The bed layout is fixed for the lifetime of a grid; adding or moving beds builds a new one.
+class WardGrid {
+
+    // One bed as loaded from the database
+    static class BedCell {
+        final int bedId;
+        final String bedNumber;
+        final int row;
+        final int column;
+        final boolean occupied;
+
+        BedCell(int bedId, String bedNumber, int row, int column, boolean occupied) {
+            this.bedId = bedId;
+            this.bedNumber = bedNumber;
+            this.row = row;
+            this.column = column;
+            this.occupied = occupied;
+        }
+    }
+
+    private final int wardId;
+    private final int minRow;
+    private final int minColumn;
+    private final int rows;
+    private final int columns;
+    private final BedCell[] slots;
+    private final Map<Integer, Integer> slotByBedId = new HashMap<>();
+    private final BitSet occupied = new BitSet();
+
+    WardGrid(int wardId, List<BedCell> beds) {
+        this.wardId = wardId;
+        this.slots = beds.stream()
+                .sorted(Comparator.comparingInt((BedCell b) -> b.row)
+                        .thenComparingInt(b -> b.column)
+                        .thenComparingInt(b -> b.bedId))
+                .toArray(BedCell[]::new);
+
+        int lowRow = Integer.MAX_VALUE, highRow = Integer.MIN_VALUE;
+        int lowColumn = Integer.MAX_VALUE, highColumn = Integer.MIN_VALUE;
+        for (int slot = 0; slot < slots.length; slot++) {
+            BedCell bed = slots[slot];
+            slotByBedId.put(bed.bedId, slot);
+            occupied.set(slot, bed.occupied);
+            lowRow = Math.min(lowRow, bed.row);
+            highRow = Math.max(highRow, bed.row);
+            lowColumn = Math.min(lowColumn, bed.column);
+            highColumn = Math.max(highColumn, bed.column);
+        }
+        this.minRow = slots.length == 0 ? 0 : lowRow;
+        this.minColumn = slots.length == 0 ? 0 : lowColumn;
+        this.rows = slots.length == 0 ? 0 : highRow - lowRow + 1;
+        this.columns = slots.length == 0 ? 0 : highColumn - lowColumn + 1;
+    }
+
+    int getWardId() {
+        return wardId;
+    }
+
+    int[] getBedIds() {
+        return Arrays.stream(slots).mapToInt(b -> b.bedId).toArray();
+    }
+
+    synchronized void setOccupied(int bedId, boolean value) {
+        Integer slot = slotByBedId.get(bedId);
+        if (slot != null) {
+            occupied.set(slot, value);
+        }
+    }
+
+    synchronized BedDTO firstFreeBed() {
+        int slot = occupied.nextClearBit(0);
+        return slot < slots.length ? toBedDTO(slot, false) : null;
+    }
+
+    synchronized Deque<Integer> freeBedIds() {
+        Deque<Integer> free = new ArrayDeque<>();
+        for (int slot = occupied.nextClearBit(0); slot < slots.length; slot = occupied.nextClearBit(slot + 1)) {
+            free.add(slots[slot].bedId);
+        }
+        return free;
+    }
+
+    synchronized WardOccupancyDTO occupancy() {
+        int occupiedBeds = occupied.cardinality();
+        WardOccupancyDTO dto = new WardOccupancyDTO();
+        dto.setWardId(wardId);
+        dto.setTotalBeds(slots.length);
+        dto.setOccupiedBeds(occupiedBeds);
+        dto.setFreeBeds(slots.length - occupiedBeds);
+        dto.setOccupancyPercent(slots.length == 0 ? 0 : occupiedBeds * 100.0 / slots.length);
+        return dto;
+    }
+
+    // Row-major cells: '.' no bed, 'F' free, 'O' occupied, with the bed id of each cell alongside
+    synchronized WardGridDTO toGridDTO() {
+        char[] cells = new char[rows * columns];
+        int[] cellBedIds = new int[rows * columns];
+        Arrays.fill(cells, '.');
+        for (int slot = 0; slot < slots.length; slot++) {
+            int cell = (slots[slot].row - minRow) * columns + (slots[slot].column - minColumn);
+            cells[cell] = occupied.get(slot) ? 'O' : 'F';
+            cellBedIds[cell] = slots[slot].bedId;
+        }
+
+        WardGridDTO dto = new WardGridDTO();
+        dto.setWardId(wardId);
+        dto.setFirstRow(minRow);
+        dto.setFirstColumn(minColumn);
+        dto.setRows(rows);
+        dto.setColumns(columns);
+        dto.setCells(new String(cells));
+        dto.setBedIds(cellBedIds);
+        dto.setOccupiedBeds(occupied.cardinality());
+        dto.setTotalBeds(slots.length);
+        return dto;
+    }
+
+    synchronized BedDTO getBed(int bedId) {
+        Integer slot = slotByBedId.get(bedId);
+        return slot != null ? toBedDTO(slot, occupied.get(slot)) : null;
+    }
+
+    private BedDTO toBedDTO(int slot, boolean isOccupied) {
+        BedCell bed = slots[slot];
+        BedDTO dto = new BedDTO();
+        dto.setBedId(bed.bedId);
+        dto.setBedNumber(bed.bedNumber);
+        dto.setBedRow(bed.row);
+        dto.setBedColumn(bed.column);
+        dto.setOccupied(isOccupied);
+        dto.setWardId(wardId);
+        return dto;
+    }
+}
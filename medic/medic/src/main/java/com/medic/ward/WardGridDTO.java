@@ -0,0 +1,87 @@
+package com.medic.ward;
+
+// Compact ward layout: cells is rows*columns characters in row-major order
+// ('.' no bed, 'F' free, 'O' occupied) and bedIds holds the bed of each cell (0 if none)
+public class WardGridDTO {
+    private int wardId;
+    private int firstRow;
+    private int firstColumn;
+    private int rows;
+    private int columns;
+    private String cells;
+    private int[] bedIds;
+    private int occupiedBeds;
+    private int totalBeds;
+
+    public int getWardId() {
+        return wardId;
+    }
+
+    public void setWardId(int wardId) {
+        this.wardId = wardId;
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    public void setFirstRow(int firstRow) {
+        this.firstRow = firstRow;
+    }
+
+    public int getFirstColumn() {
+        return firstColumn;
+    }
+
+    public void setFirstColumn(int firstColumn) {
+        this.firstColumn = firstColumn;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public void setColumns(int columns) {
+        this.columns = columns;
+    }
+
+    public String getCells() {
+        return cells;
+    }
+
+    public void setCells(String cells) {
+        this.cells = cells;
+    }
+
+    public int[] getBedIds() {
+        return bedIds;
+    }
+
+    public void setBedIds(int[] bedIds) {
+        this.bedIds = bedIds;
+    }
+
+    public int getOccupiedBeds() {
+        return occupiedBeds;
+    }
+
+    public void setOccupiedBeds(int occupiedBeds) {
+        this.occupiedBeds = occupiedBeds;
+    }
+
+    public int getTotalBeds() {
+        return totalBeds;
+    }
+
+    public void setTotalBeds(int totalBeds) {
+        this.totalBeds = totalBeds;
+    }
+}
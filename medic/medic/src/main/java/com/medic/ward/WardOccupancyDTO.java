@@ -0,0 +1,49 @@
+package com.medic.ward;
+
+public class WardOccupancyDTO {
+    private int wardId;
+    private int totalBeds;
+    private int occupiedBeds;
+    private int freeBeds;
+    private double occupancyPercent;
+
+    public int getWardId() {
+        return wardId;
+    }
+
+    public void setWardId(int wardId) {
+        this.wardId = wardId;
+    }
+
+    public int getTotalBeds() {
+        return totalBeds;
+    }
+
+    public void setTotalBeds(int totalBeds) {
+        this.totalBeds = totalBeds;
+    }
+
+    public int getOccupiedBeds() {
+        return occupiedBeds;
+    }
+
+    public void setOccupiedBeds(int occupiedBeds) {
+        this.occupiedBeds = occupiedBeds;
+    }
+
+    public int getFreeBeds() {
+        return freeBeds;
+    }
+
+    public void setFreeBeds(int freeBeds) {
+        this.freeBeds = freeBeds;
+    }
+
+    public double getOccupancyPercent() {
+        return occupancyPercent;
+    }
+
+    public void setOccupancyPercent(double occupancyPercent) {
+        this.occupancyPercent = occupancyPercent;
+    }
+}
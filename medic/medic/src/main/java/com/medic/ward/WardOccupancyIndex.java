@@ -0,0 +1,380 @@
+package com.medic.ward;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// In-JVM bed occupancy per ward plus bed <-> patient maps, loaded once from the database and
+// then kept current by the writes that go through BedDao, WardDao and PatientDao. Changes are
+// applied after commit, so the index never shows a state the database rolled back. Reads from
+// the database run in a read-only transaction of their own: a ward reload happens after the
+// triggering transaction committed, when its EntityManager can no longer be used. Until a full
+// load completes without a change racing it, each read is answered from a fresh database load.
+@Component
+public class WardOccupancyIndex {
+
+    private static final int LOAD_ATTEMPTS = 3;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private BedEventBroadcaster events;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readTransaction;
+
+    // Null until a full load was installed without a change racing it
+    private volatile State state;
+    // Bumped by every change; a full load that overlapped a change is not kept
+    private final AtomicLong changes = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransaction.setReadOnly(true);
+    }
+
+    public BedDTO findFirstFreeBed(int wardId) {
+        WardGrid grid = current().gridsByWard.get(wardId);
+        return grid != null ? grid.firstFreeBed() : null;
+    }
+
+    public WardOccupancyDTO getOccupancy(int wardId) {
+        WardGrid grid = current().gridsByWard.get(wardId);
+        return grid != null ? grid.occupancy() : null;
+    }
+
+    public List<WardOccupancyDTO> getAllOccupancy() {
+        List<WardOccupancyDTO> occupancy = new ArrayList<>();
+        current().gridsByWard.values().forEach(grid -> occupancy.add(grid.occupancy()));
+        occupancy.sort((a, b) -> Integer.compare(a.getWardId(), b.getWardId()));
+        return occupancy;
+    }
+
+    // Snapshot of free beds per ward in grid order, for bulk allocation planning.
+    // The database still has the final say: claims use a conditional update.
+    public Map<Integer, Deque<Integer>> getFreeBedsByWard() {
+        Map<Integer, Deque<Integer>> free = new TreeMap<>();
+        current().gridsByWard.forEach((wardId, grid) -> free.put(wardId, grid.freeBedIds()));
+        return free;
+    }
+
+    public WardGridDTO getGrid(int wardId) {
+        WardGrid grid = current().gridsByWard.get(wardId);
+        return grid != null ? grid.toGridDTO() : null;
+    }
+
+    public Integer getOccupant(int bedId) {
+        return current().patientsByBed.get(bedId);
+    }
+
+    public BedDTO getBed(int bedId) {
+        WardGrid grid = current().gridsByBed.get(bedId);
+        return grid != null ? grid.getBed(bedId) : null;
+    }
+
+    // Patient moved from one bed to another (either side may be null)
+    public void onAssignment(int patientId, Integer fromBedId, Integer toBedId) {
+        Map<Integer, Integer> from = new HashMap<>();
+        Map<Integer, Integer> to = new HashMap<>();
+        from.put(patientId, fromBedId);
+        to.put(patientId, toBedId);
+        onTransfer(from, to);
+    }
+
+    // Several patients moved in one transaction: every old bed is released before any new one
+    // is taken, so swaps between the movers end up with both beds occupied
+    public void onTransfer(Map<Integer, Integer> fromBeds, Map<Integer, Integer> toBeds) {
+        afterCommit(current -> {
+            fromBeds.forEach((patientId, bedId) -> {
+                if (bedId != null && !bedId.equals(toBeds.get(patientId))) {
+                    current.setOccupied(bedId, false);
+                    current.unlink(bedId, patientId);
+                    publish(current, BedEventDTO.Type.BED_FREED, bedId, patientId);
+                }
+            });
+            toBeds.forEach((patientId, bedId) -> {
+                if (bedId != null && !bedId.equals(fromBeds.get(patientId))) {
+                    current.setOccupied(bedId, true);
+                    current.link(bedId, patientId);
+                    publish(current, BedEventDTO.Type.BED_OCCUPIED, bedId, patientId);
+                }
+            });
+        });
+    }
+
+    // Held beds count as occupied, so planning and first-free-bed skip them
+    public void onBedHeld(int bedId) {
+        afterCommit(current -> {
+            current.setOccupied(bedId, true);
+            publish(current, BedEventDTO.Type.BED_HELD, bedId, null);
+        });
+    }
+
+    // Hold released or expired; a hold taken over by a patient goes through onAssignment instead
+    public void onHoldEnded(int bedId) {
+        afterCommit(current -> {
+            current.setOccupied(bedId, false);
+            publish(current, BedEventDTO.Type.BED_FREED, bedId, null);
+        });
+    }
+
+    // Patient saved or merged with a bed reference; only the bed -> patient link changes
+    public void onPatientBed(int patientId, Integer bedId) {
+        afterCommit(current -> {
+            current.unlinkPatient(patientId);
+            if (bedId != null) {
+                current.link(bedId, patientId);
+            }
+        });
+    }
+
+    public void onPatientDeleted(int patientId) {
+        afterCommit(current -> current.unlinkPatient(patientId));
+    }
+
+    // Bed created, edited or removed: its ward's layout may have changed, so reload that ward
+    public void onBedChanged(int bedId, Integer wardId) {
+        afterCommit(current -> {
+            WardGrid previous = current.gridsByBed.get(bedId);
+            if (previous != null && (wardId == null || previous.getWardId() != wardId)) {
+                reloadWard(current, previous.getWardId());
+            }
+            if (wardId != null) {
+                reloadWard(current, wardId);
+            }
+        });
+    }
+
+    public void onBedDeleted(int bedId) {
+        afterCommit(current -> {
+            current.unlinkBed(bedId);
+            WardGrid previous = current.gridsByBed.get(bedId);
+            if (previous != null) {
+                reloadWard(current, previous.getWardId());
+            }
+        });
+    }
+
+    public void onWardChanged(int wardId) {
+        afterCommit(current -> reloadWard(current, wardId));
+    }
+
+    // Loads the index up front, so events carry ward ids from the first change on
+    public void preload() {
+        current();
+    }
+
+    private void publish(State current, BedEventDTO.Type type, int bedId, Integer patientId) {
+        WardGrid grid = current.gridsByBed.get(bedId);
+        if (grid != null) {
+            events.publish(type, grid.getWardId(), bedId, patientId);
+        }
+    }
+
+    private State current() {
+        State current = state;
+        return current != null ? current : load();
+    }
+
+    // Installs a full load unless a change raced it. After LOAD_ATTEMPTS races the caller gets
+    // the last load as a one-off answer and the index stays unloaded, so the next read tries again.
+    private synchronized State load() {
+        State current = state;
+        if (current != null) {
+            return current;
+        }
+        State fresh = null;
+        for (int attempt = 0; attempt < LOAD_ATTEMPTS; attempt++) {
+            long before = changes.get();
+            fresh = readTransaction.execute(status -> readAll());
+            state = fresh;
+            // A change counted by now may have been applied to nothing while the load ran
+            if (changes.get() == before) {
+                return fresh;
+            }
+            state = null;
+        }
+        return fresh;
+    }
+
+    private synchronized void reloadWard(State current, int wardId) {
+        WardGrid grid;
+        try {
+            grid = readTransaction.execute(status -> readWard(wardId));
+        } catch (RuntimeException e) {
+            // The ward's layout is unknown now: drop the index, the next read loads it afresh
+            state = null;
+            throw e;
+        }
+        current.replaceWard(wardId, grid);
+        events.publish(BedEventDTO.Type.WARD_CHANGED, wardId, null, null);
+    }
+
+    private State readAll() {
+        Map<Integer, List<WardGrid.BedCell>> bedsByWard = new HashMap<>();
+        for (Object[] row : queryBeds(null)) {
+            bedsByWard.computeIfAbsent(((Number) row[1]).intValue(), id -> new ArrayList<>()).add(toCell(row));
+        }
+        List<?> wardIds = entityManager.createNativeQuery("SELECT ward_id FROM ward").getResultList();
+        List<?> occupants = entityManager.createNativeQuery(
+                "SELECT bed_id, patient_id FROM patient WHERE bed_id IS NOT NULL").getResultList();
+
+        State fresh = new State();
+        for (Object wardId : wardIds) {
+            int id = ((Number) wardId).intValue();
+            fresh.install(new WardGrid(id, bedsByWard.getOrDefault(id, new ArrayList<>())));
+        }
+        for (Object occupant : occupants) {
+            Object[] row = (Object[]) occupant;
+            fresh.link(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+        }
+        return fresh;
+    }
+
+    // The ward's grid as stored, or null when the ward no longer exists
+    private WardGrid readWard(int wardId) {
+        boolean wardExists = !entityManager.createNativeQuery("SELECT ward_id FROM ward WHERE ward_id = :wardId")
+                .setParameter("wardId", wardId)
+                .getResultList()
+                .isEmpty();
+        if (!wardExists) {
+            return null;
+        }
+        List<WardGrid.BedCell> beds = new ArrayList<>();
+        for (Object[] row : queryBeds(wardId)) {
+            beds.add(toCell(row));
+        }
+        return new WardGrid(wardId, beds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> queryBeds(Integer wardId) {
+        String sql = "SELECT bed_id, ward_id, bed_number, bed_row, bed_column, is_occupied FROM bed"
+                + (wardId != null ? " WHERE ward_id = :wardId" : "");
+        javax.persistence.Query query = entityManager.createNativeQuery(sql);
+        if (wardId != null) {
+            query.setParameter("wardId", wardId);
+        }
+        return query.getResultList();
+    }
+
+    private WardGrid.BedCell toCell(Object[] row) {
+        Object occupied = row[5];
+        boolean isOccupied = occupied instanceof Boolean ? (Boolean) occupied : ((Number) occupied).intValue() != 0;
+        return new WardGrid.BedCell(((Number) row[0]).intValue(), (String) row[2],
+                ((Number) row[3]).intValue(), ((Number) row[4]).intValue(), isOccupied);
+    }
+
+    // The change is counted first, then applied to whatever is installed by then; while nothing
+    // is, the next load reads it from the database
+    private void afterCommit(Consumer<State> change) {
+        Runnable counted = () -> {
+            changes.incrementAndGet();
+            State current = state;
+            if (current != null) {
+                change.accept(current);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counted.run();
+                }
+            });
+        } else {
+            counted.run();
+        }
+    }
+
+    // Everything one load of the index holds; a full load builds a new one and swaps it in
+    private static final class State {
+        private final ConcurrentHashMap<Integer, WardGrid> gridsByWard = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Integer, WardGrid> gridsByBed = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Integer, Integer> patientsByBed = new ConcurrentHashMap<>();
+        // Reverse of patientsByBed, so a patient's bed is found without scanning every bed
+        private final ConcurrentHashMap<Integer, Integer> bedsByPatient = new ConcurrentHashMap<>();
+
+        private void install(WardGrid grid) {
+            gridsByWard.put(grid.getWardId(), grid);
+            for (int bedId : grid.getBedIds()) {
+                gridsByBed.put(bedId, grid);
+            }
+        }
+
+        // grid null when the ward is gone
+        private void replaceWard(int wardId, WardGrid grid) {
+            WardGrid previous = gridsByWard.remove(wardId);
+            if (previous != null) {
+                for (int bedId : previous.getBedIds()) {
+                    gridsByBed.remove(bedId, previous);
+                }
+            }
+            if (grid != null) {
+                install(grid);
+            }
+        }
+
+        private void setOccupied(int bedId, boolean occupied) {
+            WardGrid grid = gridsByBed.get(bedId);
+            if (grid != null) {
+                grid.setOccupied(bedId, occupied);
+            }
+        }
+
+        // Guarded by this: both maps change together
+        private synchronized void link(int bedId, int patientId) {
+            Integer previousBed = bedsByPatient.put(patientId, bedId);
+            if (previousBed != null && previousBed != bedId) {
+                patientsByBed.remove(previousBed, patientId);
+            }
+            Integer previousPatient = patientsByBed.put(bedId, patientId);
+            if (previousPatient != null && previousPatient != patientId) {
+                bedsByPatient.remove(previousPatient, bedId);
+            }
+        }
+
+        private synchronized void unlink(int bedId, int patientId) {
+            if (patientsByBed.remove(bedId, patientId)) {
+                bedsByPatient.remove(patientId, bedId);
+            }
+        }
+
+        private synchronized void unlinkPatient(int patientId) {
+            Integer bedId = bedsByPatient.remove(patientId);
+            if (bedId != null) {
+                patientsByBed.remove(bedId, patientId);
+            }
+        }
+
+        private synchronized void unlinkBed(int bedId) {
+            Integer patientId = patientsByBed.remove(bedId);
+            if (patientId != null) {
+                bedsByPatient.remove(patientId, bedId);
+            }
+        }
+    }
+}
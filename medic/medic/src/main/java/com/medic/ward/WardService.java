@@ -7,6 +7,7 @@ import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.hibernate.jpa.QueryHints;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,9 +16,20 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class WardService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private WardDao wardDao;
 
+    @Autowired
+    private BedDao bedDao;
+
+    @Autowired
+    private BedOccupancyTimeline occupancyTimeline;
+
+    @Autowired
+    private WardOccupancyIndex occupancyIndex;
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -31,6 +43,7 @@ public class WardService {
         String hql = "SELECT w FROM Ward w LEFT JOIN FETCH w.beds WHERE w.id = :id";
         return entityManager.createQuery(hql, Ward.class)
                 .setParameter("id", id)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
                 .getSingleResult();
     }
 
@@ -40,6 +53,7 @@ public class WardService {
         String hql = "SELECT w FROM Ward w LEFT JOIN FETCH w.beds WHERE w.id = :id";
         Ward ward = entityManager.createQuery(hql, Ward.class)
                 .setParameter("id", id)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
                 .getSingleResult();
         return convertToWardDTO(ward);
     }
@@ -49,6 +63,7 @@ public class WardService {
         // Use JOIN FETCH to eagerly load beds for all wards
         String hql = "SELECT DISTINCT w FROM Ward w LEFT JOIN FETCH w.beds";
         List<Ward> wards = entityManager.createQuery(hql, Ward.class)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
                 .getResultList();
         return wards.stream()
                 .map(this::convertToWardDTO)
@@ -71,10 +86,54 @@ public class WardService {
         Ward ward = entityManager.createQuery(
                 "SELECT w FROM Ward w LEFT JOIN FETCH w.beds WHERE w.id = :id", Ward.class)
                 .setParameter("id", id)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
                 .getSingleResult();
         return convertToWardDTO(ward);
     }
 
+    @Transactional(readOnly = true)
+    public List<WardCensusDTO> getCensus() {
+        return wardDao.getCensus();
+    }
+
+    @Transactional(readOnly = true)
+    public BedPageDTO getCensusBeds(int wardId, int afterId, int limit, Boolean occupied) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<BedDTO> beds = bedDao.getBedsByWard(wardId, afterId, pageSize, occupied);
+        Integer nextAfter = beds.size() < pageSize ? null : beds.get(beds.size() - 1).getBedId();
+        return new BedPageDTO(beds, nextAfter);
+    }
+
+    // Occupancy queries below are answered from the in-memory index, not the database
+    public WardGridDTO getGrid(int wardId) {
+        return occupancyIndex.getGrid(wardId);
+    }
+
+    public BedDTO findFirstFreeBed(int wardId) {
+        return occupancyIndex.findFirstFreeBed(wardId);
+    }
+
+    public WardOccupancyDTO getOccupancy(int wardId) {
+        return occupancyIndex.getOccupancy(wardId);
+    }
+
+    public List<WardOccupancyDTO> getAllOccupancy() {
+        return occupancyIndex.getAllOccupancy();
+    }
+
+    // Bed stays overlapping [from, to) from the ward's interval tree
+    public List<BedOccupancyIntervalDTO> getOccupancyHistory(int wardId, long from, long to) {
+        return occupancyTimeline.getStays(wardId, from, to);
+    }
+
+    public WardUtilizationDTO getUtilization(int wardId, long from, long to) {
+        return occupancyTimeline.getUtilization(wardId, from, to);
+    }
+
+    public void preloadOccupancy() {
+        occupancyIndex.preload();
+    }
+
     // Conversion method from Ward entity to WardDTO
     private WardDTO convertToWardDTO(Ward ward) {
         if (ward == null) {
@@ -0,0 +1,35 @@
+package com.medic.ward;
+
+import java.sql.Timestamp;
+
+// Occupied bed-hours of a ward over a window, against its current bed count
+public class WardUtilizationDTO {
+    private int wardId;
+    private Timestamp from;
+    private Timestamp to;
+    private int stays;
+    private double occupiedBedHours;
+    private double availableBedHours;
+    private double utilizationPercent;
+
+    public int getWardId() { return wardId; }
+    public void setWardId(int wardId) { this.wardId = wardId; }
+
+    public Timestamp getFrom() { return from; }
+    public void setFrom(Timestamp from) { this.from = from; }
+
+    public Timestamp getTo() { return to; }
+    public void setTo(Timestamp to) { this.to = to; }
+
+    public int getStays() { return stays; }
+    public void setStays(int stays) { this.stays = stays; }
+
+    public double getOccupiedBedHours() { return occupiedBedHours; }
+    public void setOccupiedBedHours(double occupiedBedHours) { this.occupiedBedHours = occupiedBedHours; }
+
+    public double getAvailableBedHours() { return availableBedHours; }
+    public void setAvailableBedHours(double availableBedHours) { this.availableBedHours = availableBedHours; }
+
+    public double getUtilizationPercent() { return utilizationPercent; }
+    public void setUtilizationPercent(double utilizationPercent) { this.utilizationPercent = utilizationPercent; }
+}
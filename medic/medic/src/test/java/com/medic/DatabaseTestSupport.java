@@ -0,0 +1,177 @@
+package com.medic;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.utility.DockerImageName;
+
+import com.medic.ward.WardOccupancyIndex;
+
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+
+// Base for tests that need the real application against MySQL 8. One database is migrated per
+// JVM and shared by every test class, so Spring's cached context stays valid across them. It is
+// a throwaway container unless -Dmedic.test.db.url (with .username / .password) points at an
+// existing, empty database. The schema is built the way a fresh install is: Liquibase first for
+// the tables no entity maps, then the context starts and hbm2ddl creates the entity tables, then
+// Liquibase runs again for the changesets that waited on them (foreign keys, seeds). Concrete
+// classes call requireDatabase() (and requireBenchmarks() for timing runs) from their own
+// @BeforeClass, which skips them when no database is available before any context is started.
+@RunWith(SpringJUnit4ClassRunner.class)
+@WebAppConfiguration
+@ContextConfiguration("classpath:applicationContext.xml")
+public abstract class DatabaseTestSupport {
+
+    private static final String USER = "root";
+    private static final String PASSWORD = "medic";
+
+    private static GenericContainer<?> mysql;
+    private static String url;
+    private static boolean migratedAfterContext;
+
+    // The metered pool the application uses, picked by name over the raw pool behind it
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    protected WardOccupancyIndex occupancyIndex;
+
+    protected JdbcTemplate jdbc;
+
+    @Before
+    public void createJdbcTemplate() throws Exception {
+        migrateAfterContext(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    public static synchronized void requireDatabase() throws Exception {
+        if (url != null) {
+            return;
+        }
+        String external = System.getProperty("medic.test.db.url");
+        String user = System.getProperty("medic.test.db.username", USER);
+        String password = System.getProperty("medic.test.db.password", PASSWORD);
+        if (external == null) {
+            assumeTrue("Docker is not available", DockerClientFactory.instance().isDockerAvailable());
+            GenericContainer<?> container = new GenericContainer<>(DockerImageName.parse("mysql:8.0"))
+                    .withEnv("MYSQL_ROOT_PASSWORD", PASSWORD)
+                    .withEnv("MYSQL_DATABASE", "medic")
+                    .withExposedPorts(3306)
+                    .waitingFor(Wait.forLogMessage(".*ready for connections.*port: 3306.*", 1)
+                            .withStartupTimeout(Duration.ofMinutes(3)));
+            container.start();
+            mysql = container;
+            external = "jdbc:mysql://" + container.getHost() + ":" + container.getMappedPort(3306)
+                    + "/medic?rewriteBatchedStatements=true&useSSL=false&allowPublicKeyRetrieval=true";
+        }
+        try (Connection connection = DriverManager.getConnection(external, user, password)) {
+            migrate(connection);
+        }
+        // Read by the property placeholder ahead of medic.properties
+        System.setProperty("medic.db.url", external);
+        System.setProperty("medic.db.username", user);
+        System.setProperty("medic.db.password", password);
+        url = external;
+    }
+
+    // Second pass, once hbm2ddl has created patient, bed, ward and dosage
+    private static synchronized void migrateAfterContext(DataSource dataSource) throws Exception {
+        if (migratedAfterContext) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            migrate(connection);
+        }
+        migratedAfterContext = true;
+    }
+
+    private static void migrate(Connection connection) throws Exception {
+        Database database = DatabaseFactory.getInstance()
+                .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+        new Liquibase("db/changeLog-master.xml", new ClassLoaderResourceAccessor(), database)
+                .update(new Contexts());
+    }
+
+    // Timing runs are opt-in: -Dmedic.benchmarks=true
+    public static void requireBenchmarks() throws Exception {
+        assumeTrue("Benchmarks run with -Dmedic.benchmarks=true", Boolean.getBoolean("medic.benchmarks"));
+        requireDatabase();
+    }
+
+    protected int insertWard(String name) {
+        KeyHolder key = new GeneratedKeyHolder();
+        jdbc.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO ward (ward_name, location) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, name);
+            statement.setString(2, "Test wing");
+            return statement;
+        }, key);
+        return key.getKey().intValue();
+    }
+
+    // Free beds in a ten-wide grid; the occupancy index is told, as BedDao would after a save
+    protected List<Integer> insertBeds(int wardId, int count) {
+        jdbc.batchUpdate("INSERT INTO bed (bed_number, bed_row, bed_column, is_occupied, ward_id) VALUES (?, ?, ?, 0, ?)",
+                new AbstractList<Object[]>() {
+                    @Override
+                    public Object[] get(int i) {
+                        return new Object[] {"B" + (i + 1), i / 10, i % 10, wardId};
+                    }
+
+                    @Override
+                    public int size() {
+                        return count;
+                    }
+                });
+        occupancyIndex.onWardChanged(wardId);
+        return jdbc.queryForList("SELECT bed_id FROM bed WHERE ward_id = ? ORDER BY bed_id", Integer.class, wardId);
+    }
+
+    protected List<Integer> insertPatients(int count) {
+        String batch = "T" + System.nanoTime();
+        Timestamp dateOfBirth = Timestamp.valueOf("1985-03-01 00:00:00");
+        jdbc.batchUpdate("INSERT INTO patient (first_name, middle_name, last_name, date_of_birth, gender) " +
+                         "VALUES (?, '', ?, ?, 'F')",
+                new AbstractList<Object[]>() {
+                    @Override
+                    public Object[] get(int i) {
+                        return new Object[] {"Patient" + i, batch, dateOfBirth};
+                    }
+
+                    @Override
+                    public int size() {
+                        return count;
+                    }
+                });
+        return jdbc.queryForList("SELECT patient_id FROM patient WHERE last_name = ? ORDER BY patient_id",
+                Integer.class, batch);
+    }
+}
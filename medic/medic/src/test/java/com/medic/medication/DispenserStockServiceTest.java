@@ -0,0 +1,97 @@
+package com.medic.medication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.medic.DatabaseTestSupport;
+
+// Stock survives a hard kill and converges across nodes. A second DispenserStockService on the
+// same database stands in for a restarted process or another node; neither is ever shut down,
+// so nothing is written on the way out.
+public class DispenserStockServiceTest extends DatabaseTestSupport {
+
+    @Autowired
+    private DispenserStockService stockService;
+
+    @Autowired
+    private DispenserStockDao stockDao;
+
+    private int dispenserId;
+
+    @BeforeClass
+    public static void setUpDatabase() throws Exception {
+        requireDatabase();
+    }
+
+    @Before
+    public void pickDispenser() {
+        // dispenser_stock has no foreign key to dispenser; a fresh id keeps runs apart
+        dispenserId = 1_000_000 + ThreadLocalRandom.current().nextInt(1_000_000);
+    }
+
+    @Test
+    public void acknowledgedChangesSurviveARestartBeforeAnyFlush() {
+        stockService.adjust(dispenserId, "Amoxicillin 500mg", 10);
+        stockService.dispense(dispenserId, "amoxicillin  500MG", 3);
+
+        DispenserStockService restarted = new DispenserStockService(stockDao);
+
+        assertEquals(7, restarted.getStock(dispenserId, "Amoxicillin 500mg").getOnHand());
+    }
+
+    @Test
+    public void refreshPicksUpChangesMadeOnAnotherNode() throws Exception {
+        stockService.adjust(dispenserId, "Paracetamol", 20);
+        DispenserStockService otherNode = new DispenserStockService(stockDao);
+        otherNode.dispense(dispenserId, "Paracetamol", 5);
+        otherNode.reserve(dispenserId, "Paracetamol", 4);
+
+        stockService.refresh();
+
+        // Reservations are per node: the other node's hold does not show here
+        StockLevelDTO level = stockService.getStock(dispenserId, "Paracetamol");
+        assertEquals(15, level.getOnHand());
+        assertEquals(15, level.getAvailable());
+    }
+
+    @Test
+    public void foldingLeavesOnHandUnchanged() throws Exception {
+        stockService.adjust(dispenserId, "Metformin", 50);
+        stockService.dispense(dispenserId, "Metformin", 8);
+        long before = stockService.getStock(dispenserId, "Metformin").getOnHand();
+
+        stockService.flush();
+        stockService.refresh();
+
+        assertEquals(before, stockService.getStock(dispenserId, "Metformin").getOnHand());
+        assertEquals(42L, (long) jdbc.queryForObject(
+                "SELECT on_hand FROM dispenser_stock WHERE dispenser_id = ? AND drug_name = 'metformin'",
+                Long.class, dispenserId));
+        assertTrue(jdbc.queryForList("SELECT movement_id FROM stock_movement WHERE dispenser_id = ?",
+                String.class, dispenserId).isEmpty());
+    }
+
+    @Test
+    public void reservationsHoldAgainstRefreshedStock() throws Exception {
+        stockService.adjust(dispenserId, "Ceftriaxone", 10);
+        StockReservationDTO reservation = stockService.reserve(dispenserId, "Ceftriaxone", 6);
+
+        stockService.refresh();
+        StockLevelDTO held = stockService.getStock(dispenserId, "Ceftriaxone");
+        assertEquals(10, held.getOnHand());
+        assertEquals(4, held.getAvailable());
+
+        stockService.completeReservation(dispenserId, reservation.getReservationId(), true);
+        stockService.refresh();
+        StockLevelDTO dispensed = stockService.getStock(dispenserId, "Ceftriaxone");
+        assertEquals(4, dispensed.getOnHand());
+        assertEquals(0, dispensed.getReserved());
+    }
+}
@@ -0,0 +1,93 @@
+package com.medic.medication;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class InteractionIndexTest {
+
+    @Test
+    public void findsAPairInEitherOrder() {
+        InteractionIndex index = new InteractionIndex.Builder()
+                .add("warfarin", "aspirin", InteractionSeverity.MAJOR, "Bleeding risk")
+                .add("simvastatin", "clarithromycin", InteractionSeverity.CONTRAINDICATED, "Myopathy")
+                .build();
+        int warfarin = id(index, "warfarin");
+        int aspirin = id(index, "aspirin");
+
+        int entry = index.find(warfarin, aspirin);
+        assertEquals(entry, index.find(aspirin, warfarin));
+        assertEquals(InteractionSeverity.MAJOR, index.severity(entry));
+        assertEquals("Bleeding risk", index.description(entry));
+        assertEquals(-1, index.find(warfarin, id(index, "simvastatin")));
+        assertEquals(-1, index.find(warfarin, warfarin));
+        assertEquals(2, index.size());
+        assertEquals(4, index.drugCount());
+    }
+
+    @Test
+    public void keepsTheLastLineForARepeatedPair() {
+        InteractionIndex index = new InteractionIndex.Builder()
+                .add("warfarin", "aspirin", InteractionSeverity.MODERATE, "Old")
+                .add("aspirin", "warfarin", InteractionSeverity.MAJOR, "New")
+                .build();
+
+        int entry = index.find(id(index, "warfarin"), id(index, "aspirin"));
+        assertEquals(InteractionSeverity.MAJOR, index.severity(entry));
+        assertEquals("New", index.description(entry));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void resolvesDrugsNamedWithinALongerName() {
+        InteractionIndex index = new InteractionIndex.Builder()
+                .add("isosorbide mononitrate", "sildenafil", InteractionSeverity.CONTRAINDICATED, "Hypotension")
+                .add("warfarin", "aspirin", InteractionSeverity.MAJOR, "Bleeding risk")
+                .build();
+
+        assertArrayEquals(new int[] {id(index, "isosorbide mononitrate")},
+                index.resolve("isosorbide mononitrate 20mg tablets"));
+        assertArrayEquals(new int[] {id(index, "aspirin")}, index.resolve("low dose aspirin 75mg"));
+        assertArrayEquals(new int[] {id(index, "warfarin"), id(index, "aspirin")},
+                index.resolve("warfarin aspirin combination"));
+        assertArrayEquals(new int[0], index.resolve("paracetamol 500mg"));
+        assertArrayEquals(new int[0], index.resolve(null));
+    }
+
+    @Test
+    public void findsEveryPairOfALargeTableAndNothingElse() {
+        InteractionIndex.Builder builder = new InteractionIndex.Builder();
+        int drugs = 300;
+        for (int a = 0; a < drugs; a++) {
+            for (int b = a + 1; b < drugs; b += 7) {
+                builder.add("drug" + a, "drug" + b, InteractionSeverity.values()[(a + b) % 4], a + "+" + b);
+            }
+        }
+        InteractionIndex index = builder.build();
+
+        for (int a = 0; a < drugs; a++) {
+            for (int b = a + 1; b < drugs; b++) {
+                int entry = index.find(id(index, "drug" + b), id(index, "drug" + a));
+                if ((b - a - 1) % 7 == 0) {
+                    assertEquals(a + "+" + b, index.description(entry));
+                } else {
+                    assertEquals(-1, entry);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emptyIndexFindsNothing() {
+        InteractionIndex index = InteractionIndex.empty();
+
+        assertEquals(0, index.size());
+        assertEquals(-1, index.find(0, 1));
+        assertArrayEquals(new int[0], index.resolve("warfarin"));
+    }
+
+    private static int id(InteractionIndex index, String drug) {
+        return index.resolve(drug)[0];
+    }
+}
@@ -0,0 +1,108 @@
+package com.medic.medication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MedicinePriceCatalogTest {
+
+    // price_id -> row, standing in for medicine_price
+    private final Map<Integer, Object[]> table = new TreeMap<>();
+    private final List<Collection<Integer>> rowReads = new ArrayList<>();
+    private int tableReads;
+
+    private MedicinePriceCatalog catalog;
+
+    @Before
+    public void setUp() {
+        for (int id = 1; id <= 100; id++) {
+            put(id, 10.0 * id);
+        }
+        catalog = new MedicinePriceCatalog(new MedicinePriceDao() {
+            @Override
+            public List<Object[]> findAllRows() {
+                tableReads++;
+                return new ArrayList<>(table.values());
+            }
+
+            @Override
+            public List<Object[]> findRows(Collection<Integer> ids) {
+                rowReads.add(new ArrayList<>(ids));
+                List<Object[]> rows = new ArrayList<>();
+                ids.stream().filter(table::containsKey).forEach(id -> rows.add(table.get(id)));
+                return rows;
+            }
+        });
+    }
+
+    @Test
+    public void appliesOnlyTheChangedRowsToACopyOfTheCurrentPrices() {
+        MedicinePriceCatalog.Snapshot before = catalog.snapshot();
+        put(7, 75.5);
+        put(101, 1010.0);
+        table.remove(50);
+
+        catalog.updateAfterCommit(Arrays.asList(7, 101, 50));
+        MedicinePriceCatalog.Snapshot after = catalog.snapshot();
+
+        assertEquals(1, tableReads);
+        assertEquals(1, rowReads.size());
+        assertEquals(new HashSet<>(Arrays.asList(7, 101, 50)), new HashSet<>(rowReads.get(0)));
+        assertEquals(75.5, after.find(7).getPrice(), 0);
+        assertEquals(1010.0, after.find(101).getPrice(), 0);
+        assertNull(after.find(50));
+        assertEquals(100, after.size());
+        assertSame(after.find(8), before.find(8));
+        // The published snapshot is never changed
+        assertEquals(70.0, before.find(7).getPrice(), 0);
+        assertEquals(100, before.size());
+        assertEquals(before.getVersion() + 1, after.getVersion());
+    }
+
+    @Test
+    public void loadsTheWholeTableWhenUpdatedBeforeTheFirstLoad() {
+        catalog.updateAfterCommit(Collections.singleton(7));
+
+        assertEquals(1, tableReads);
+        assertEquals(0, rowReads.size());
+        assertEquals(100, catalog.snapshot().size());
+    }
+
+    @Test
+    public void keepsThePricesWhenTheChangedRowsCannotBeRead() {
+        MedicinePriceCatalog.Snapshot before = catalog.snapshot();
+        catalog = new MedicinePriceCatalog(new MedicinePriceDao() {
+            @Override
+            public List<Object[]> findAllRows() {
+                return new ArrayList<>(table.values());
+            }
+
+            @Override
+            public List<Object[]> findRows(Collection<Integer> ids) {
+                throw new IllegalStateException("connection refused");
+            }
+        });
+        MedicinePriceCatalog.Snapshot loaded = catalog.snapshot();
+
+        catalog.updateAfterCommit(Collections.singleton(7));
+
+        assertSame(loaded, catalog.snapshot());
+        assertEquals(before.size(), loaded.size());
+    }
+
+    private void put(int id, double price) {
+        table.put(id, new Object[] {id, 1, "tablet", price});
+    }
+}
@@ -0,0 +1,79 @@
+package com.medic.medication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class PrescriptionCompilerTest {
+
+    private static final long DAY = 24 * 60;
+
+    private final PrescriptionCompiler compiler = new PrescriptionCompiler(2);
+
+    @Test
+    public void readsIntervals() {
+        assertEquals(PrescriptionSchedule.every(6 * 60, 0, 0), compiler.compile("q6h"));
+        assertEquals(PrescriptionSchedule.every(6 * 60, 0, 0), compiler.compile("Q 6 hrs"));
+        assertEquals(PrescriptionSchedule.every(4 * 60, 0, 0), compiler.compile("4-hourly"));
+        assertEquals(PrescriptionSchedule.every(30, 0, 0), compiler.compile("every 30 minutes"));
+        assertEquals(PrescriptionSchedule.every(90, 0, 0), compiler.compile("every 1.5 hours"));
+        assertEquals(PrescriptionSchedule.every(2 * DAY, 0, 0), compiler.compile("every other day"));
+    }
+
+    @Test
+    public void readsFrequencies() {
+        assertEquals(PrescriptionSchedule.every(DAY / 3, 0, 0), compiler.compile("1 tab tds"));
+        assertEquals(PrescriptionSchedule.every(DAY / 2, 0, 0), compiler.compile("BD"));
+        assertEquals(PrescriptionSchedule.every(DAY / 2, 0, 0), compiler.compile("twice daily"));
+        assertEquals(PrescriptionSchedule.every(DAY / 3, 0, 0), compiler.compile("three times a day"));
+        assertEquals(PrescriptionSchedule.every(DAY, 0, 0), compiler.compile("nocte"));
+        assertEquals(PrescriptionSchedule.every(7 * DAY, 0, 0), compiler.compile("once weekly"));
+    }
+
+    @Test
+    public void readsCourseLimits() {
+        assertEquals(PrescriptionSchedule.every(8 * 60, 0, 5 * DAY), compiler.compile("every 8 hours for 5 days"));
+        assertEquals(PrescriptionSchedule.every(8 * 60, 6, 0), compiler.compile("500mg tds x 6 doses"));
+        assertEquals(PrescriptionSchedule.every(12 * 60, 4, 0), compiler.compile("bd for four doses"));
+        assertEquals(PrescriptionSchedule.single(), compiler.compile("x 1 dose"));
+    }
+
+    @Test
+    public void readsSingleAndAsNeededDoses() {
+        assertEquals(PrescriptionSchedule.single(), compiler.compile("stat"));
+        assertEquals(PrescriptionSchedule.single(), compiler.compile("1g IV once only"));
+        assertEquals(PrescriptionSchedule.AS_NEEDED, compiler.compile("prn"));
+        // As needed wins over a stated interval: there is no fixed time to remind
+        assertEquals(PrescriptionSchedule.AS_NEEDED, compiler.compile("q6h prn for pain"));
+    }
+
+    @Test
+    public void leavesOverLengthNumbersUnread() {
+        assertEquals(PrescriptionSchedule.UNRECOGNIZED, compiler.compile("every 12345 hours"));
+        assertEquals(PrescriptionSchedule.UNRECOGNIZED, compiler.compile("q99999999999h"));
+        assertEquals(PrescriptionSchedule.UNRECOGNIZED, compiler.compile("x 6 doses"));
+        // The interval is still understood; the course limit that overflows is ignored
+        assertEquals(PrescriptionSchedule.every(6 * 60, 0, 0), compiler.compile("q6h for 99999999999 days"));
+    }
+
+    @Test
+    public void leavesFreeTextUnrecognized() {
+        assertEquals(PrescriptionSchedule.UNRECOGNIZED, compiler.compile("as directed by the doctor"));
+        assertEquals(PrescriptionSchedule.UNRECOGNIZED, compiler.compile("   "));
+        assertEquals(PrescriptionSchedule.UNRECOGNIZED, compiler.compile(null));
+    }
+
+    @Test
+    public void cachesByNormalizedTextAndEvictsTheLeastRecentlyUsed() {
+        PrescriptionSchedule q6h = compiler.compile("q6h");
+        assertSame(q6h, compiler.compile("  Q6H "));
+
+        compiler.compile("tds");
+        compiler.compile("q6h");
+        compiler.compile("stat");
+
+        assertEquals(2, compiler.getCachedCount());
+        assertSame(q6h, compiler.compile("q6h"));
+    }
+}
@@ -0,0 +1,140 @@
+package com.medic.medication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TimingWheelTest {
+
+    // One level spans 64^(level + 1) ticks
+    private static final long LEVEL_0 = 64;
+    private static final long LEVEL_1 = 64 * 64;
+    private static final long LEVEL_2 = 64 * 64 * 64;
+    private static final long MAX_DELTA = 64L * 64 * 64 * 64 - 1;
+
+    @Test
+    public void firesOnTheFirstAdvanceAtOrAfterTheDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 0);
+        wheel.schedule(1500, "dose");
+
+        assertEquals(List.of(), advance(wheel, 1999));
+        assertEquals(List.of("dose"), advance(wheel, 2000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void firesOverdueTimersOnTheNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 10_000);
+        wheel.schedule(5, "missed");
+
+        assertEquals(List.of("missed"), advance(wheel, 10_000));
+    }
+
+    @Test
+    public void cascadesTimersDownEveryLevelToTheirExactTick() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        long[] deadlines = {LEVEL_0 - 1, LEVEL_0, LEVEL_0 + 1, LEVEL_1 - 1, LEVEL_1 + 17,
+                3 * LEVEL_1 + 63, LEVEL_2, 2 * LEVEL_2 + LEVEL_1 + 5};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        for (long deadline : deadlines) {
+            assertEquals(List.of(), advance(wheel, deadline - 1));
+            assertEquals(List.of(deadline), advance(wheel, deadline));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void wrapsAroundSlotBoundariesFromAnUnalignedStart() {
+        // Every level is one tick from wrapping
+        long start = LEVEL_2 - 1;
+        TimingWheel<Long> wheel = new TimingWheel<>(1, start);
+        long[] deadlines = {start, start + 1, start + 2, start + LEVEL_0, start + LEVEL_1 + 1, start + LEVEL_2 + 3};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        for (long deadline : deadlines) {
+            assertEquals(List.of(), advance(wheel, deadline - 1));
+            assertEquals(List.of(deadline), advance(wheel, deadline));
+        }
+    }
+
+    @Test
+    public void neverFiresEarlyOrLateUnderRandomDeadlinesAndSteps() {
+        Random random = new Random(42);
+        long start = random.nextInt(1_000_000);
+        TimingWheel<Long> wheel = new TimingWheel<>(1, start);
+        List<Long> pending = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = start + (long) (random.nextDouble() * 3 * LEVEL_2);
+            wheel.schedule(deadline, deadline);
+            pending.add(deadline);
+        }
+
+        long now = start;
+        while (!pending.isEmpty()) {
+            now += 1 + random.nextInt((int) LEVEL_1);
+            for (long deadline : advance(wheel, now)) {
+                assertTrue("fired " + deadline + " at " + now, deadline <= now);
+                pending.remove(deadline);
+            }
+            for (long deadline : pending) {
+                assertTrue("missed " + deadline + " at " + now, deadline > now);
+            }
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void parksFarFutureTimersUntilTheirDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        long deadline = MAX_DELTA + 5 * LEVEL_1 + 7;
+        wheel.schedule(deadline, "far");
+
+        // Clamped into the top level, it comes round once before it is due and is filed again
+        assertEquals(List.of(), advance(wheel, deadline - 1));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("far"), advance(wheel, deadline));
+    }
+
+    @Test
+    public void cancelledTimersNeverFire() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        TimingWheel.Timer<String> near = wheel.schedule(10, "near");
+        TimingWheel.Timer<String> far = wheel.schedule(LEVEL_1 + 10, "far");
+        wheel.schedule(10, "kept");
+
+        assertTrue(wheel.cancel(near));
+        assertTrue(wheel.cancel(far));
+        assertFalse(wheel.cancel(near));
+
+        assertEquals(List.of("kept"), advance(wheel, 2 * LEVEL_1));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void cancelAfterFireIsRejected() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        TimingWheel.Timer<String> timer = wheel.schedule(10, "dose");
+        advance(wheel, 10);
+
+        assertFalse(wheel.cancel(timer));
+        assertFalse(wheel.cancel(null));
+        assertEquals(0, wheel.size());
+    }
+
+    private static <T> List<T> advance(TimingWheel<T> wheel, long nowMillis) {
+        List<T> fired = new ArrayList<>();
+        wheel.advance(nowMillis, fired);
+        return fired;
+    }
+}
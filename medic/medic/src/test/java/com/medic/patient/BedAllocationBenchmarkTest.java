@@ -0,0 +1,66 @@
+package com.medic.patient;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.medic.DatabaseTestSupport;
+
+// One allocateBeds() call placing 1,000 patients across 50 wards of 25 beds, each patient
+// preferring three wards. Run with -Dmedic.benchmarks=true
+public class BedAllocationBenchmarkTest extends DatabaseTestSupport {
+
+    private static final int WARDS = 50;
+    private static final int BEDS_PER_WARD = 25;
+    private static final int PATIENTS = 1000;
+
+    @Autowired
+    private PatientService patientService;
+
+    @BeforeClass
+    public static void setUpDatabase() throws Exception {
+        requireBenchmarks();
+    }
+
+    @Test
+    public void benchmarkBulkAllocation() {
+        List<Integer> wards = new ArrayList<>();
+        for (int i = 0; i < WARDS; i++) {
+            int wardId = insertWard("Ward " + (i + 1));
+            insertBeds(wardId, BEDS_PER_WARD);
+            wards.add(wardId);
+        }
+        Random random = new Random(13);
+        List<BedAllocationRequest> requests = new ArrayList<>();
+        for (int patientId : insertPatients(PATIENTS)) {
+            BedAllocationRequest request = new BedAllocationRequest();
+            request.setPatientId(patientId);
+            request.setPreferredWardIds(List.of(wards.get(random.nextInt(WARDS)), wards.get(random.nextInt(WARDS)),
+                    wards.get(random.nextInt(WARDS))));
+            requests.add(request);
+        }
+
+        long start = System.nanoTime();
+        BedAllocationResultDTO result = patientService.allocateBeds(requests);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        Set<Integer> beds = new HashSet<>();
+        for (BedAllocationResultDTO.Allocation allocation : result.getAllocations()) {
+            if (allocation.getBedId() != null) {
+                beds.add(allocation.getBedId());
+            }
+        }
+        assertEquals(PATIENTS, result.getAllocated());
+        assertEquals(PATIENTS, beds.size());
+        System.out.printf("allocated %d patients across %d wards in %d ms (service reported %d ms)%n",
+                result.getAllocated(), WARDS, elapsedMillis, result.getElapsedMillis());
+    }
+}
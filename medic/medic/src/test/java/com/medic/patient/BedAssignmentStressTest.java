@@ -0,0 +1,144 @@
+package com.medic.patient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.medic.DatabaseTestSupport;
+
+// Many nurses assigning, discharging and swapping beds at once. Whatever interleaving happens,
+// no bed may end up with two patients and is_occupied must agree with who is in the bed.
+// -Dmedic.stress.assigners and -Dmedic.stress.operations scale the run.
+public class BedAssignmentStressTest extends DatabaseTestSupport {
+
+    private static final int ASSIGNERS = Integer.getInteger("medic.stress.assigners", 16);
+    private static final int OPERATIONS_PER_ASSIGNER = Integer.getInteger("medic.stress.operations", 200);
+
+    @Autowired
+    private PatientService patientService;
+
+    @BeforeClass
+    public static void setUpDatabase() throws Exception {
+        requireDatabase();
+    }
+
+    @Test
+    public void exactlyOneOfManySimultaneousClaimsOnABedWins() throws Exception {
+        int bedId = insertBeds(insertWard("Race"), 1).get(0);
+        List<Integer> patients = insertPatients(ASSIGNERS);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService assigners = Executors.newFixedThreadPool(ASSIGNERS);
+        List<Future<Boolean>> claims = new ArrayList<>();
+        for (int patientId : patients) {
+            claims.add(assigners.submit(() -> {
+                start.await();
+                try {
+                    patientService.assignBedToPatient(patientId, bedId, false);
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int won = 0;
+        for (Future<Boolean> claim : claims) {
+            won += claim.get() ? 1 : 0;
+        }
+        assigners.shutdown();
+
+        assertEquals(1, won);
+        assertEquals(Integer.valueOf(1),
+                jdbc.queryForObject("SELECT COUNT(*) FROM patient WHERE bed_id = ?", Integer.class, bedId));
+        assertConsistent(List.of(bedId));
+    }
+
+    @Test
+    public void concurrentAssignmentsDischargesAndSwapsNeverDoubleBook() throws Exception {
+        List<Integer> beds = insertBeds(insertWard("Stress"), 40);
+        List<Integer> patients = insertPatients(60);
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService assigners = Executors.newFixedThreadPool(ASSIGNERS);
+        List<Future<?>> runs = new ArrayList<>();
+        for (int i = 0; i < ASSIGNERS; i++) {
+            runs.add(assigners.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int operation = 0; operation < OPERATIONS_PER_ASSIGNER; operation++) {
+                    int patientId = patients.get(random.nextInt(patients.size()));
+                    int roll = random.nextInt(100);
+                    try {
+                        if (roll < 70) {
+                            patientService.assignBedToPatient(patientId, beds.get(random.nextInt(beds.size())), false);
+                        } else if (roll < 85) {
+                            patientService.assignBedToPatient(patientId, null, false);
+                        } else {
+                            Map<Integer, Integer> moves = new HashMap<>();
+                            moves.put(patientId, beds.get(random.nextInt(beds.size())));
+                            moves.put(patients.get(random.nextInt(patients.size())), beds.get(random.nextInt(beds.size())));
+                            patientService.transferBeds(moves);
+                        }
+                        applied.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // Bed taken, lock wait or deadlock victim: the nurse just tries something else
+                        refused.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> run : runs) {
+            run.get();
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        assigners.shutdown();
+
+        int operations = applied.get() + refused.get();
+        System.out.printf("%d assigners: %d operations (%d applied, %d refused) in %d ms, %.0f operations/s%n",
+                ASSIGNERS, operations, applied.get(), refused.get(), elapsedMillis, operations * 1000.0 / elapsedMillis);
+        assertTrue("No assignment went through", applied.get() > 0);
+        assertConsistent(beds);
+    }
+
+    // No bed holds two patients, is_occupied matches the database occupant, and the in-memory
+    // occupancy index agrees with the database
+    private void assertConsistent(List<Integer> beds) {
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbc);
+        MapSqlParameterSource params = new MapSqlParameterSource("beds", beds);
+        assertEquals("Double-booked beds", List.of(), named.queryForList(
+                "SELECT bed_id FROM patient WHERE bed_id IN (:beds) GROUP BY bed_id HAVING COUNT(*) > 1",
+                params, Integer.class));
+        assertEquals("Beds whose flag disagrees with their occupant", List.of(), named.queryForList(
+                "SELECT b.bed_id FROM bed b LEFT JOIN patient p ON p.bed_id = b.bed_id " +
+                "WHERE b.bed_id IN (:beds) AND b.is_occupied <> (p.patient_id IS NOT NULL)",
+                params, Integer.class));
+        for (int bedId : beds) {
+            List<Integer> occupant = jdbc.queryForList("SELECT patient_id FROM patient WHERE bed_id = ?",
+                    Integer.class, bedId);
+            assertEquals("Index occupant of bed " + bedId, occupant.isEmpty() ? null : occupant.get(0),
+                    occupancyIndex.getOccupant(bedId));
+        }
+    }
+}
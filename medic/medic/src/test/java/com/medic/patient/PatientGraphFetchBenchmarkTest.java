@@ -0,0 +1,127 @@
+package com.medic.patient;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.IntFunction;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.medic.DatabaseTestSupport;
+
+// The old single join-fetch query against PatientDao's query-per-collection load, for one
+// patient with 20 visits, 10 dosages, 10 diagnoses and 20 results. Prints the rows each
+// approach pulls from MySQL and the load latency. The graph is kept small because the join
+// multiplies out (40,000 rows here); the original 50/30/20/40 shape is 1.2M rows per load and
+// exhausts a default test heap. Run with -Dmedic.benchmarks=true
+public class PatientGraphFetchBenchmarkTest extends DatabaseTestSupport {
+
+    private static final int VISITS = 20;
+    private static final int DOSAGES = 10;
+    private static final int DIAGNOSES = 10;
+    private static final int RESULTS = 20;
+    private static final int ROUNDS = 50;
+
+    private static final String JOIN_FETCH = "SELECT DISTINCT p FROM Patient p " +
+            "LEFT JOIN FETCH p.visits LEFT JOIN FETCH p.dosages d LEFT JOIN FETCH d.medicinePrice " +
+            "LEFT JOIN FETCH p.diagnoses LEFT JOIN FETCH p.results WHERE p.id = :id";
+
+    @Autowired
+    private PatientDao patientDao;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeClass
+    public static void setUpDatabase() throws Exception {
+        requireBenchmarks();
+    }
+
+    @Test
+    public void benchmarkPatientGraphFetch() {
+        int patientId = insertPatients(1).get(0);
+        insertGraph(patientId);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        long joinRows = jdbc.queryForObject("SELECT COUNT(*) FROM patient p " +
+                "LEFT JOIN visit v ON v.patient_id = p.patient_id " +
+                "LEFT JOIN dosage d ON d.patient_id = p.patient_id " +
+                "LEFT JOIN diagnoses g ON g.patient_id = p.patient_id " +
+                "LEFT JOIN results r ON r.patient_id = p.patient_id WHERE p.patient_id = ?", Long.class, patientId);
+        long batchedRows = 1L + VISITS + DOSAGES + DIAGNOSES + RESULTS;
+
+        Patient joined = transaction.execute(status -> initialized(entityManager.createQuery(JOIN_FETCH, Patient.class)
+                .setParameter("id", patientId)
+                .getSingleResult()));
+        Patient batched = transaction.execute(status -> initialized(patientDao.getPatientById(patientId)));
+        assertEquals(VISITS, batched.getVisits().size());
+        assertEquals(DOSAGES, batched.getDosages().size());
+        assertEquals(DIAGNOSES, batched.getDiagnoses().size());
+        assertEquals(RESULTS, batched.getResults().size());
+        assertEquals(joined.getVisits().size(), batched.getVisits().size());
+        assertEquals(joined.getResults().size(), batched.getResults().size());
+
+        long[] joinMicros = time(round -> transaction.execute(status -> {
+            entityManager.createQuery(JOIN_FETCH, Patient.class).setParameter("id", patientId).getSingleResult();
+            return null;
+        }));
+        long[] batchedMicros = time(round -> transaction.execute(status -> patientDao.getPatientById(patientId)));
+
+        System.out.printf("join fetch:           %7d rows  p50 %7d us  p99 %7d us%n",
+                joinRows, joinMicros[ROUNDS / 2], joinMicros[ROUNDS * 99 / 100]);
+        System.out.printf("query per collection: %7d rows  p50 %7d us  p99 %7d us%n",
+                batchedRows, batchedMicros[ROUNDS / 2], batchedMicros[ROUNDS * 99 / 100]);
+    }
+
+    private Patient initialized(Patient patient) {
+        patient.getVisits().size();
+        patient.getDosages().size();
+        patient.getDiagnoses().size();
+        patient.getResults().size();
+        return patient;
+    }
+
+    // Sorted per-round latencies after a warm-up; every round runs with an empty persistence context
+    private long[] time(IntFunction<?> round) {
+        for (int i = 0; i < 10; i++) {
+            round.apply(i);
+        }
+        long[] micros = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            round.apply(i);
+            micros[i] = (System.nanoTime() - start) / 1000;
+        }
+        Arrays.sort(micros);
+        return micros;
+    }
+
+    private void insertGraph(int patientId) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbc.update("INSERT INTO dispenser (work_name, location, phone, email) VALUES ('Main', 'Ground floor', '0700000000', 'pharmacy@medic.test')");
+        int dispenserId = jdbc.queryForObject("SELECT MAX(id) FROM dispenser", Integer.class);
+
+        jdbc.batchUpdate("INSERT INTO visit (reason, visit_type, visit_date, is_active, patient_id) VALUES (?, 'OUTPATIENT', ?, 0, ?)",
+                Collections.nCopies(VISITS, new Object[] {"Review", now, patientId}));
+        jdbc.batchUpdate("INSERT INTO dosage (drug_name, amount, prescription, dispenser_id, patient_id, priority, status) " +
+                         "VALUES ('Paracetamol', '500mg', 'Three times daily', ?, ?, 'ROUTINE', 'DISPENSED')",
+                Collections.nCopies(DOSAGES, new Object[] {dispenserId, patientId}));
+        jdbc.batchUpdate("INSERT INTO diagnoses (diagnosed, symptoms, signs, treatment, patient_id) VALUES ('Malaria', 'Fever', 'Pallor', 'ACT', ?)",
+                Collections.nCopies(DIAGNOSES, new Object[] {patientId}));
+        jdbc.batchUpdate("INSERT INTO results (result_code, description, result_type, test_method, created_at, patient_id) " +
+                         "VALUES ('FBC', 'Full blood count', 'LAB', 'Analyser', ?, ?)",
+                Collections.nCopies(RESULTS, new Object[] {now, patientId}));
+    }
+}
@@ -0,0 +1,238 @@
+package com.medic.patient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class PatientSearchIndexTest {
+
+    private static final String[] FIRST_NAMES = {"john", "mary", "peter", "grace", "joseph", "sarah", "david",
+            "esther", "moses", "ruth", "samuel", "agnes", "isaac", "florence", "daniel"};
+
+    private PatientSearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = newIndex(50);
+    }
+
+    @Test
+    public void findsPatientsMatchingEveryTermBeyondTheCandidateCap() {
+        // Far more johns and smiths than the cap, all with lower ids than the john smiths
+        for (int id = 1; id <= 1000; id++) {
+            save(id, "John", "Okello" + id);
+            save(1000 + id, "Peter", "Smith");
+        }
+        for (int id = 5001; id <= 5010; id++) {
+            save(id, "John", "Smith");
+        }
+
+        PatientSearchIndex.Result result = index.search("john smith", 50);
+
+        assertEquals(ids(5001, 5010), hitIds(result));
+        assertTrue(result.isComplete());
+    }
+
+    @Test
+    public void reportsCappedResultsAsIncomplete() {
+        for (int id = 1; id <= 200; id++) {
+            save(id, "John", "Okello" + id);
+        }
+
+        PatientSearchIndex.Result result = index.search("john", 10);
+
+        assertEquals(10, result.getHits().size());
+        assertFalse(result.isComplete());
+    }
+
+    @Test
+    public void reportsResultsAsIncompleteUntilLoaded() {
+        save(1, "Nakato", "Namukasa");
+        ReflectionTestUtils.setField(index, "loaded", false);
+
+        PatientSearchIndex.Result result = index.search("namukasa", 10);
+
+        assertEquals(ids(1, 1), hitIds(result));
+        assertFalse(result.isComplete());
+    }
+
+    @Test
+    public void matchesPrefixesTyposPhoneNumbersAndBirthDates() {
+        index.onPatientSaved(1, "Nakato", "", "Namukasa", "+256 772 123 456", Timestamp.valueOf("1990-05-12 00:00:00"));
+        save(2, "Peter", "Okello");
+
+        for (String query : new String[] {"namu", "namukaza", "nmaukasa", "0772123456", "772 123", "12/05/1990",
+                "1990 nakato"}) {
+            assertEquals(query, ids(1, 1), hitIds(index.search(query, 10)));
+        }
+        assertTrue(index.search("nakato okello", 10).getHits().isEmpty());
+    }
+
+    @Test
+    public void matchesOneAndTwoLetterPrefixesOfRenamedPatients() {
+        save(1, "Nakato", "Namukasa");
+        save(2, "Peter", "Okello");
+        assertEquals(ids(2, 2), hitIds(index.search("o", 10)));
+
+        save(2, "Peter", "Namusoke");
+
+        assertTrue(index.search("o", 10).getHits().isEmpty());
+        assertEquals(ids(1, 2), hitIds(index.search("na", 10)));
+        assertEquals(ids(2, 2), hitIds(index.search("p na", 10)));
+    }
+
+    @Test
+    public void forgetsDeletedPatients() {
+        save(1, "Nakato", "Namukasa");
+        save(1000, "Nakato", "Namukasa");
+
+        index.onPatientDeleted(1);
+
+        assertEquals(ids(1000, 1000), hitIds(index.search("nakato namukasa", 10)));
+    }
+
+    @Test
+    public void retriesTheStartupLoadFromTheLastChunkRead() throws Exception {
+        List<Integer> reads = new ArrayList<>();
+        index = loadingIndex(new PatientDao() {
+            @Override
+            public List<PatientSummaryDTO> getPatientSummaries(int afterId, int limit) {
+                reads.add(afterId);
+                if (reads.size() == 2) {
+                    throw new IllegalStateException("connection refused");
+                }
+                List<PatientSummaryDTO> chunk = new ArrayList<>();
+                for (int id = afterId + 1; id <= Math.min(afterId + limit, 1500); id++) {
+                    chunk.add(new PatientSummaryDTO(id, "Nakato", "Namukasa" + id, null, null, "F", null, null));
+                }
+                return chunk;
+            }
+        }, 3);
+
+        awaitLoad();
+
+        assertTrue(index.isLoaded());
+        assertEquals(1500, index.size());
+        assertEquals(Arrays.asList(0, 1000, 1000), reads);
+    }
+
+    @Test
+    public void givesUpTheStartupLoadAfterTheConfiguredRetries() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        index = loadingIndex(new PatientDao() {
+            @Override
+            public List<PatientSummaryDTO> getPatientSummaries(int afterId, int limit) {
+                reads.incrementAndGet();
+                throw new IllegalStateException("connection refused");
+            }
+        }, 1);
+
+        awaitLoad();
+        save(1, "Nakato", "Namukasa");
+
+        assertFalse(index.isLoaded());
+        assertEquals(2, reads.get());
+        assertNull(ReflectionTestUtils.getField(index, "changedDuringLoad"));
+        assertFalse(index.search("namukasa", 10).isComplete());
+    }
+
+    // Latency over 1M synthetic patients; run with -Dmedic.benchmarks=true
+    @Test
+    public void benchmarkSearchOverOneMillionPatients() {
+        assumeTrue(Boolean.getBoolean("medic.benchmarks"));
+        index = newIndex(5000);
+        Random random = new Random(7);
+        long loadStart = System.nanoTime();
+        for (int id = 1; id <= 1_000_000; id++) {
+            StringBuilder lastName = new StringBuilder();
+            for (int length = 5 + random.nextInt(5); lastName.length() < length; ) {
+                lastName.append((char) ('a' + random.nextInt(26)));
+            }
+            index.onPatientSaved(id, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], lastName.toString(),
+                    "+2567" + (10_000_000 + random.nextInt(89_999_999)),
+                    new Timestamp(-300_000_000_000L + (long) (random.nextDouble() * 1_500_000_000_000L)));
+        }
+        index.onPatientSaved(2_000_000, "Nakato", "", "Namukasa", "0772 123 456",
+                Timestamp.valueOf("1990-05-12 00:00:00"));
+        System.out.printf("loaded %d patients in %d ms%n", index.size(), (System.nanoTime() - loadStart) / 1_000_000);
+
+        for (String query : new String[] {"namukasa", "namukaza", "nakato namu", "0772123456", "1990-05-12 nakato",
+                "j", "jo", "john", "jonh a", "john mary", "john moses a"}) {
+            for (int i = 0; i < 200; i++) {
+                index.search(query, 10);
+            }
+            long[] micros = new long[200];
+            PatientSearchIndex.Result result = null;
+            for (int i = 0; i < micros.length; i++) {
+                long start = System.nanoTime();
+                result = index.search(query, 10);
+                micros[i] = (System.nanoTime() - start) / 1000;
+            }
+            Arrays.sort(micros);
+            System.out.printf("%-20s p50 %6d us  p99 %6d us  hits %d complete %b%n", query,
+                    micros[micros.length / 2], micros[micros.length * 99 / 100], result.getHits().size(),
+                    result.isComplete());
+            assertFalse(query, result.getHits().isEmpty());
+        }
+    }
+
+    private static PatientSearchIndex newIndex(int maxCandidates) {
+        PatientSearchIndex index = new PatientSearchIndex();
+        ReflectionTestUtils.setField(index, "maxCandidates", maxCandidates);
+        ReflectionTestUtils.setField(index, "maxMaterialized", 200_000);
+        ReflectionTestUtils.setField(index, "loaded", true);
+        return index;
+    }
+
+    private static PatientSearchIndex loadingIndex(PatientDao patientDao, int loadRetries) {
+        PatientSearchIndex index = new PatientSearchIndex();
+        ReflectionTestUtils.setField(index, "patientDao", patientDao);
+        ReflectionTestUtils.setField(index, "maxCandidates", 50);
+        ReflectionTestUtils.setField(index, "maxMaterialized", 200_000);
+        ReflectionTestUtils.setField(index, "loadRetries", loadRetries);
+        return index;
+    }
+
+    // Runs the startup load and waits for it to finish or give up
+    private void awaitLoad() throws InterruptedException {
+        index.init();
+        ExecutorService loader = (ExecutorService) ReflectionTestUtils.getField(index, "loader");
+        loader.shutdown();
+        assertTrue(loader.awaitTermination(30, TimeUnit.SECONDS));
+    }
+
+    private void save(int id, String firstName, String lastName) {
+        index.onPatientSaved(id, firstName, null, lastName, null, null);
+    }
+
+    private static Set<Integer> hitIds(PatientSearchIndex.Result result) {
+        return result.getHits().stream().map(PatientSearchIndex.Hit::getId).collect(Collectors.toSet());
+    }
+
+    private static Set<Integer> ids(int from, int to) {
+        Set<Integer> ids = new HashSet<>();
+        for (int id = from; id <= to; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
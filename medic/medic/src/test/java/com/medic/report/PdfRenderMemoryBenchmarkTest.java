@@ -0,0 +1,142 @@
+package com.medic.report;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.medic.medication.DosageDTO;
+import com.medic.result.DiagnosisDTO;
+
+// Heap held by N concurrent PDF renders of one long report, buffered (byte[] then sent) against
+// streamed into the response. Each render is sent to a client reading at CLIENT_BYTES_PER_MS, so
+// a buffered PDF stays on the heap while it drains. A sampler forces a GC every SAMPLE_MS and
+// records the heap still in use above the idle baseline; the peak is what the renders retain.
+// No database. Run with -Dmedic.benchmarks=true; -Dmedic.benchmarks.renders scales N.
+public class PdfRenderMemoryBenchmarkTest {
+
+    private static final int RENDERS = Integer.getInteger("medic.benchmarks.renders", 16);
+    private static final int DIAGNOSES = 1500;
+    private static final int DOSAGES = 1500;
+    private static final int CLIENT_BYTES_PER_MS = 1024;
+    private static final long SAMPLE_MS = 50;
+
+    private final PdfReportService pdfReportService = new PdfReportService();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    @Test
+    public void benchmarkBufferedAgainstStreamedRenders() throws Exception {
+        assumeTrue(Boolean.getBoolean("medic.benchmarks"));
+        Report report = longReport();
+        int pdfBytes = pdfReportService.generatePdfReport(report).length;
+        // Warm-up of both paths, so class loading and fonts are in the baseline
+        pdfReportService.streamPdfReport(report, OutputStream.nullOutputStream());
+
+        for (String mode : new String[] {"buffered", "streamed", "buffered", "streamed"}) {
+            run(mode, report, pdfBytes);
+        }
+    }
+
+    private void run(String mode, Report report, int pdfBytes) throws Exception {
+        long baseline = retainedHeap();
+        AtomicLong peak = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService renderers = Executors.newFixedThreadPool(RENDERS);
+        List<Future<?>> renders = new ArrayList<>();
+        for (int i = 0; i < RENDERS; i++) {
+            renders.add(renderers.submit(() -> {
+                start.await();
+                OutputStream client = new SlowClient();
+                if (mode.equals("buffered")) {
+                    client.write(pdfReportService.generatePdfReport(report));
+                } else {
+                    pdfReportService.streamPdfReport(report, client);
+                }
+                return null;
+            }));
+        }
+        renderers.shutdown();
+
+        long began = System.nanoTime();
+        start.countDown();
+        while (!renderers.isTerminated()) {
+            peak.accumulateAndGet(retainedHeap() - baseline, Math::max);
+            Thread.sleep(SAMPLE_MS);
+        }
+        long elapsedMs = (System.nanoTime() - began) / 1_000_000;
+        for (Future<?> render : renders) {
+            render.get();
+        }
+
+        System.out.printf("%-8s %2d renders of %6d KB: peak retained %7.1f MB (%5.1f MB per render), %6d ms%n",
+                mode, RENDERS, pdfBytes / 1024, peak.get() / 1048576.0, peak.get() / 1048576.0 / RENDERS, elapsedMs);
+    }
+
+    private long retainedHeap() {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static Report longReport() {
+        Report report = new Report();
+        report.setId(1);
+        report.setPatientName("Nakato Namukasa");
+        report.setGender("F");
+        report.setAge(36);
+        report.setReportDate(new Timestamp(System.currentTimeMillis()));
+        Set<DiagnosisDTO> diagnoses = new LinkedHashSet<>();
+        for (int i = 0; i < DIAGNOSES; i++) {
+            DiagnosisDTO diagnosis = new DiagnosisDTO();
+            diagnosis.setId(i);
+            diagnosis.setDiagnosed("Malaria, uncomplicated (episode " + i + ")");
+            diagnosis.setSymptoms("Fever, chills and headache for three days, poor appetite");
+            diagnosis.setTreatment("Artemether-lumefantrine 80/480mg twice daily for three days");
+            diagnoses.add(diagnosis);
+        }
+        report.setDiagnosis(diagnoses);
+        Set<DosageDTO> dosages = new LinkedHashSet<>();
+        for (int i = 0; i < DOSAGES; i++) {
+            DosageDTO dosage = new DosageDTO();
+            dosage.setId(i);
+            dosage.setDrugName("Paracetamol");
+            dosage.setAmount("1g");
+            dosage.setPrescription("Every 6 hours as needed for fever, course " + i);
+            dosage.setCaution("Not more than 4g in 24 hours");
+            dosages.add(dosage);
+        }
+        report.setDosage(dosages);
+        return report;
+    }
+
+    // A client on a slow link: every write takes as long as the link needs to carry it
+    private static final class SlowClient extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            try {
+                Thread.sleep(length / CLIENT_BYTES_PER_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+}
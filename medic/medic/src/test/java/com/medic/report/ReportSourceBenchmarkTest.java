@@ -0,0 +1,92 @@
+package com.medic.report;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockMvcClientHttpRequestFactory;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.medic.DatabaseTestSupport;
+
+// Report assembly in-process through ReportDao against the old call to /api/patients/{id}.
+// By default the HTTP path goes through the real DispatcherServlet and Jackson but not a
+// socket, so it is a lower bound; -Dmedic.benchmarks.patient-api-url=http://localhost:8080/medic/api/patients
+// sends it over loopback to a running deployment on the same database instead.
+// Run with -Dmedic.benchmarks=true
+public class ReportSourceBenchmarkTest extends DatabaseTestSupport {
+
+    private static final int ROUNDS = 200;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private ClientHttpRequestFactory originalRequestFactory;
+    private Object originalPatientApiBaseUrl;
+
+    @BeforeClass
+    public static void setUpDatabase() throws Exception {
+        requireBenchmarks();
+    }
+
+    @Before
+    public void routePatientApi() {
+        originalRequestFactory = restTemplate.getRequestFactory();
+        originalPatientApiBaseUrl = ReflectionTestUtils.getField(reportService, "patientApiBaseUrl");
+        String loopbackUrl = System.getProperty("medic.benchmarks.patient-api-url");
+        if (loopbackUrl == null) {
+            restTemplate.setRequestFactory(new MockMvcClientHttpRequestFactory(
+                    MockMvcBuilders.webAppContextSetup(context).build()));
+            ReflectionTestUtils.setField(reportService, "patientApiBaseUrl", "http://localhost/api/patients");
+        } else {
+            ReflectionTestUtils.setField(reportService, "patientApiBaseUrl", loopbackUrl);
+        }
+    }
+
+    @After
+    public void restorePatientApi() {
+        restTemplate.setRequestFactory(originalRequestFactory);
+        ReflectionTestUtils.setField(reportService, "patientApiBaseUrl", originalPatientApiBaseUrl);
+    }
+
+    @Test
+    public void benchmarkReportSources() {
+        List<Integer> patients = insertPatients(ROUNDS);
+        assertEquals(reportService.generateReportFromPatientId(patients.get(0), ReportService.ReportSource.DAO).getId(),
+                reportService.generateReportFromPatientId(patients.get(0), ReportService.ReportSource.HTTP).getId());
+
+        for (ReportService.ReportSource source : ReportService.ReportSource.values()) {
+            for (int patientId : patients.subList(0, 20)) {
+                reportService.generateReportFromPatientId(patientId, source);
+            }
+            long[] micros = new long[patients.size()];
+            long start = System.nanoTime();
+            for (int i = 0; i < patients.size(); i++) {
+                long reportStart = System.nanoTime();
+                reportService.generateReportFromPatientId(patients.get(i), source);
+                micros[i] = (System.nanoTime() - reportStart) / 1000;
+            }
+            long elapsedMicros = Math.max(1, (System.nanoTime() - start) / 1000);
+            Arrays.sort(micros);
+            System.out.printf("%-4s p50 %6d us  p99 %6d us  %.0f reports/s%n", source,
+                    micros[micros.length / 2], micros[micros.length * 99 / 100],
+                    patients.size() * 1_000_000.0 / elapsedMicros);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.medic.vitals;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.medic.DatabaseTestSupport;
+import com.medic.patient.Patient;
+
+// Readings per second for one save() per reading against saveBatch() over the same number of
+// patients, each path on its own fresh patients so neither updates rows the other wrote.
+// Run with -Dmedic.benchmarks=true; -Dmedic.benchmarks.readings scales it
+public class VitalsBatchBenchmarkTest extends DatabaseTestSupport {
+
+    private static final int READINGS = Integer.getInteger("medic.benchmarks.readings", 2000);
+
+    @Autowired
+    private VitalsService vitalsService;
+
+    @BeforeClass
+    public static void setUpDatabase() throws Exception {
+        requireBenchmarks();
+    }
+
+    @Test
+    public void benchmarkSingleVersusBatchInsert() {
+        List<Integer> singlePatients = insertPatients(READINGS);
+        List<Integer> batchPatients = insertPatients(READINGS);
+
+        long start = System.nanoTime();
+        for (int patientId : singlePatients) {
+            vitalsService.save(vitals(patientId));
+        }
+        long singleMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        List<VitalsReadingDTO> readings = new ArrayList<>();
+        for (int patientId : batchPatients) {
+            readings.add(reading(patientId));
+        }
+        start = System.nanoTime();
+        VitalsBatchResultDTO result = vitalsService.saveBatch(readings);
+        long batchMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        assertEquals(READINGS, result.getSucceeded());
+        System.out.printf("single: %d readings in %6d ms, %8.0f readings/s%n",
+                READINGS, singleMillis, READINGS * 1000.0 / singleMillis);
+        System.out.printf("batch:  %d readings in %6d ms, %8.0f readings/s%n",
+                READINGS, batchMillis, READINGS * 1000.0 / batchMillis);
+    }
+
+    private static Vitals vitals(int patientId) {
+        Patient patient = new Patient();
+        patient.setId(patientId);
+        Vitals vitals = new Vitals();
+        vitals.setPatient(patient);
+        vitals.setTemperature(36.8);
+        vitals.setHeartRate(72);
+        vitals.setBloodPressureSystolic(118);
+        vitals.setBloodPressureDiastolic(76);
+        vitals.setRespiratoryRate(16);
+        vitals.setOxygenSaturation(98);
+        return vitals;
+    }
+
+    private static VitalsReadingDTO reading(int patientId) {
+        VitalsReadingDTO reading = new VitalsReadingDTO();
+        reading.setPatientId(patientId);
+        reading.setTemperature(36.8);
+        reading.setHeartRate(72);
+        reading.setBloodPressureSystolic(118);
+        reading.setBloodPressureDiastolic(76);
+        reading.setRespiratoryRate(16);
+        reading.setOxygenSaturation(98);
+        return reading;
+    }
+}
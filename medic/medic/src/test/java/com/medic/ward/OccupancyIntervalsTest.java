@@ -0,0 +1,102 @@
+package com.medic.ward;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class OccupancyIntervalsTest {
+
+    @Test
+    public void treatsStaysAsHalfOpen() {
+        OccupancyIntervals intervals = new OccupancyIntervals();
+        intervals.add(1, 100, 10, 20);
+
+        assertEquals(Set.of(), overlapping(intervals, 20, 30));
+        assertEquals(Set.of(), overlapping(intervals, 0, 10));
+        assertEquals(Set.of("1/100@10"), overlapping(intervals, 19, 20));
+        assertEquals(Set.of("1/100@10"), overlapping(intervals, 0, 11));
+    }
+
+    @Test
+    public void closesTheOpenStayOfAPatient() {
+        OccupancyIntervals intervals = new OccupancyIntervals();
+        intervals.add(1, 100, 10, OccupancyIntervals.OPEN);
+        assertEquals(Set.of("1/100@10"), overlapping(intervals, 1_000_000, 1_000_001));
+
+        assertTrue(intervals.close(100, 50));
+        assertFalse(intervals.close(100, 60));
+        assertFalse(intervals.close(200, 60));
+        assertEquals(Set.of(), overlapping(intervals, 50, 1_000_000));
+        assertEquals(Set.of("1/100@10"), overlapping(intervals, 49, 50));
+    }
+
+    @Test
+    public void keepsOpenStaysReachableAfterAnOutOfOrderAdd() {
+        OccupancyIntervals intervals = new OccupancyIntervals();
+        intervals.add(1, 100, 100, OccupancyIntervals.OPEN);
+        intervals.add(2, 200, 200, OccupancyIntervals.OPEN);
+        // Back-dated row shifts both open stays along
+        intervals.add(3, 300, 50, 60);
+
+        assertTrue(intervals.close(200, 250));
+        assertTrue(intervals.close(100, 150));
+        assertEquals(Set.of("2/200@200"), overlapping(intervals, 160, 1_000));
+        assertEquals(Set.of("3/300@50", "1/100@100"), overlapping(intervals, 55, 101));
+    }
+
+    @Test
+    public void matchesABruteForceScanUnderRandomAddsClosesAndQueries() {
+        Random random = new Random(7);
+        OccupancyIntervals intervals = new OccupancyIntervals();
+        List<long[]> stays = new ArrayList<>();
+        long now = 0;
+        int nextPatient = 1;
+        for (int step = 0; step < 5000; step++) {
+            int action = random.nextInt(10);
+            if (action < 5) {
+                now += random.nextInt(100);
+                // One in ten back-dated, as after clock skew
+                long start = random.nextInt(10) == 0 ? Math.max(0, now - random.nextInt(5000)) : now;
+                boolean open = random.nextBoolean();
+                long end = open ? OccupancyIntervals.OPEN : start + 1 + random.nextInt(500);
+                int patientId = nextPatient++;
+                intervals.add(patientId % 40, patientId, start, end);
+                stays.add(new long[] {patientId % 40, patientId, start, end});
+            } else if (action < 7 && !stays.isEmpty()) {
+                long[] stay = stays.get(random.nextInt(stays.size()));
+                long end = Math.max(stay[2] + 1, now);
+                boolean closed = intervals.close((int) stay[1], end);
+                assertEquals(stay[3] == OccupancyIntervals.OPEN, closed);
+                if (closed) {
+                    stay[3] = end;
+                }
+            } else {
+                long from = random.nextInt((int) now + 1);
+                long to = from + 1 + random.nextInt(2000);
+                Set<String> expected = new TreeSet<>();
+                for (long[] stay : stays) {
+                    if (stay[2] < to && stay[3] > from) {
+                        expected.add(stay[0] + "/" + stay[1] + "@" + stay[2]);
+                    }
+                }
+                assertEquals(expected, overlapping(intervals, from, to));
+            }
+        }
+        assertEquals(stays.size(), intervals.size());
+    }
+
+    private static Set<String> overlapping(OccupancyIntervals intervals, long from, long to) {
+        Set<String> stays = new TreeSet<>();
+        intervals.overlapping(from, to, (bedId, patientId, start, end) ->
+                assertTrue("duplicate visit", stays.add(bedId + "/" + patientId + "@" + start)));
+        return stays;
+    }
+}